@@ -0,0 +1,101 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation per analyzer call. Run with -prof gc and compare gc.alloc.rate.norm: the *Snapshot
+ * variants reproduce the old getProducts() copy, the others use the copy-free read API.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalyzerAllocationBenchmark {
+
+    @Param({"100000"})
+    int size;
+
+    private Warehouse warehouse;
+    private WarehouseAnalyzer analyzer;
+    private final BigDecimal highValue = new BigDecimal("1000");
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        warehouse = Warehouse.getInstance("AnalyzerAllocationBenchmark");
+        warehouse.clearProducts();
+        Random random = new Random(42);
+        Category[] categories = {Category.of("Dairy"), Category.of("Fruit"), Category.of("Electronics")};
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < size; i++) {
+            BigDecimal price = BigDecimal.valueOf(random.nextInt(200_000), 2);
+            Category category = categories[random.nextInt(categories.length)];
+            warehouse.addProduct(new FoodProduct(UUID.randomUUID(), "Item" + i, category, price,
+                    today.plusDays(random.nextInt(10) - 2), BigDecimal.valueOf(1 + random.nextInt(50), 1)));
+        }
+        analyzer = new WarehouseAnalyzer(warehouse);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        warehouse.clearProducts();
+    }
+
+    @Benchmark
+    public InventoryValidation validate() {
+        return analyzer.validateInventoryConstraints();
+    }
+
+    @Benchmark
+    public InventoryValidation validateSnapshot() {
+        List<Product> items = warehouse.getProducts();
+        long highValueCount = items.stream().filter(p -> p.price().compareTo(highValue) >= 0).count();
+        Set<Category> categories = new HashSet<>();
+        for (Product p : items) categories.add(p.category());
+        return new InventoryValidation((highValueCount * 100.0) / items.size(), categories.size());
+    }
+
+    @Benchmark
+    public InventoryStatistics statistics() {
+        return analyzer.getInventoryStatistics();
+    }
+
+    @Benchmark
+    public Map<Category, BigDecimal> weightedAverages() {
+        return analyzer.calculateWeightedAveragePriceByCategory();
+    }
+
+    @Benchmark
+    public Map<Product, BigDecimal> discounts() {
+        return analyzer.calculateExpirationBasedDiscounts();
+    }
+
+    @Benchmark
+    public long iterateView() {
+        long count = 0;
+        for (Product p : warehouse.productsView()) {
+            if (p.price().signum() > 0) count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public long iterateSnapshot() {
+        long count = 0;
+        for (Product p : warehouse.getProducts()) {
+            if (p.price().signum() > 0) count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every WarehouseAnalyzer operation on a generated inventory.
+ * Add -prof gc (or run exec:exec with -Pbenchmark,gc-profile) to see allocation per call.
+ * 10M products need a large heap: java -jar target/benchmarks.jar AnalyzerBenchmark -jvmArgsAppend -Xmx24g
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalyzerBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    int size;
+
+    private Warehouse warehouse;
+    private WarehouseAnalyzer analyzer;
+    private Product probe;
+    private final BigDecimal min = new BigDecimal("10.00");
+    private final BigDecimal max = new BigDecimal("12.00");
+    private final BigDecimal threshold = new BigDecimal("4500.00");
+    private final BigDecimal maxWeight = new BigDecimal("20.0");
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        warehouse = ProductGenerator.fill("AnalyzerBenchmark", size);
+        analyzer = new WarehouseAnalyzer(warehouse);
+        probe = warehouse.productsView().iterator().next();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        warehouse.clearProducts();
+    }
+
+    @Benchmark
+    public List<Product> findProductsInPriceRange() {
+        return analyzer.findProductsInPriceRange(min, max);
+    }
+
+    @Benchmark
+    public List<Perishable> findProductsExpiringWithinDays() {
+        return analyzer.findProductsExpiringWithinDays(3);
+    }
+
+    @Benchmark
+    public List<Product> searchProductsByName() {
+        return analyzer.searchProductsByName("polar sal");
+    }
+
+    @Benchmark
+    public List<Product> findProductsAbovePrice() {
+        return analyzer.findProductsAbovePrice(threshold);
+    }
+
+    @Benchmark
+    public Map<Category, BigDecimal> calculateWeightedAveragePriceByCategory() {
+        return analyzer.calculateWeightedAveragePriceByCategory();
+    }
+
+    @Benchmark
+    public List<Product> findPriceOutliers() {
+        return analyzer.findPriceOutliers(2.0);
+    }
+
+    @Benchmark
+    public boolean isPriceOutlier() {
+        return analyzer.isPriceOutlier(probe, 2.0);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<ShippingGroup> optimizeShippingGroups() {
+        return analyzer.optimizeShippingGroups(maxWeight);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public PackingResult packShippingGroupsBestFit() {
+        return analyzer.packShippingGroups(maxWeight, PackingStrategy.BEST_FIT_DECREASING);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Map<Product, BigDecimal> calculateExpirationBasedDiscounts() {
+        return analyzer.calculateExpirationBasedDiscounts();
+    }
+
+    @Benchmark
+    public InventoryValidation validateInventoryConstraints() {
+        return analyzer.validateInventoryConstraints();
+    }
+
+    @Benchmark
+    public InventoryStatistics getInventoryStatistics() {
+        return analyzer.getInventoryStatistics();
+    }
+}
@@ -0,0 +1,49 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The dashboard calls on an unchanged catalog, with and without a cached analyzer. validate is
+ * the full scan the cache saves most on; the other two are already served from running totals.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalyzerCacheBenchmark {
+
+    @Param({"true", "false"})
+    boolean cached;
+
+    @Param({"100000"})
+    int size;
+
+    private WarehouseAnalyzer analyzer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Warehouse warehouse = ProductGenerator.fill("AnalyzerCacheBenchmark", size);
+        analyzer = cached ? new WarehouseAnalyzer(warehouse).cached() : new WarehouseAnalyzer(warehouse);
+    }
+
+    @Benchmark
+    public InventoryStatistics inventoryStatistics() {
+        return analyzer.getInventoryStatistics();
+    }
+
+    @Benchmark
+    public InventoryValidation validate() {
+        return analyzer.validateInventoryConstraints();
+    }
+
+    @Benchmark
+    public Map<Category, BigDecimal> weightedAverages() {
+        return analyzer.calculateWeightedAveragePriceByCategory();
+    }
+}
@@ -0,0 +1,32 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Category.of on the spellings the generator feeds it, which all hit the flyweight cache after the
+ * first call. The cost does not depend on the warehouse size, so there is no size parameter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CategoryBenchmark {
+
+    private final String[] names = ProductGenerator.categoryNames();
+    private int cursor;
+
+    @Benchmark
+    public Category of() {
+        cursor = cursor + 1 == names.length ? 0 : cursor + 1;
+        return Category.of(names[cursor]);
+    }
+
+    @Benchmark
+    public Category ofNormalized() {
+        return Category.of("Electronics");
+    }
+}
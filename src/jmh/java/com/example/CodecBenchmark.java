@@ -0,0 +1,88 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Catalog encoding: ProductCodec against a DataOutputStream baseline that writes strings with
+ * writeUTF and decimals and dates as text, roughly what a hand-rolled or JSON-like format costs.
+ * Each operation handles the whole catalog; bytes per product for both are printed during setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecBenchmark {
+
+    @Param({"100000"})
+    int size;
+
+    private Product[] products;
+    private ByteBuffer buffer;
+    private ByteBuffer encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ProductGenerator generator = new ProductGenerator();
+        products = new Product[size];
+        for (int i = 0; i < size; i++) products[i] = generator.next();
+        buffer = ByteBuffer.allocateDirect(size * 128);
+        encoded = ByteBuffer.allocateDirect(size * 128);
+        ProductCodec.Encoder encoder = new ProductCodec.Encoder();
+        for (Product p : products) encoder.encode(p, encoded);
+        encoded.flip();
+        try {
+            System.out.printf("bytes per product: ProductCodec %.1f, DataOutputStream %.1f%n",
+                    (double) encoded.limit() / size, (double) encodeDataOutput() / size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Benchmark
+    public int encode() {
+        ProductCodec.Encoder encoder = new ProductCodec.Encoder();
+        buffer.clear();
+        for (Product p : products) encoder.encode(p, buffer);
+        return buffer.position();
+    }
+
+    @Benchmark
+    public int decode() {
+        ProductCodec.Decoder decoder = new ProductCodec.Decoder();
+        ByteBuffer in = encoded.duplicate();
+        int hash = 0;
+        while (in.hasRemaining()) hash += decoder.decode(in).name().length();
+        return hash;
+    }
+
+    @Benchmark
+    public int encodeDataOutput() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(size * 128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (Product p : products) {
+            out.writeUTF(p.getClass().getSimpleName());
+            out.writeUTF(p.uuid().toString());
+            out.writeUTF(p.category().getName());
+            out.writeUTF(p.name());
+            out.writeUTF(p.price().toString());
+            if (p instanceof FoodProduct food) {
+                out.writeUTF(String.valueOf(food.expirationDate()));
+                out.writeUTF(food.weightValue().toString());
+            } else {
+                ElectronicsProduct electronics = (ElectronicsProduct) p;
+                out.writeInt(electronics.warrantyMonths());
+                out.writeUTF(electronics.weightValue().toString());
+            }
+        }
+        return bytes.size();
+    }
+}
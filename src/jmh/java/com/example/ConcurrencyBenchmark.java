@@ -0,0 +1,92 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multi-threaded throughput of Warehouse reads and writes. Run with -t 1,2,4,8,... to see scaling;
+ * the globalLock variant reproduces callers wrapping every call in one shared lock. Threads beyond
+ * the core count only take turns, so useful numbers need at least as many cores as the largest -t.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrencyBenchmark {
+
+    @Param({"100000"})
+    int size;
+
+    private final Object globalLock = new Object();
+    private Warehouse warehouse;
+    private UUID[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        warehouse = Warehouse.getInstance("ConcurrencyBenchmark");
+        warehouse.clearProducts();
+        ids = new UUID[size];
+        Category food = Category.of("Food");
+        LocalDate expires = LocalDate.now().plusDays(10);
+        for (int i = 0; i < size; i++) {
+            ids[i] = UUID.randomUUID();
+            warehouse.addProduct(new FoodProduct(ids[i], "Food" + i, food, BigDecimal.TEN, expires, BigDecimal.ONE));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        warehouse.clearProducts();
+    }
+
+    private UUID randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    @Benchmark
+    public Optional<Product> getById() {
+        return warehouse.getProductById(randomId());
+    }
+
+    @Benchmark
+    public Optional<Product> getByIdGlobalLock() {
+        synchronized (globalLock) {
+            return warehouse.getProductById(randomId());
+        }
+    }
+
+    @Benchmark
+    public void updatePrice() {
+        warehouse.updateProductPrice(randomId(), BigDecimal.valueOf(ThreadLocalRandom.current().nextInt(1, 10_000), 2));
+    }
+
+    @Benchmark
+    public void updatePriceGlobalLock() {
+        synchronized (globalLock) {
+            warehouse.updateProductPrice(randomId(), BigDecimal.valueOf(ThreadLocalRandom.current().nextInt(1, 10_000), 2));
+        }
+    }
+
+    //7 readers per writer, the typical request mix
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(7)
+    public Optional<Product> mixedRead() {
+        return warehouse.getProductById(randomId());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void mixedWrite() {
+        warehouse.updateProductPrice(randomId(), BigDecimal.valueOf(ThreadLocalRandom.current().nextInt(1, 10_000), 2));
+    }
+}
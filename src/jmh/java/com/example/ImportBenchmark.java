@@ -0,0 +1,97 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to load a catalog of size products into an empty warehouse: one addProduct per product,
+ * one addAll of the whole list, and a CatalogImporter run over the same catalog written as CSV,
+ * which includes reading and parsing the file. The score is the load time, so at size 1000000 it
+ * reads directly as time per million rows.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ImportBenchmark {
+
+    @Param({"1000000"})
+    int size;
+
+    private Warehouse warehouse;
+    private List<Product> catalog;
+    private Path directory;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ProductGenerator generator = new ProductGenerator();
+        catalog = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) catalog.add(generator.next());
+        directory = PersistenceBenchmark.tempDirectory();
+        file = directory.resolve("catalog.csv");
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            out.write(CatalogImporter.HEADER);
+            out.newLine();
+            for (Product p : catalog) {
+                out.write(row(p));
+                out.newLine();
+            }
+        }
+        System.out.printf("%n%d rows, %.1f MB of CSV%n", size, Files.size(file) / 1e6);
+        warehouse = Warehouse.getInstance("ImportBenchmark");
+    }
+
+    private static String row(Product p) {
+        if (p instanceof FoodProduct food) {
+            return String.join(",", "FOOD", p.uuid().toString(), p.name(), p.category().getName(), p.price().toPlainString(),
+                    food.weightValue().toPlainString(), food.expirationDate() == null ? "" : food.expirationDate().toString(), "");
+        }
+        ElectronicsProduct electronics = (ElectronicsProduct) p;
+        return String.join(",", "ELECTRONICS", p.uuid().toString(), p.name(), p.category().getName(), p.price().toPlainString(),
+                electronics.weightValue().toPlainString(), "", Integer.toString(electronics.warrantyMonths()));
+    }
+
+    @Setup(Level.Iteration)
+    public void empty() {
+        warehouse.clearProducts();
+        System.gc();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        warehouse.clearProducts();
+        PersistenceBenchmark.delete(directory);
+    }
+
+    @Benchmark
+    public int addProductLoop() {
+        for (Product p : catalog) warehouse.addProduct(p);
+        return warehouse.size();
+    }
+
+    @Benchmark
+    public int addAll() {
+        warehouse.addAll(catalog);
+        return warehouse.size();
+    }
+
+    @Benchmark
+    public long importCsv() {
+        try {
+            return CatalogImporter.importCsv(file, warehouse);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the built-in metrics on the cheapest calls, where it shows most: lookups by id, reprices
+ * and a fixed-point analyzer report. metrics=false runs the same code with the switch off, which
+ * is the uninstrumented baseline. Each value of metrics gets its own fork, and the switch is set
+ * before anything initializes WarehouseMetrics.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsBenchmark {
+
+    @Param({"true", "false"})
+    String metrics;
+
+    @Param({"100000"})
+    int size;
+
+    private Warehouse warehouse;
+    private WarehouseAnalyzer analyzer;
+    private UUID[] ids;
+    private BigDecimal[] prices;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        System.setProperty("warehouse.metrics", metrics);
+        if (WarehouseMetrics.ENABLED != Boolean.parseBoolean(metrics)) {
+            throw new IllegalStateException("WarehouseMetrics was initialized before the switch was set.");
+        }
+        warehouse = ProductGenerator.fill("MetricsBenchmark", size);
+        analyzer = new WarehouseAnalyzer(warehouse);
+        List<UUID> list = new ArrayList<>();
+        warehouse.forEach(p -> list.add(p.uuid()));
+        ids = list.toArray(UUID[]::new);
+        prices = new BigDecimal[64];
+        for (int i = 0; i < prices.length; i++) prices[i] = BigDecimal.valueOf(100 + i, 2);
+    }
+
+    @Benchmark
+    public Product getById() {
+        return warehouse.getProductById(ids[ThreadLocalRandom.current().nextInt(ids.length)]).orElseThrow();
+    }
+
+    @Benchmark
+    public void updatePrice() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        warehouse.updateProductPrice(ids[random.nextInt(ids.length)], prices[random.nextInt(prices.length)]);
+    }
+
+    @Benchmark
+    public InventoryStatistics inventoryStatistics() {
+        return analyzer.getInventoryStatistics();
+    }
+}
@@ -0,0 +1,73 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Name search latency distribution: trigram index vs. lower-casing and scanning every name.
+ * Run with the sample-time mode to read p99 from the percentile table.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx8g")
+public class NameSearchBenchmark {
+
+    private static final String[] WORDS = {"organic", "milk", "cheese", "yogurt", "butter", "apple", "banana",
+            "laptop", "mouse", "keyboard", "monitor", "cable", "charger", "bread", "coffee", "tea", "juice"};
+
+    @Param({"1000000", "5000000"})
+    int size;
+
+    @Param({"milk", "keyboard cable", "ch"})
+    String term;
+
+    private Warehouse warehouse;
+    private WarehouseAnalyzer analyzer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        warehouse = Warehouse.getInstance("NameSearchBenchmark");
+        warehouse.clearProducts();
+        Random random = new Random(42);
+        Category food = Category.of("Food");
+        LocalDate expires = LocalDate.now().plusDays(10);
+        for (int i = 0; i < size; i++) {
+            String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+            warehouse.addProduct(new FoodProduct(UUID.randomUUID(), name, food, BigDecimal.TEN, expires, BigDecimal.ONE));
+        }
+        analyzer = new WarehouseAnalyzer(warehouse);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        warehouse.clearProducts();
+    }
+
+    @Benchmark
+    public List<Product> indexed() {
+        return analyzer.searchProductsByName(term);
+    }
+
+    @Benchmark
+    public List<Product> scan() {
+        String lower = term.toLowerCase(Locale.ROOT);
+        List<Product> result = new ArrayList<>();
+        for (Product p : warehouse.getProducts()) {
+            if (p.name().toLowerCase(Locale.ROOT).contains(lower)) {
+                result.add(p);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap against off-heap storage for size products. Heap bytes per product after a full GC and the
+ * native bytes of the off-heap records are printed during setup; fullGc times one System.gc(), the
+ * pause a full collection of the live catalog costs. Off-heap storage uses the FFM API, a preview
+ * before JDK 22, so on JDK 21 run with -jvmArgsAppend --enable-preview.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OffHeapBenchmark {
+
+    @Param({"2000000"})
+    int size;
+
+    @Param({"HEAP", "OFF_HEAP"})
+    Storage storage;
+
+    private Warehouse warehouse;
+    private UUID[] ids;
+    private BigDecimal threshold;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long before = usedHeap();
+        warehouse = Warehouse.getInstance("OffHeapBenchmark-" + storage, storage);
+        warehouse.clearProducts();
+        ProductGenerator generator = new ProductGenerator();
+        ids = new UUID[size];
+        List<Product> batch = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Product p = generator.next();
+            ids[i] = p.uuid();
+            batch.add(p);
+            if (batch.size() == 10_000) {
+                warehouse.addAll(batch);
+                batch.clear();
+            }
+        }
+        warehouse.addAll(batch);
+        //ids are held by the benchmark either way, so they are not charged to the storage
+        long idBytes = (long) size * 32;
+        System.out.printf("%n%s: %.1f heap bytes per product", storage,
+                (double) (usedHeap() - before - idBytes) / size);
+        if (warehouse.offHeapStore() != null) {
+            System.out.printf(", %.1f native bytes per product", (double) warehouse.offHeapStore().nativeBytes() / size);
+        }
+        System.out.println();
+        threshold = new BigDecimal("400.00");
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 10)
+    public void fullGc() {
+        System.gc();
+    }
+
+    @Benchmark
+    public Product getById() {
+        return warehouse.getProductById(ids[ThreadLocalRandom.current().nextInt(ids.length)]).orElseThrow();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int productsAbovePrice() {
+        return warehouse.productsInPriceRange(threshold, new BigDecimal("100000")).size();
+    }
+}
@@ -0,0 +1,67 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A 50-row screen of the broad searches the UI runs: everything above a low price, and everything
+ * expiring within a week. Each is measured as the full list, the first page, and the first 50
+ * elements of the stream; only the list grows with the catalog.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PagingBenchmark {
+    private static final int ROWS = 50;
+
+    @Param({"10000", "100000"})
+    int size;
+
+    private WarehouseAnalyzer analyzer;
+    private BigDecimal threshold;
+    private LocalDate today;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        analyzer = new WarehouseAnalyzer(ProductGenerator.fill("PagingBenchmark", size));
+        threshold = new BigDecimal("5.00");
+        today = LocalDate.now();
+    }
+
+    @Benchmark
+    public List<Product> aboveList() {
+        return analyzer.findProductsAbovePrice(threshold);
+    }
+
+    @Benchmark
+    public Page<Product> abovePage() {
+        return analyzer.findProductsAbovePrice(threshold, ROWS, null);
+    }
+
+    @Benchmark
+    public List<Product> aboveStream() {
+        return analyzer.streamProductsAbovePrice(threshold).limit(ROWS).toList();
+    }
+
+    @Benchmark
+    public List<Perishable> expiringList() {
+        return analyzer.findProductsExpiringWithinDays(7, today);
+    }
+
+    @Benchmark
+    public Page<Perishable> expiringPage() {
+        return analyzer.findProductsExpiringWithinDays(7, today, ROWS, null);
+    }
+
+    @Benchmark
+    public List<Perishable> expiringStream() {
+        return analyzer.streamProductsExpiringWithinDays(7, today).limit(ROWS).toList();
+    }
+}
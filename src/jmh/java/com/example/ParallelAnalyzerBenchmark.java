@@ -0,0 +1,68 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling of the parallel analyzer across pool sizes; threads = 0 is the sequential analyzer.
+ * Useful numbers need a machine with at least as many cores as the largest pool.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelAnalyzerBenchmark {
+
+    @Param({"1000000"})
+    int size;
+
+    @Param({"0", "1", "2", "4", "8", "16", "32", "64"})
+    int threads;
+
+    private Warehouse warehouse;
+    private ForkJoinPool pool;
+    private WarehouseAnalyzer analyzer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        warehouse = ProductGenerator.fill("ParallelAnalyzerBenchmark", size);
+        analyzer = new WarehouseAnalyzer(warehouse);
+        if (threads > 0) {
+            pool = new ForkJoinPool(threads);
+            analyzer = analyzer.parallel(pool, WarehouseAnalyzer.DEFAULT_PARALLEL_THRESHOLD);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (pool != null) pool.shutdown();
+        warehouse.clearProducts();
+    }
+
+    @Benchmark
+    public Map<Category, BigDecimal> weightedAverage() {
+        return analyzer.calculateWeightedAveragePriceByCategory();
+    }
+
+    @Benchmark
+    public Map<Product, BigDecimal> discounts() {
+        return analyzer.calculateExpirationBasedDiscounts();
+    }
+
+    @Benchmark
+    public InventoryValidation validate() {
+        return analyzer.validateInventoryConstraints();
+    }
+
+    @Benchmark
+    public List<Product> outliers() {
+        return analyzer.findPriceOutliers(2.0);
+    }
+}
@@ -0,0 +1,128 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Costs of persistence mode: fsynced mutation throughput, where group commit lets concurrent writers
+ * share an fsync (run with -t 1,4,16 to see it), and recovery time from a snapshot plus a log tail of
+ * one reprice per ten products. The memory-only variant is the baseline. 10M products need a heap of
+ * roughly 8 GB.
+ */
+public class PersistenceBenchmark {
+
+    static Path tempDirectory() {
+        try {
+            return Files.createTempDirectory("warehouse-bench");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static void delete(Path directory) {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @State(Scope.Benchmark)
+    @Warmup(iterations = 2, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    @Fork(1)
+    public static class Mutations {
+
+        @Param({"1000000", "10000000"})
+        int size;
+
+        @Param({"true", "false"})
+        boolean persistent;
+
+        private Warehouse warehouse;
+        private UUID[] ids;
+        private Path directory;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            warehouse = ProductGenerator.fill("PersistenceBenchmark", size);
+            ids = warehouse.stream().map(Product::uuid).toArray(UUID[]::new);
+            if (persistent) {
+                directory = tempDirectory();
+                warehouse.enablePersistence(directory);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            warehouse.disablePersistence();
+            warehouse.clearProducts();
+            if (directory != null) delete(directory);
+        }
+
+        @Benchmark
+        public void reprice() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            warehouse.updateProductPrice(ids[random.nextInt(ids.length)], BigDecimal.valueOf(random.nextInt(1, 100_000), 2));
+        }
+    }
+
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @State(Scope.Benchmark)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    @Fork(1)
+    public static class Recovery {
+
+        @Param({"1000000", "10000000"})
+        int size;
+
+        private Warehouse warehouse;
+        private Path directory;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            warehouse = ProductGenerator.fill("RecoveryBenchmark", size);
+            UUID[] ids = warehouse.stream().map(Product::uuid).toArray(UUID[]::new);
+            directory = tempDirectory();
+            warehouse.enablePersistence(directory);
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < size / 10; i++) {
+                warehouse.updateProductPrice(ids[random.nextInt(ids.length)], BigDecimal.valueOf(random.nextInt(1, 100_000), 2));
+            }
+            warehouse.disablePersistence();
+        }
+
+        @Setup(Level.Iteration)
+        public void forget() {
+            warehouse.disablePersistence();
+            warehouse.clearProducts();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            warehouse.disablePersistence();
+            warehouse.clearProducts();
+            delete(directory);
+        }
+
+        @Benchmark
+        public int recover() {
+            warehouse.enablePersistence(directory);
+            return warehouse.size();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Price range and threshold queries: sorted price index vs. the old full scan over getProducts().
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PriceIndexBenchmark {
+
+    @Param({"100000", "1000000"})
+    int size;
+
+    private Warehouse warehouse;
+    private WarehouseAnalyzer analyzer;
+    private final BigDecimal min = new BigDecimal("100.00");
+    private final BigDecimal max = new BigDecimal("110.00");
+    private final BigDecimal threshold = new BigDecimal("9900.00");
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        warehouse = Warehouse.getInstance("PriceIndexBenchmark");
+        warehouse.clearProducts();
+        Random random = new Random(42);
+        Category food = Category.of("Food");
+        Category electronics = Category.of("Electronics");
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < size; i++) {
+            BigDecimal price = BigDecimal.valueOf(random.nextInt(1_000_000), 2);
+            if (random.nextBoolean()) {
+                warehouse.addProduct(new FoodProduct(UUID.randomUUID(), "Food" + i, food, price,
+                        today.plusDays(random.nextInt(30)), BigDecimal.ONE));
+            } else {
+                warehouse.addProduct(new ElectronicsProduct(UUID.randomUUID(), "Gadget" + i, electronics, price,
+                        12, BigDecimal.TEN));
+            }
+        }
+        analyzer = new WarehouseAnalyzer(warehouse);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        warehouse.clearProducts();
+    }
+
+    @Benchmark
+    public List<Product> rangeIndexed() {
+        return analyzer.findProductsInPriceRange(min, max);
+    }
+
+    @Benchmark
+    public List<Product> rangeScan() {
+        List<Product> result = new ArrayList<>();
+        for (Product p : warehouse.getProducts()) {
+            if (p.price().compareTo(min) >= 0 && p.price().compareTo(max) <= 0) {
+                result.add(p);
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<Product> aboveIndexed() {
+        return analyzer.findProductsAbovePrice(threshold);
+    }
+
+    @Benchmark
+    public List<Product> aboveScan() {
+        List<Product> result = new ArrayList<>();
+        for (Product p : warehouse.getProducts()) {
+            if (p.price().compareTo(threshold) > 0) {
+                result.add(p);
+            }
+        }
+        return result;
+    }
+}
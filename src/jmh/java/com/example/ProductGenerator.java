@@ -0,0 +1,74 @@
+package com.example;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Seeded source of a realistic inventory: about 65% food with short shelf lives, 35% electronics,
+ * spread over a handful of categories with names built from a small vocabulary. The same seed always
+ * yields the same products, ids included, so runs at different sizes and on different machines compare.
+ */
+final class ProductGenerator {
+    static final long SEED = 42;
+
+    private static final String[] FOOD_CATEGORIES = {"dairy", "Fruit", "BAKERY", "Meat", "beverages", "Frozen"};
+    private static final String[] ELECTRONICS_CATEGORIES = {"Electronics", "computers", "Phones", "AUDIO"};
+    private static final String[] FOOD_WORDS = {"Milk", "Cheese", "Yoghurt", "Apple", "Banana", "Bread", "Bun",
+            "Chicken", "Beef", "Juice", "Coffee", "Pizza", "Berries", "Butter", "Salmon"};
+    private static final String[] ELECTRONICS_WORDS = {"Laptop", "Monitor", "Phone", "Charger", "Headphones",
+            "Speaker", "Keyboard", "Mouse", "Tablet", "Camera"};
+    private static final String[] BRANDS = {"Nordic", "Acme", "Polar", "Summit", "Vista", "Orbit", "Fjord", "Delta"};
+
+    private final Random random;
+    private final LocalDate today = LocalDate.now();
+    private long sequence;
+
+    ProductGenerator() {
+        this(SEED);
+    }
+
+    ProductGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    //the raw category spellings the generator uses, before Category.of normalizes them
+    static String[] categoryNames() {
+        String[] names = new String[FOOD_CATEGORIES.length + ELECTRONICS_CATEGORIES.length];
+        System.arraycopy(FOOD_CATEGORIES, 0, names, 0, FOOD_CATEGORIES.length);
+        System.arraycopy(ELECTRONICS_CATEGORIES, 0, names, FOOD_CATEGORIES.length, ELECTRONICS_CATEGORIES.length);
+        return names;
+    }
+
+    Product next() {
+        UUID id = new UUID(random.nextLong(), sequence++);
+        String brand = BRANDS[random.nextInt(BRANDS.length)];
+        if (random.nextInt(100) < 65) {
+            String name = brand + " " + FOOD_WORDS[random.nextInt(FOOD_WORDS.length)] + " " + sequence;
+            Category category = Category.of(FOOD_CATEGORIES[random.nextInt(FOOD_CATEGORIES.length)]);
+            //0.50 to 200.00, most of it under 50
+            BigDecimal price = BigDecimal.valueOf(50 + (long) (random.nextDouble() * random.nextDouble() * 19_950), 2);
+            LocalDate expires = today.plusDays(random.nextInt(36) - 5);
+            BigDecimal weight = BigDecimal.valueOf(50 + random.nextInt(9_950), 3);
+            return new FoodProduct(id, name, category, price, expires, weight);
+        }
+        String name = brand + " " + ELECTRONICS_WORDS[random.nextInt(ELECTRONICS_WORDS.length)] + " " + sequence;
+        Category category = Category.of(ELECTRONICS_CATEGORIES[random.nextInt(ELECTRONICS_CATEGORIES.length)]);
+        //20.00 to 5000.00, long tail towards the top
+        BigDecimal price = BigDecimal.valueOf(2_000 + (long) (random.nextDouble() * random.nextDouble() * 498_000), 2);
+        BigDecimal weight = BigDecimal.valueOf(100 + random.nextInt(24_900), 3);
+        return new ElectronicsProduct(id, name, category, price, 12 * (1 + random.nextInt(3)), weight);
+    }
+
+    //clears the named warehouse and fills it with size generated products
+    static Warehouse fill(String warehouseName, int size) {
+        Warehouse warehouse = Warehouse.getInstance(warehouseName);
+        warehouse.clearProducts();
+        ProductGenerator generator = new ProductGenerator();
+        for (int i = 0; i < size; i++) {
+            warehouse.addProduct(generator.next());
+        }
+        return warehouse;
+    }
+}
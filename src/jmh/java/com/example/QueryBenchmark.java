@@ -0,0 +1,74 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The combined filter from the query engine's motivating example: one category, a price band,
+ * expiry within three days and a name term. chained intersects the answers of separate analyzer
+ * calls, stream filters every product once, and query lets the planner start from the narrowest index.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBenchmark {
+
+    @Param({"100000"})
+    int size;
+
+    private Warehouse warehouse;
+    private WarehouseAnalyzer analyzer;
+    private Category dairy;
+    private BigDecimal min;
+    private BigDecimal max;
+    private LocalDate today;
+    private ProductQuery query;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        warehouse = ProductGenerator.fill("QueryBenchmark", size);
+        analyzer = new WarehouseAnalyzer(warehouse);
+        dairy = Category.of("dairy");
+        min = new BigDecimal("20.00");
+        max = new BigDecimal("50.00");
+        today = LocalDate.now();
+        query = ProductQuery.all().inCategory(dairy).priceBetween(min, max)
+                .expiringBetween(today, today.plusDays(3)).nameContains("milk");
+    }
+
+    @Benchmark
+    public List<Product> chained() {
+        Set<Product> expiring = new HashSet<>();
+        for (Perishable p : analyzer.findProductsExpiringWithinDays(3, today)) expiring.add((Product) p);
+        Set<Product> named = new HashSet<>(analyzer.searchProductsByName("milk"));
+        return analyzer.findProductsInPriceRange(min, max).stream()
+                .filter(p -> p.category() == dairy && expiring.contains(p) && named.contains(p))
+                .toList();
+    }
+
+    @Benchmark
+    public List<Product> stream() {
+        long first = today.toEpochDay();
+        long last = first + 3;
+        return warehouse.stream()
+                .filter(p -> p.category() == dairy)
+                .filter(p -> p.price().compareTo(min) >= 0 && p.price().compareTo(max) <= 0)
+                .filter(p -> p instanceof Perishable per && per.expirationDay() >= first && per.expirationDay() <= last)
+                .filter(p -> p.name().toLowerCase().contains("milk"))
+                .toList();
+    }
+
+    @Benchmark
+    public List<Product> query() {
+        return warehouse.query(query);
+    }
+}
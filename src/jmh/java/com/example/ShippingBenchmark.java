@@ -0,0 +1,89 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shipping group packing: segment-tree first fit and tree-map best fit vs. the old re-summing first fit.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShippingBenchmark {
+
+    @Param({"2000", "200000"})
+    int size;
+
+    private Warehouse warehouse;
+    private WarehouseAnalyzer analyzer;
+    private final BigDecimal maxWeight = new BigDecimal("20.0");
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        warehouse = Warehouse.getInstance("ShippingBenchmark");
+        warehouse.clearProducts();
+        Random random = new Random(42);
+        Category food = Category.of("Food");
+        Category electronics = Category.of("Electronics");
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < size; i++) {
+            BigDecimal weight = BigDecimal.valueOf(1 + random.nextInt(10_000), 3);
+            if (random.nextBoolean()) {
+                warehouse.addProduct(new FoodProduct(UUID.randomUUID(), "Food" + i, food, BigDecimal.TEN,
+                        today.plusDays(random.nextInt(30)), weight));
+            } else {
+                warehouse.addProduct(new ElectronicsProduct(UUID.randomUUID(), "Gadget" + i, electronics, BigDecimal.TEN,
+                        12, weight));
+            }
+        }
+        analyzer = new WarehouseAnalyzer(warehouse);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        warehouse.clearProducts();
+    }
+
+    @Benchmark
+    public PackingResult firstFit() {
+        return analyzer.packShippingGroups(maxWeight, PackingStrategy.FIRST_FIT_DECREASING);
+    }
+
+    @Benchmark
+    public PackingResult bestFit() {
+        return analyzer.packShippingGroups(maxWeight, PackingStrategy.BEST_FIT_DECREASING);
+    }
+
+    //the original algorithm, only practical at the small size
+    @Benchmark
+    public int firstFitResumming() {
+        if (size > 10_000) return -1;
+        double maxW = maxWeight.doubleValue();
+        List<Shippable> items = warehouse.shippableProducts();
+        items.sort((a, b) -> Double.compare(b.weight(), a.weight()));
+        List<List<Shippable>> bins = new ArrayList<>();
+        for (Shippable item : items) {
+            boolean placed = false;
+            for (List<Shippable> bin : bins) {
+                double binWeight = bin.stream().map(Shippable::weight).reduce(0.0, Double::sum);
+                if (binWeight + item.weight() <= maxW) {
+                    bin.add(item);
+                    placed = true;
+                    break;
+                }
+            }
+            if (!placed) bins.add(new ArrayList<>(List.of(item)));
+        }
+        return bins.size();
+    }
+}
@@ -0,0 +1,89 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warehouse write and lookup paths on a generated inventory. addProduct adds products on top of the
+ * generated ones and drops them again after every iteration, so the warehouse stays near its size.
+ * 10M products need a large heap: java -jar target/benchmarks.jar WarehouseBenchmark -jvmArgsAppend -Xmx24g
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WarehouseBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    int size;
+
+    private Warehouse warehouse;
+    private UUID[] ids;
+    private int cursor;
+    private ProductGenerator extra;
+    private final List<UUID> added = new ArrayList<>();
+    private final BigDecimal[] prices = {new BigDecimal("19.90"), new BigDecimal("24.50"), new BigDecimal("7.25")};
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        warehouse = ProductGenerator.fill("WarehouseBenchmark", size);
+        ids = warehouse.productsView().stream().map(Product::uuid).toArray(UUID[]::new);
+        //a different seed, so the extra products never collide with the generated ones
+        extra = new ProductGenerator(ProductGenerator.SEED + 1);
+    }
+
+    @TearDown(Level.Iteration)
+    public void dropAdded() {
+        added.forEach(warehouse::remove);
+        added.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        warehouse.clearProducts();
+    }
+
+    //ids in map order, a stride through them so consecutive lookups do not share cache lines
+    private UUID nextId() {
+        cursor = (cursor + 7919) % ids.length;
+        return ids[cursor];
+    }
+
+    @Benchmark
+    public void addProduct() {
+        Product product = extra.next();
+        warehouse.addProduct(product);
+        added.add(product.uuid());
+    }
+
+    @Benchmark
+    public Optional<Product> getProductById() {
+        return warehouse.getProductById(nextId());
+    }
+
+    @Benchmark
+    public void updateProductPrice() {
+        warehouse.updateProductPrice(nextId(), prices[cursor % prices.length]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Product> getProducts() {
+        return warehouse.getProducts();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Map<Category, List<Product>> getProductsGroupedByCategories() {
+        return warehouse.getProductsGroupedByCategories();
+    }
+}
@@ -0,0 +1,18 @@
+package com.example;
+
+/**
+ * Where {@link Warehouse#query} takes its candidates from, as reported by {@link Warehouse#explain}.
+ * Every other condition of the query is checked on each candidate in the same pass.
+ */
+public enum AccessPath {
+    //every product; the only path of an OFF_HEAP warehouse, which keeps no per-product indexes
+    SCAN,
+    //the products in the query's price range, from the price index
+    PRICE_INDEX,
+    //the day buckets of the query's expiry range
+    EXPIRATION_INDEX,
+    //the members of the query's category
+    CATEGORY_INDEX,
+    //the shortest trigram posting list of one of the query's name terms
+    NAME_INDEX
+}
@@ -0,0 +1,55 @@
+package com.example;
+
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Flight Recorder event for a WarehouseAnalyzer query that ran past the threshold, 10 ms unless a
+ * recording's settings say otherwise. Disabled events cost a check on commit and nothing else.
+ */
+@Name("com.example.AnalyzerQuery")
+@Label("Analyzer Query")
+@jdk.jfr.Category("Warehouse")
+@Description("A WarehouseAnalyzer call, with the catalog size it ran over and the size of its answer")
+@Threshold("10 ms")
+@StackTrace(false)
+final class AnalyzerQueryEvent extends Event {
+
+    @Label("Method")
+    String method;
+
+    @Label("Input Size")
+    @Description("Products in the warehouse when the query finished")
+    int inputSize;
+
+    @Label("Result Size")
+    @Description("Elements of a list or map answer, 1 for any other answer")
+    int resultSize;
+
+    static AnalyzerQueryEvent started() {
+        AnalyzerQueryEvent event = new AnalyzerQueryEvent();
+        event.begin();
+        return event;
+    }
+
+    //passes the answer through; fields are only filled in when the query was slow enough to be recorded
+    <T> T commit(Operation operation, Warehouse warehouse, T result) {
+        end();
+        if (shouldCommit()) {
+            method = operation.label();
+            inputSize = warehouse.size();
+            resultSize = result instanceof Collection<?> c ? c.size()
+                    : result instanceof Map<?, ?> m ? m.size()
+                    : result instanceof Page<?> page ? page.items().size() : 1;
+            commit();
+        }
+        return result;
+    }
+}
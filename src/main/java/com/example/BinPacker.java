@@ -0,0 +1,127 @@
+package com.example;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Packs shippable items into groups of at most a given weight in O(n log n).
+ * Group loads are kept incrementally, so a group's contents are never re-summed to find where an item fits.
+ */
+final class BinPacker {
+
+    private record Item(Shippable shippable, double weight) {
+    }
+
+    private BinPacker() {
+    }
+
+    static List<List<Shippable>> pack(List<Shippable> items, double maxWeight, PackingStrategy strategy) {
+        //weight() converts a BigDecimal on every call, so it is read once per item rather than per comparison
+        List<Item> sorted = new ArrayList<>(items.size());
+        for (Shippable item : items) sorted.add(new Item(item, item.weight()));
+        //stable sort, heaviest first, so equal weights keep their input order
+        sorted.sort(Comparator.comparingDouble(Item::weight).reversed());
+        return switch (strategy) {
+            case FIRST_FIT_DECREASING -> firstFit(sorted, maxWeight);
+            case BEST_FIT_DECREASING -> bestFit(sorted, maxWeight);
+        };
+    }
+
+    private static List<List<Shippable>> firstFit(List<Item> sorted, double maxWeight) {
+        List<List<Shippable>> bins = new ArrayList<>();
+        LoadTree loads = new LoadTree(sorted.size());
+        for (Item item : sorted) {
+            double w = item.weight();
+            int bin = loads.firstFitting(w, maxWeight);
+            //unopened slots hold +infinity, which only "fits" an infinite limit
+            if (bin < 0 || bin >= bins.size()) {
+                bin = bins.size();
+                bins.add(new ArrayList<>());
+                loads.open(bin);
+            }
+            bins.get(bin).add(item.shippable());
+            loads.add(bin, w);
+        }
+        return bins;
+    }
+
+    private static List<List<Shippable>> bestFit(List<Item> sorted, double maxWeight) {
+        List<List<Shippable>> bins = new ArrayList<>();
+        double[] loads = new double[sorted.size()];
+        NavigableMap<Double, ArrayDeque<Integer>> binsByLoad = new TreeMap<>();
+        for (Item item : sorted) {
+            double w = item.weight();
+            Double fullest = fullestFitting(binsByLoad, w, maxWeight);
+            int bin;
+            if (fullest == null) {
+                bin = bins.size();
+                bins.add(new ArrayList<>());
+            } else {
+                ArrayDeque<Integer> sameLoad = binsByLoad.get(fullest);
+                bin = sameLoad.pollFirst();
+                if (sameLoad.isEmpty()) binsByLoad.remove(fullest);
+            }
+            bins.get(bin).add(item.shippable());
+            loads[bin] += w;
+            binsByLoad.computeIfAbsent(loads[bin], load -> new ArrayDeque<>()).addLast(bin);
+        }
+        return bins;
+    }
+
+    //the largest load with load + weight <= maxWeight; maxWeight - weight is rounded, so the neighbours of that key are re-checked
+    private static Double fullestFitting(NavigableMap<Double, ArrayDeque<Integer>> binsByLoad, double weight, double maxWeight) {
+        double limit = maxWeight - weight;
+        Double load = binsByLoad.floorKey(limit);
+        while (load != null && !(load + weight <= maxWeight)) {
+            load = binsByLoad.lowerKey(load);
+        }
+        for (Double up = binsByLoad.higherKey(limit); up != null && up + weight <= maxWeight; up = binsByLoad.higherKey(up)) {
+            load = up;
+        }
+        return load;
+    }
+
+    /**
+     * Segment tree over group loads holding the minimum load of each subtree.
+     * The leftmost group with load + weight <= maxWeight is found by descending into the left child whenever its minimum fits.
+     */
+    private static final class LoadTree {
+        private final int leaves;
+        private final double[] min;
+
+        LoadTree(int capacity) {
+            int n = 1;
+            while (n < capacity) n <<= 1;
+            this.leaves = n;
+            this.min = new double[2 * n];
+            Arrays.fill(min, Double.POSITIVE_INFINITY);
+        }
+
+        //adding a weight to a load is monotone in floating point, so a subtree fits iff its minimum fits
+        int firstFitting(double weight, double maxWeight) {
+            if (!(min[1] + weight <= maxWeight)) return -1;
+            int node = 1;
+            while (node < leaves) {
+                node = min[2 * node] + weight <= maxWeight ? 2 * node : 2 * node + 1;
+            }
+            return node - leaves;
+        }
+
+        void open(int bin) {
+            min[bin + leaves] = 0.0;
+        }
+
+        void add(int bin, double weight) {
+            int node = bin + leaves;
+            min[node] += weight;
+            for (node >>= 1; node > 0; node >>= 1) {
+                min[node] = Math.min(min[2 * node], min[2 * node + 1]);
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example;
+
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event for a Warehouse mutation that touches many products at once, addAll or
+ * clearProducts, and took longer than the threshold, 10 ms unless a recording's settings say
+ * otherwise. Failed calls are not recorded.
+ */
+@Name("com.example.BulkMutation")
+@Label("Bulk Mutation")
+@jdk.jfr.Category("Warehouse")
+@Description("A Warehouse call that added or removed a batch of products")
+@Threshold("10 ms")
+@StackTrace(false)
+final class BulkMutationEvent extends Event {
+
+    @Label("Method")
+    String method;
+
+    @Label("Products")
+    @Description("Products added or removed")
+    int products;
+
+    @Label("Catalog Size")
+    @Description("Products in the warehouse afterwards")
+    int catalogSize;
+
+    static BulkMutationEvent started() {
+        BulkMutationEvent event = new BulkMutationEvent();
+        event.begin();
+        return event;
+    }
+
+    //fields are only filled in when the call was slow enough to be recorded
+    void commit(Operation operation, int products, Warehouse warehouse) {
+        end();
+        if (shouldCommit()) {
+            method = operation.label();
+            this.products = products;
+            catalogSize = warehouse.size();
+            commit();
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.example;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Streams a product catalog from CSV into a Warehouse. The file is read through a FileChannel into
+ * one direct buffer and every field is parsed from the bytes in place: ids, decimals and dates
+ * without going through a String, categories through a small cache of their raw bytes. Only names
+ * and the products themselves are allocated per row. Rows go to {@link Warehouse#addAll} in batches.
+ *
+ * <p>The first line must be {@link #HEADER}. Type is FOOD or ELECTRONICS; food rows leave
+ * warrantyMonths empty and may leave expirationDate empty, electronics rows leave expirationDate
+ * empty. Fields may be quoted, with "" for a quote inside and line breaks allowed. A bad row throws
+ * IllegalArgumentException naming the file line it starts on; batches before it stay loaded.
+ */
+public final class CatalogImporter {
+    public static final String HEADER = "type,id,name,category,price,weight,expirationDate,warrantyMonths";
+
+    private static final byte[] HEADER_BYTES = HEADER.getBytes(StandardCharsets.US_ASCII);
+    private static final int BATCH = 1 << 16;
+    private static final int FIELDS = 8;
+    private static final byte[] FOOD = "FOOD".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ELECTRONICS = "ELECTRONICS".getBytes(StandardCharsets.US_ASCII);
+    private static final int CACHE = 256;
+
+    private final Warehouse warehouse;
+    private final int batchSize;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+    private final int[] starts = new int[FIELDS];
+    private final int[] ends = new int[FIELDS];
+    private final boolean[] quoted = new boolean[FIELDS];
+    private byte[] scratch = new byte[256];
+    //raw category bytes to Category, direct-mapped by hash; a clash just falls back to Category.of
+    private final byte[][] cachedNames = new byte[CACHE][];
+    private final Category[] cachedCategories = new Category[CACHE];
+    //file line the current record starts on, and the one after it; quoted line breaks make them differ by more than one
+    private long line;
+    private long nextLine = 1;
+    //line breaks inside quotes in the record found by the last recordEnd call
+    private int quotedBreaks;
+
+    private CatalogImporter(Warehouse warehouse, int batchSize) {
+        this.warehouse = warehouse;
+        this.batchSize = batchSize;
+    }
+
+    //returns the number of products imported
+    public static long importCsv(Path file, Warehouse warehouse) throws IOException {
+        return importCsv(file, warehouse, BATCH);
+    }
+
+    static long importCsv(Path file, Warehouse warehouse, int batchSize) throws IOException {
+        if (file == null || warehouse == null) {
+            throw new IllegalArgumentException("File and warehouse cannot be null.");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new CatalogImporter(warehouse, batchSize).run(channel);
+        }
+    }
+
+    private long run(FileChannel channel) throws IOException {
+        List<Product> batch = new ArrayList<>(batchSize);
+        long imported = 0;
+        boolean eof = false;
+        buffer.flip();
+        while (true) {
+            int end = recordEnd();
+            if (end < 0) {
+                if (eof) {
+                    if (!buffer.hasRemaining()) break;
+                    end = buffer.limit();
+                } else {
+                    eof = fill(channel);
+                    continue;
+                }
+            }
+            line = nextLine;
+            nextLine += 1 + quotedBreaks;
+            int next = end < buffer.limit() ? end + 1 : end;
+            if (end > buffer.position() && buffer.get(end - 1) == '\r') end--;
+            if (line == 1) {
+                checkHeader(end);
+            } else if (end > buffer.position()) {
+                batch.add(parseRow(end));
+                if (batch.size() == batchSize) {
+                    warehouse.addAll(batch);
+                    imported += batch.size();
+                    batch.clear();
+                }
+            }
+            buffer.position(next);
+        }
+        warehouse.addAll(batch);
+        return imported + batch.size();
+    }
+
+    //keeps the unread part, doubling the buffer when one record fills it; true at end of file
+    private boolean fill(FileChannel channel) throws IOException {
+        buffer.compact();
+        if (!buffer.hasRemaining()) {
+            ByteBuffer bigger = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+            bigger.put(buffer.flip());
+            buffer = bigger;
+        }
+        int read = channel.read(buffer);
+        buffer.flip();
+        return read < 0;
+    }
+
+    //index of the newline ending the record at the position, -1 if it is not all in the buffer
+    private int recordEnd() {
+        boolean inQuotes = false;
+        quotedBreaks = 0;
+        for (int i = buffer.position(); i < buffer.limit(); i++) {
+            byte b = buffer.get(i);
+            if (b == '"') inQuotes = !inQuotes;
+            else if (b == '\n' && !inQuotes) return i;
+            else if (b == '\n') quotedBreaks++;
+        }
+        return -1;
+    }
+
+    private void checkHeader(int end) {
+        int start = buffer.position();
+        //a UTF-8 byte order mark is tolerated
+        if (end - start >= 3 && buffer.get(start) == (byte) 0xEF && buffer.get(start + 1) == (byte) 0xBB && buffer.get(start + 2) == (byte) 0xBF) {
+            buffer.position(start + 3);
+        }
+        boolean matches = end - buffer.position() == HEADER_BYTES.length;
+        for (int i = 0; matches && i < HEADER_BYTES.length; i++) {
+            matches = buffer.get(buffer.position() + i) == HEADER_BYTES[i];
+        }
+        if (!matches) throw new IllegalArgumentException("Line 1: expected header " + HEADER + ".");
+    }
+
+    //fills starts/ends/quoted for the record between the position and end, returns the field count
+    private int split(int end) {
+        int field = 0;
+        int i = buffer.position();
+        while (true) {
+            if (field == FIELDS) return FIELDS + 1;
+            if (i < end && buffer.get(i) == '"') {
+                int j = i + 1;
+                while (j < end) {
+                    if (buffer.get(j) == '"') {
+                        if (j + 1 < end && buffer.get(j + 1) == '"') j += 2;
+                        else break;
+                    } else {
+                        j++;
+                    }
+                }
+                starts[field] = i + 1;
+                ends[field] = j;
+                quoted[field] = true;
+                i = j + 1;
+            } else {
+                int j = i;
+                while (j < end && buffer.get(j) != ',') j++;
+                starts[field] = i;
+                ends[field] = j;
+                quoted[field] = false;
+                i = j;
+            }
+            field++;
+            if (i >= end) return field;
+            if (buffer.get(i) != ',') throw new IllegalArgumentException("Line " + line + ": text after a closing quote.");
+            i++;
+        }
+    }
+
+    private Product parseRow(int end) {
+        if (split(end) != FIELDS) {
+            throw new IllegalArgumentException("Line " + line + ": expected " + FIELDS + " fields.");
+        }
+        try {
+            boolean food = matches(0, FOOD);
+            if (!food && !matches(0, ELECTRONICS)) {
+                throw new IllegalArgumentException("unknown type " + decodeString(0) + ".");
+            }
+            UUID id = parseUuid(1);
+            String name = decodeString(2);
+            Category category = category(3);
+            BigDecimal price = parseDecimal(4);
+            BigDecimal weight = parseDecimal(5);
+            if (food) {
+                LocalDate expires = starts[6] == ends[6] ? null : parseDate(6);
+                return new FoodProduct(id, name, category, price, expires, weight);
+            }
+            return new ElectronicsProduct(id, name, category, price, parseInt(7), weight);
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new IllegalArgumentException("Line " + line + ": " + e.getMessage(), e);
+        }
+    }
+
+    //ASCII case-insensitive, expected is upper case
+    private boolean matches(int field, byte[] expected) {
+        if (ends[field] - starts[field] != expected.length) return false;
+        for (int i = 0; i < expected.length; i++) {
+            if ((buffer.get(starts[field] + i) & ~0x20) != expected[i]) return false;
+        }
+        return true;
+    }
+
+    //copies the field into scratch, collapsing "" in quoted fields; returns the length
+    private int copy(int field) {
+        int length = ends[field] - starts[field];
+        if (scratch.length < length) scratch = new byte[Math.max(length, scratch.length * 2)];
+        int n = 0;
+        for (int i = starts[field]; i < ends[field]; i++) {
+            byte b = buffer.get(i);
+            scratch[n++] = b;
+            if (b == '"' && quoted[field]) i++;
+        }
+        return n;
+    }
+
+    private String decodeString(int field) {
+        int n = copy(field);
+        return new String(scratch, 0, n, StandardCharsets.UTF_8);
+    }
+
+    private Category category(int field) {
+        int n = copy(field);
+        int hash = 1;
+        for (int i = 0; i < n; i++) hash = 31 * hash + scratch[i];
+        int slot = (hash ^ (hash >>> 16)) & (CACHE - 1);
+        byte[] cached = cachedNames[slot];
+        if (cached != null && Arrays.equals(cached, 0, cached.length, scratch, 0, n)) {
+            return cachedCategories[slot];
+        }
+        Category category = Category.of(new String(scratch, 0, n, StandardCharsets.UTF_8));
+        cachedNames[slot] = Arrays.copyOf(scratch, n);
+        cachedCategories[slot] = category;
+        return category;
+    }
+
+    private UUID parseUuid(int field) {
+        int start = starts[field];
+        if (ends[field] - start != 36) throw new IllegalArgumentException("malformed id.");
+        long msb = 0;
+        long lsb = 0;
+        int digits = 0;
+        for (int i = start; i < start + 36; i++) {
+            byte b = buffer.get(i);
+            if (b == '-') {
+                int at = i - start;
+                if (at != 8 && at != 13 && at != 18 && at != 23) throw new IllegalArgumentException("malformed id.");
+                continue;
+            }
+            int digit = Character.digit(b, 16);
+            if (digit < 0) throw new IllegalArgumentException("malformed id.");
+            if (digits++ < 16) msb = (msb << 4) | digit;
+            else lsb = (lsb << 4) | digit;
+        }
+        if (digits != 32) throw new IllegalArgumentException("malformed id.");
+        return new UUID(msb, lsb);
+    }
+
+    //up to 18 digits straight into a scaled long; longer values go through BigDecimal's own parser
+    private BigDecimal parseDecimal(int field) {
+        int i = starts[field];
+        int end = ends[field];
+        if (i == end) throw new IllegalArgumentException("empty number.");
+        boolean negative = buffer.get(i) == '-';
+        if (negative || buffer.get(i) == '+') i++;
+        long unscaled = 0;
+        int digits = 0;
+        int scale = -1;
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b == '.' && scale < 0) {
+                scale = 0;
+                continue;
+            }
+            if (b < '0' || b > '9') throw new IllegalArgumentException("malformed number " + decodeString(field) + ".");
+            if (++digits > 18) return new BigDecimal(decodeString(field));
+            unscaled = unscaled * 10 + (b - '0');
+            if (scale >= 0) scale++;
+        }
+        if (digits == 0) throw new IllegalArgumentException("malformed number " + decodeString(field) + ".");
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, Math.max(scale, 0));
+    }
+
+    //values outside the int range are rejected rather than wrapped
+    private int parseInt(int field) {
+        int i = starts[field];
+        int end = ends[field];
+        boolean negative = i < end && buffer.get(i) == '-';
+        if (negative) i++;
+        if (i == end || end - i > 10) throw new IllegalArgumentException("malformed integer " + decodeString(field) + ".");
+        long value = 0;
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b < '0' || b > '9') throw new IllegalArgumentException("malformed integer " + decodeString(field) + ".");
+            value = value * 10 + (b - '0');
+        }
+        if (negative) value = -value;
+        if (value != (int) value) throw new IllegalArgumentException("integer out of range " + decodeString(field) + ".");
+        return (int) value;
+    }
+
+    //yyyy-MM-dd
+    private LocalDate parseDate(int field) {
+        int start = starts[field];
+        if (ends[field] - start != 10 || buffer.get(start + 4) != '-' || buffer.get(start + 7) != '-') {
+            throw new IllegalArgumentException("malformed date " + decodeString(field) + ".");
+        }
+        return LocalDate.of(digits(start, 4), digits(start + 5, 2), digits(start + 8, 2));
+    }
+
+    private int digits(int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            byte b = buffer.get(i);
+            if (b < '0' || b > '9') throw new IllegalArgumentException("malformed date.");
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+}
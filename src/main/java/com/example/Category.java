@@ -1,10 +1,10 @@
 package com.example;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public final class Category {
-    private static final Map<String, Category> FLYWEIGHT_MAP = new HashMap<>();
+    private static final Map<String, Category> FLYWEIGHT_MAP = new ConcurrentHashMap<>();
 
     private final String name;
 
@@ -0,0 +1,220 @@
+package com.example;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Products grouped by category, each group carrying running sums of price, price x weight and
+ * weight, so grouping and per-category averages cost O(categories) instead of a catalog pass.
+ * Every mutation of a group happens inside a compute on its map entry, which also drops a group
+ * once its last product leaves; readers take the group's monitor for a consistent set of sums.
+ */
+final class CategoryIndex implements ProductIndex {
+    private final Map<Category, Group> groups = new ConcurrentHashMap<>();
+
+    @Override
+    public void added(Product product) {
+        if (product.category() == null) return;
+        groups.compute(product.category(), (c, group) -> {
+            Group g = group != null ? group : new Group();
+            synchronized (g) {
+                g.members.add(product);
+                g.apply(product, product.price(), 1);
+            }
+            return g;
+        });
+    }
+
+    //one compute per category in the batch instead of one per product
+    @Override
+    public void addedAll(List<Product> products) {
+        Map<Category, List<Product>> byCategory = new HashMap<>();
+        for (Product p : products) {
+            if (p.category() != null) byCategory.computeIfAbsent(p.category(), c -> new ArrayList<>()).add(p);
+        }
+        byCategory.forEach((category, batch) -> groups.compute(category, (c, group) -> {
+            Group g = group != null ? group : new Group();
+            synchronized (g) {
+                g.members.addAll(batch);
+                for (Product p : batch) g.apply(p, p.price(), 1);
+            }
+            return g;
+        }));
+    }
+
+    @Override
+    public void removed(Product product) {
+        if (product.category() == null) return;
+        groups.computeIfPresent(product.category(), (c, g) -> {
+            synchronized (g) {
+                if (g.members.remove(product)) g.apply(product, product.price(), -1);
+                return g.members.isEmpty() ? null : g;
+            }
+        });
+    }
+
+    @Override
+    public void priceChanged(Product product, BigDecimal oldPrice) {
+        if (product.category() == null) return;
+        groups.computeIfPresent(product.category(), (c, g) -> {
+            synchronized (g) {
+                g.apply(product, oldPrice, -1);
+                g.apply(product, product.price(), 1);
+            }
+            return g;
+        });
+    }
+
+    @Override
+    public void cleared() {
+        groups.clear();
+    }
+
+    int categoryCount() {
+        return groups.size();
+    }
+
+    Map<Category, Integer> countByCategory() {
+        Map<Category, Integer> counts = new HashMap<>();
+        groups.forEach((category, g) -> counts.put(category, g.members.size()));
+        return counts;
+    }
+
+    List<Product> productsIn(Category category) {
+        Group g = groups.get(category);
+        return g == null ? new ArrayList<>() : new ArrayList<>(g.members);
+    }
+
+    //the live member set, for the query planner; empty if the category has no products
+    Set<Product> members(Category category) {
+        Group g = groups.get(category);
+        return g == null ? Set.of() : g.members;
+    }
+
+    Map<Category, List<Product>> grouped() {
+        Map<Category, List<Product>> result = new HashMap<>();
+        groups.forEach((category, g) -> result.put(category, new ArrayList<>(g.members)));
+        return result;
+    }
+
+    /*
+     * Weight-based average price per category, rounded HALF_UP to cents, divided by the exact weight
+     * total; the plain average when nothing in the category has a weight. Categories whose products
+     * all lack a price are left out.
+     */
+    Map<Category, BigDecimal> weightedAveragePrices() {
+        Map<Category, BigDecimal> result = new HashMap<>();
+        groups.forEach((category, g) -> {
+            BigDecimal average;
+            synchronized (g) {
+                average = g.weightedAverage();
+            }
+            if (average != null) result.put(category, average);
+        });
+        return result;
+    }
+
+    private static final class Group extends Sums {
+        final Set<Product> members = ConcurrentHashMap.newKeySet();
+
+        //adds (sign 1) or takes back (sign -1) one product's share at the given price
+        void apply(Product product, BigDecimal price, int sign) {
+            if (price == null) return;
+            if (product instanceof Shippable s && s.weight() > 0) {
+                add(FixedPoint.toScaled(price, FixedPoint.CENTS), price, s.weightGrams(), BigDecimal.valueOf(s.weight()), sign);
+            } else {
+                add(FixedPoint.toScaled(price, FixedPoint.CENTS), price, 0, null, sign);
+            }
+        }
+    }
+
+    /*
+     * One category's price, price x weight and weight sums plus its priced product count, as kept
+     * by a Group and rebuilt by OffHeapStore's scans. Not thread-safe.
+     */
+    static class Sums {
+        private final ScaledSum prices = new ScaledSum(FixedPoint.CENTS);
+        private final ScaledSum weightedPrices = new ScaledSum(FixedPoint.CENTS + FixedPoint.GRAMS);
+        private final ScaledSum weights = new ScaledSum(FixedPoint.GRAMS);
+        private int priced;
+
+        /*
+         * One priced product's share: cents and price are the same value, as are grams and weight,
+         * and price or weight may be null when their scaled form is exact. A null weight with zero
+         * grams is a product without a positive weight.
+         */
+        void add(long cents, BigDecimal price, long grams, BigDecimal weight, int sign) {
+            priced += sign;
+            prices.add(cents, price, sign);
+            if (grams == 0 && weight == null) return;
+            weights.add(grams, weight, sign);
+            long centGrams = cents == FixedPoint.INEXACT || grams == FixedPoint.INEXACT
+                    ? FixedPoint.INEXACT
+                    : multiplyOrInexact(cents, grams);
+            if (centGrams != FixedPoint.INEXACT) {
+                weightedPrices.add(centGrams, null, sign);
+            } else {
+                BigDecimal p = price != null ? price : FixedPoint.centsToBigDecimal(cents);
+                BigDecimal w = weight != null ? weight : BigDecimal.valueOf(grams, FixedPoint.GRAMS);
+                weightedPrices.add(FixedPoint.INEXACT, p.multiply(w), sign);
+            }
+        }
+
+        BigDecimal weightedAverage() {
+            if (priced == 0) return null;
+            BigDecimal weight = weights.value();
+            if (weight.signum() > 0) {
+                return weightedPrices.value().divide(weight, 2, RoundingMode.HALF_UP);
+            }
+            return prices.value().divide(BigDecimal.valueOf(priced), 2, RoundingMode.HALF_UP);
+        }
+
+        private static long multiplyOrInexact(long a, long b) {
+            try {
+                return Math.multiplyExact(a, b);
+            } catch (ArithmeticException overflow) {
+                return FixedPoint.INEXACT;
+            }
+        }
+    }
+
+    /*
+     * An exact running sum: values with a fixed-point form at this scale go to a long, the rest and
+     * anything that would overflow it to a BigDecimal. Taking a value back is exact whichever side
+     * it went to, so removals and repricing never drift.
+     */
+    private static final class ScaledSum {
+        private final int scale;
+        private long units;
+        private BigDecimal extra = BigDecimal.ZERO;
+
+        ScaledSum(int scale) {
+            this.scale = scale;
+        }
+
+        //scaled is value at this scale, or FixedPoint.INEXACT to use value itself; value may be null when scaled is exact
+        void add(long scaled, BigDecimal value, int sign) {
+            if (scaled != FixedPoint.INEXACT) {
+                try {
+                    units = Math.addExact(units, Math.multiplyExact(scaled, (long) sign));
+                    return;
+                } catch (ArithmeticException overflow) {
+                    //falls through to the BigDecimal side
+                }
+            }
+            if (value == null) value = BigDecimal.valueOf(scaled, scale);
+            extra = sign > 0 ? extra.add(value) : extra.subtract(value);
+        }
+
+        BigDecimal value() {
+            BigDecimal fixed = BigDecimal.valueOf(units, scale);
+            return extra.signum() == 0 ? fixed : fixed.add(extra);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example;
+
+import java.util.List;
+
+/**
+ * The answer to {@link Warehouse#changesSince(long)}: events in sequence order and the sequence to
+ * ask from next time. When complete is false the journal no longer holds every change after the
+ * requested sequence, and the caller has to resync: note lastChangeSequence(), reload with
+ * getProducts(), then continue with changesSince from the noted sequence, applying events idempotently.
+ */
+public record ChangeBatch(List<ChangeEvent> events, long lastSequence, boolean complete) {
+}
@@ -0,0 +1,27 @@
+package com.example;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One sequenced entry of a Warehouse's change journal. Prices are the ones in effect at the time
+ * of the change: ADDED carries the new price, REMOVED the last one, REPRICED both. CLEARED has no
+ * product and stands for the removal of everything before it. ADDED_ALL is one bulk load: it has no
+ * single product and lists the loaded ones in products, which is empty for every other type.
+ */
+public record ChangeEvent(long sequence, Type type, UUID productId, Product product,
+                          BigDecimal oldPrice, BigDecimal newPrice, List<Product> products) {
+
+    public ChangeEvent(long sequence, Type type, UUID productId, Product product, BigDecimal oldPrice, BigDecimal newPrice) {
+        this(sequence, type, productId, product, oldPrice, newPrice, List.of());
+    }
+
+    public enum Type {
+        ADDED,
+        ADDED_ALL,
+        REMOVED,
+        REPRICED,
+        CLEARED
+    }
+}
@@ -0,0 +1,92 @@
+package com.example;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded ring of the last capacity changes, fed through the index hooks. Writers claim a sequence
+ * with one atomic increment and then publish their event into its slot, so appends never lock.
+ * A reader stops at the first slot whose event is not published yet, and reports the batch as
+ * incomplete when a slot it needs has already been overwritten.
+ */
+final class ChangeJournal implements ProductIndex {
+    static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private final AtomicReferenceArray<ChangeEvent> ring;
+    private final int mask;
+    private final AtomicLong sequence = new AtomicLong();
+
+    ChangeJournal(int capacity) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Journal capacity must be a power of two.");
+        }
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    @Override
+    public void added(Product product) {
+        append(ChangeEvent.Type.ADDED, product, null, product.price());
+    }
+
+    //one event per load, so a large import doesn't push everything else out of the ring
+    @Override
+    public void addedAll(List<Product> products) {
+        long seq = sequence.incrementAndGet();
+        ring.set((int) (seq & mask), new ChangeEvent(seq, ChangeEvent.Type.ADDED_ALL, null, null, null, null, List.copyOf(products)));
+    }
+
+    @Override
+    public void removed(Product product) {
+        append(ChangeEvent.Type.REMOVED, product, product.price(), null);
+    }
+
+    @Override
+    public void priceChanged(Product product, BigDecimal oldPrice) {
+        append(ChangeEvent.Type.REPRICED, product, oldPrice, product.price());
+    }
+
+    //a clear is itself a change, replicas need it to drop everything they hold
+    @Override
+    public void cleared() {
+        append(ChangeEvent.Type.CLEARED, null, null, null);
+    }
+
+    private void append(ChangeEvent.Type type, Product product, BigDecimal oldPrice, BigDecimal newPrice) {
+        long seq = sequence.incrementAndGet();
+        ring.set((int) (seq & mask), new ChangeEvent(seq, type, product == null ? null : product.uuid(), product, oldPrice, newPrice));
+    }
+
+    //sequence of the latest claimed change, 0 before the first
+    long lastSequence() {
+        return sequence.get();
+    }
+
+    ChangeBatch since(long after) {
+        long last = sequence.get();
+        if (after < 0 || after > last) {
+            throw new IllegalArgumentException("Sequence " + after + " is outside the journal (0.." + last + ").");
+        }
+        int capacity = mask + 1;
+        boolean complete = last - after <= capacity;
+        long from = complete ? after + 1 : last - capacity + 1;
+        List<ChangeEvent> events = new ArrayList<>((int) Math.min(last - from + 1, capacity));
+        long reached = from - 1;
+        for (long s = from; s <= last; s++) {
+            ChangeEvent event = ring.get((int) (s & mask));
+            //claimed but not published yet: stop here, the rest follows on the next call
+            if (event == null || event.sequence() < s) break;
+            //overwritten while reading: the reader fell a full ring behind
+            if (event.sequence() > s) {
+                complete = false;
+                break;
+            }
+            events.add(event);
+            reached = s;
+        }
+        return new ChangeBatch(events, reached, complete);
+    }
+}
@@ -7,6 +7,7 @@ import java.util.UUID;
 public class ElectronicsProduct extends Product implements Shippable {
     private final int warrantyMonths;
     private final BigDecimal weight;
+    private final long weightGrams;
 
     //shipping cost constants
     private static final BigDecimal BASE_SHIPPING = BigDecimal.valueOf(79);
@@ -25,6 +26,7 @@ public class ElectronicsProduct extends Product implements Shippable {
 
         this.warrantyMonths = warrantyMonths;
         this.weight = weight;
+        this.weightGrams = FixedPoint.toGrams(weight);
     }
 
     public int warrantyMonths() {
@@ -36,6 +38,16 @@ public class ElectronicsProduct extends Product implements Shippable {
         return weight.doubleValue();
     }
 
+    @Override
+    public long weightGrams() {
+        return weightGrams;
+    }
+
+    //exact weight as constructed, for persistence
+    BigDecimal weightValue() {
+        return weight;
+    }
+
     @Override
     public String productDetails() {
         return "Electronics: " + name() + ", Warranty: " + warrantyMonths + " months";
@@ -0,0 +1,54 @@
+package com.example;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exact price quantiles read off the order PriceIndex already keeps, so writes pay nothing extra and
+ * take no lock of their own. A query walks the price index from the cheapest product up to the
+ * highest rank asked for, O(n) for the upper quartile, without sorting. Ranks are counted against
+ * the live index, so under concurrent writes they may reflect slightly different moments.
+ */
+final class ExactPriceQuantiles implements PriceQuantiles {
+    private final PriceIndex priceIndex;
+
+    ExactPriceQuantiles(PriceIndex priceIndex) {
+        this.priceIndex = priceIndex;
+    }
+
+    @Override
+    public QuantileMode mode() {
+        return QuantileMode.EXACT;
+    }
+
+    //the warehouse maintains the price index itself, so the hooks have nothing to do
+    @Override
+    public void added(Product product) {
+    }
+
+    @Override
+    public void addedAll(List<Product> products) {
+    }
+
+    @Override
+    public void removed(Product product) {
+    }
+
+    @Override
+    public void priceChanged(Product product, BigDecimal oldPrice) {
+    }
+
+    @Override
+    public void cleared() {
+    }
+
+    @Override
+    public List<BigDecimal> valuesAt(double... quantiles) {
+        long n = priceIndex.size();
+        if (n == 0) return new ArrayList<>();
+        long[] ranks = new long[quantiles.length];
+        for (int i = 0; i < quantiles.length; i++) ranks[i] = PriceQuantiles.rank(quantiles[i], n);
+        return priceIndex.pricesAtRanks(ranks);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Perishable products bucketed by expiration epoch day.
+ * "Expired as of D" and "expiring between D1 and D2" only visit the buckets in that day range.
+ */
+final class ExpirationIndex implements ProductIndex {
+    /*
+     * A bucket leaves the map when its last product does. The skip list may apply a remapping function
+     * more than once and does not lock the key meanwhile, so each function mutates its bucket under
+     * the bucket's monitor, and a bucket found empty is one a removal is taking out: adds replace it
+     * with a fresh one instead of filling it, and whichever of the two swaps lands second retries.
+     */
+    private final NavigableMap<Long, Set<Product>> byDay = new ConcurrentSkipListMap<>();
+
+    @Override
+    public void added(Product product) {
+        if (product instanceof Perishable per && per.expirationDay() != Perishable.NO_EXPIRY) {
+            byDay.compute(per.expirationDay(), (day, bucket) -> fill(bucket, List.of(product)));
+        }
+    }
+
+    @Override
+    public void addedAll(List<Product> products) {
+        Map<Long, List<Product>> byDate = new HashMap<>();
+        for (Product p : products) {
+            if (p instanceof Perishable per && per.expirationDay() != Perishable.NO_EXPIRY) {
+                byDate.computeIfAbsent(per.expirationDay(), day -> new ArrayList<>()).add(p);
+            }
+        }
+        byDate.forEach((day, batch) -> byDay.compute(day, (d, bucket) -> fill(bucket, batch)));
+    }
+
+    //adds to a live bucket, or starts a new one in place of a missing or emptied one
+    private static Set<Product> fill(Set<Product> bucket, List<Product> products) {
+        if (bucket != null) {
+            synchronized (bucket) {
+                if (!bucket.isEmpty()) {
+                    bucket.addAll(products);
+                    return bucket;
+                }
+            }
+        }
+        Set<Product> fresh = ConcurrentHashMap.newKeySet(products.size());
+        fresh.addAll(products);
+        return fresh;
+    }
+
+    @Override
+    public void removed(Product product) {
+        if (product instanceof Perishable per && per.expirationDay() != Perishable.NO_EXPIRY) {
+            byDay.computeIfPresent(per.expirationDay(), (day, bucket) -> {
+                synchronized (bucket) {
+                    bucket.remove(product);
+                    return bucket.isEmpty() ? null : bucket;
+                }
+            });
+        }
+    }
+
+    @Override
+    public void priceChanged(Product product, BigDecimal oldPrice) {
+        //expiration dates never change
+    }
+
+    @Override
+    public void cleared() {
+        byDay.clear();
+    }
+
+    //everything expiring strictly before the given day
+    List<Perishable> expiredBefore(long epochDay) {
+        return collect(byDay.headMap(epochDay, false).values());
+    }
+
+    int countExpiredBefore(long epochDay) {
+        int count = 0;
+        for (Set<Product> bucket : byDay.headMap(epochDay, false).values()) {
+            count += bucket.size();
+        }
+        return count;
+    }
+
+    //inclusive on both ends
+    List<Perishable> expiringBetween(long fromDay, long toDay) {
+        if (fromDay > toDay) {
+            return new ArrayList<>();
+        }
+        return collect(byDay.subMap(fromDay, true, toDay, true).values());
+    }
+
+    //the live buckets of the days in [fromDay, toDay], for the query planner
+    Collection<Set<Product>> bucketsBetween(long fromDay, long toDay) {
+        if (fromDay > toDay) {
+            return List.of();
+        }
+        return byDay.subMap(fromDay, true, toDay, true).values();
+    }
+
+    List<Product> expiringOn(long epochDay) {
+        return new ArrayList<>(byDay.getOrDefault(epochDay, Set.of()));
+    }
+
+    private static List<Perishable> collect(Collection<Set<Product>> buckets) {
+        List<Perishable> result = new ArrayList<>();
+        for (Set<Product> bucket : buckets) {
+            for (Product p : bucket) {
+                result.add((Perishable) p);
+            }
+        }
+        return result;
+    }
+}
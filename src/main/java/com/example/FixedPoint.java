@@ -0,0 +1,90 @@
+package com.example;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * Scaled-long fixed point for the analyzer's primitive hot paths.
+ * Prices are kept as cents (scale 2) and weights as grams (scale 3) next to their BigDecimal values.
+ * A value with finer digits, or one that does not fit a long, maps to INEXACT and callers fall back
+ * to BigDecimal for it, so every result matches the BigDecimal HALF_UP output to the cent.
+ */
+final class FixedPoint {
+    static final long INEXACT = Long.MIN_VALUE;
+    static final int CENTS = 2;
+    static final int GRAMS = 3;
+
+    private FixedPoint() {
+    }
+
+    //exact scaled value, or INEXACT
+    static long toScaled(BigDecimal value, int scale) {
+        if (value == null) {
+            return INEXACT;
+        }
+        //common case: few digits already at or below the target scale, scaled within the compact long,
+        //the temporary BigDecimal is one the JIT can usually scalar-replace
+        if (value.scale() >= 0 && value.scale() <= scale && value.precision() <= 15) {
+            return value.movePointRight(scale).longValue();
+        }
+        try {
+            long scaled = value.movePointRight(scale).longValueExact();
+            return scaled == INEXACT ? INEXACT : scaled;
+        } catch (ArithmeticException e) {
+            return INEXACT;
+        }
+    }
+
+    //grams as BigDecimal.valueOf(weight.doubleValue()) sees them: beyond 15 digits the double rounds
+    static long toGrams(BigDecimal weight) {
+        if (weight == null || weight.precision() > 15) {
+            return INEXACT;
+        }
+        return toScaled(weight, GRAMS);
+    }
+
+    static BigDecimal centsToBigDecimal(long cents) {
+        return BigDecimal.valueOf(cents, CENTS);
+    }
+
+    //num / den rounded like RoundingMode.HALF_UP, den > 0
+    static long divideHalfUp(long num, long den) {
+        long q = num / den;
+        long r = Math.abs(num % den);
+        if (r >= den - r) {
+            q += num < 0 ? -1 : 1;
+        }
+        return q;
+    }
+
+    //cents * percent / 100, e.g. percent 85 for a 15% discount; INEXACT if it would overflow
+    static long percentOfHalfUp(long cents, int percent) {
+        if (cents == INEXACT || Math.abs(cents) > Long.MAX_VALUE / 100) {
+            return INEXACT;
+        }
+        return divideHalfUp(cents * percent, 100);
+    }
+
+    //smallest cent value c with c >= value
+    static long ceilCents(BigDecimal value) {
+        return clamp(value.setScale(CENTS, RoundingMode.CEILING));
+    }
+
+    //largest cent value c with c <= value
+    static long floorCents(BigDecimal value) {
+        return clamp(value.setScale(CENTS, RoundingMode.FLOOR));
+    }
+
+    //saturates instead of overflowing, never returns INEXACT
+    private static long clamp(BigDecimal cents) {
+        if (cents.precision() <= 18) {
+            return cents.movePointRight(CENTS).longValue();
+        }
+        BigInteger unscaled = cents.unscaledValue();
+        if (unscaled.bitLength() < 64) {
+            return Math.max(unscaled.longValue(), Long.MIN_VALUE + 1);
+        }
+        return unscaled.signum() > 0 ? Long.MAX_VALUE : Long.MIN_VALUE + 1;
+    }
+}
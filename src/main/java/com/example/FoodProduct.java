@@ -6,7 +6,9 @@ import java.util.UUID;
 
 public class FoodProduct extends Product implements Perishable, Shippable {
     private final LocalDate expirationDate;
+    private final long expirationDay;
     private final BigDecimal weight;
+    private final long weightGrams;
 
     public FoodProduct(UUID id, String name, Category category, BigDecimal price, LocalDate expirationDate, BigDecimal weight) {
         super(id, name, category, price);
@@ -17,7 +19,9 @@ public class FoodProduct extends Product implements Perishable, Shippable {
             throw new IllegalArgumentException("Weight cannot be negative.");
         }
         this.expirationDate = expirationDate;
+        this.expirationDay = expirationDate == null ? NO_EXPIRY : expirationDate.toEpochDay();
         this.weight = weight;
+        this.weightGrams = FixedPoint.toGrams(weight);
     }
 
     @Override
@@ -25,11 +29,26 @@ public class FoodProduct extends Product implements Perishable, Shippable {
         return expirationDate;
     }
 
+    @Override
+    public long expirationDay() {
+        return expirationDay;
+    }
+
     @Override
     public double weight() {
         return weight.doubleValue();
     }
 
+    @Override
+    public long weightGrams() {
+        return weightGrams;
+    }
+
+    //exact weight as constructed, for persistence
+    BigDecimal weightValue() {
+        return weight;
+    }
+
     @Override
     public BigDecimal calculateShippingCost() {
         //food shipping cost based on weight - (50 per unit)
@@ -0,0 +1,58 @@
+package com.example;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The Storage.HEAP ProductStore: the products themselves in a ConcurrentHashMap keyed by id.
+ */
+final class HeapStore implements ProductStore {
+    private final Map<UUID, Product> products = new ConcurrentHashMap<>();
+
+    @Override
+    public Product get(UUID id) {
+        return products.get(id);
+    }
+
+    @Override
+    public boolean containsKey(UUID id) {
+        return products.containsKey(id);
+    }
+
+    @Override
+    public Product put(Product product) {
+        return products.put(product.uuid(), product);
+    }
+
+    @Override
+    public void putAll(Collection<? extends Product> batch) {
+        for (Product p : batch) products.put(p.uuid(), p);
+    }
+
+    @Override
+    public Product remove(UUID id) {
+        return products.remove(id);
+    }
+
+    @Override
+    public void clear() {
+        products.clear();
+    }
+
+    @Override
+    public int size() {
+        return products.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return products.isEmpty();
+    }
+
+    @Override
+    public Collection<Product> values() {
+        return products.values();
+    }
+}
@@ -0,0 +1,70 @@
+package com.example;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The running total value that Warehouse maintains on every mutation. The cent and remainder
+ * parts are updated atomically on their own, so under concurrent writes a read may reflect
+ * slightly different moments for each.
+ */
+final class InventoryAggregates implements ProductIndex {
+    //whole-cent prices go to a LongAdder, anything finer to the BigDecimal remainder
+    private final LongAdder totalCents = new LongAdder();
+    private final AtomicReference<BigDecimal> totalRemainder = new AtomicReference<>(BigDecimal.ZERO);
+
+    @Override
+    public void added(Product product) {
+        addToTotal(product.price(), 1);
+    }
+
+    //summed locally, then published with one update of each part
+    @Override
+    public void addedAll(List<Product> products) {
+        long cents = 0;
+        BigDecimal remainder = BigDecimal.ZERO;
+        for (Product p : products) {
+            if (p.price() == null) continue;
+            long c = FixedPoint.toScaled(p.price(), FixedPoint.CENTS);
+            if (c != FixedPoint.INEXACT) cents += c;
+            else remainder = remainder.add(p.price());
+        }
+        totalCents.add(cents);
+        if (remainder.signum() != 0) totalRemainder.accumulateAndGet(remainder, BigDecimal::add);
+    }
+
+    @Override
+    public void removed(Product product) {
+        addToTotal(product.price(), -1);
+    }
+
+    @Override
+    public void priceChanged(Product product, BigDecimal oldPrice) {
+        addToTotal(oldPrice, -1);
+        addToTotal(product.price(), 1);
+    }
+
+    @Override
+    public void cleared() {
+        totalCents.reset();
+        totalRemainder.set(BigDecimal.ZERO);
+    }
+
+    private void addToTotal(BigDecimal price, int sign) {
+        if (price == null) return;
+        long cents = FixedPoint.toScaled(price, FixedPoint.CENTS);
+        if (cents != FixedPoint.INEXACT) {
+            totalCents.add(sign * cents);
+        } else {
+            totalRemainder.accumulateAndGet(sign > 0 ? price : price.negate(), BigDecimal::add);
+        }
+    }
+
+    BigDecimal totalValue() {
+        BigDecimal remainder = totalRemainder.get();
+        BigDecimal cents = FixedPoint.centsToBigDecimal(totalCents.sum());
+        return remainder.signum() == 0 ? cents : cents.add(remainder);
+    }
+}
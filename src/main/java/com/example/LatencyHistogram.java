@@ -0,0 +1,83 @@
+package com.example;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency counts in log-linear buckets (the HdrHistogram layout): each power of two is split into
+ * SUB_BUCKETS equal buckets, so a reported value is at most 1 / SUB_BUCKETS above any latency in its
+ * bucket. Values below SUB_BUCKETS ns are exact and values past MAX_NANOS count as MAX_NANOS.
+ * Recording is one lock-free counter update; a snapshot walks the fixed set of buckets.
+ */
+final class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    //about 18 minutes
+    static final long MAX_NANOS = (1L << 40) - 1;
+    private static final int BUCKETS = index(MAX_NANOS) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    void record(long nanos) {
+        counts.incrementAndGet(index(Math.min(Math.max(nanos, 0), MAX_NANOS)));
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+    }
+
+    //values 0..7 get their own buckets, then 8 buckets per power of two
+    static int index(long nanos) {
+        int msb = 63 - Long.numberOfLeadingZeros(nanos);
+        if (msb < SUB_BITS) return (int) nanos;
+        int shift = msb - SUB_BITS;
+        return ((shift + 1) << SUB_BITS) + (int) ((nanos >>> shift) - SUB_BUCKETS);
+    }
+
+    //the largest value that lands in the bucket
+    static long highestValue(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = (index >>> SUB_BITS) - 1;
+        long sub = (index & (SUB_BUCKETS - 1)) + SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /*
+     * Count and the highest value of the bucket holding the value at rank ceil(q * count) for each
+     * q, followed by the highest recorded bucket; all zero when nothing was recorded. Taken from
+     * one copy of the counters, so concurrent records are either all in or all out of a given
+     * bucket.
+     */
+    Snapshot snapshot(double... quantiles) {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        long[] values = new long[quantiles.length];
+        long max = 0;
+        if (count > 0) {
+            for (int q = 0; q < quantiles.length; q++) {
+                long rank = Math.max(1, (long) Math.ceil(quantiles[q] * count));
+                long seen = 0;
+                for (int i = 0; i < BUCKETS; i++) {
+                    seen += copy[i];
+                    if (seen >= rank) {
+                        values[q] = highestValue(i);
+                        break;
+                    }
+                }
+            }
+            for (int i = BUCKETS - 1; i >= 0; i--) {
+                if (copy[i] > 0) {
+                    max = highestValue(i);
+                    break;
+                }
+            }
+        }
+        return new Snapshot(count, values, max);
+    }
+
+    record Snapshot(long count, long[] values, long max) {
+    }
+}
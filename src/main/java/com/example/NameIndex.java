@@ -0,0 +1,225 @@
+package com.example;
+
+import java.math.BigDecimal;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Trigram inverted index over lower-cased product names.
+ * A substring search walks the shortest posting list of the term's trigrams and checks
+ * each candidate's name; terms shorter than a trigram scan the cached names.
+ * Posting lists are kept in id order, so a page of matches can resume after the last id it showed.
+ */
+final class NameIndex implements ProductIndex {
+    private final Map<Long, Posting> postings = new ConcurrentHashMap<>();
+    private final Map<Product, String> normalizedNames = new ConcurrentHashMap<>();
+    //every product, the id-ordered source for terms shorter than a trigram
+    private final Posting all = new Posting();
+
+    @Override
+    public void added(Product product) {
+        String name = normalize(product.name());
+        normalizedNames.put(product, name);
+        all.add(product);
+        //compute is atomic per key in ConcurrentHashMap, so a list is never dropped while another writer adds to it
+        for (long trigram : trigrams(name)) {
+            postings.compute(trigram, (t, posting) -> {
+                Posting list = posting != null ? posting : new Posting();
+                list.add(product);
+                return list;
+            });
+        }
+    }
+
+    //groups the batch by trigram first, so each posting list is looked up, and sized, once
+    @Override
+    public void addedAll(List<Product> products) {
+        Map<Product, String> names = HashMap.newHashMap(products.size());
+        Map<Long, List<Product>> byTrigram = new HashMap<>();
+        for (Product product : products) {
+            String name = normalize(product.name());
+            names.put(product, name);
+            for (long trigram : trigrams(name)) {
+                byTrigram.computeIfAbsent(trigram, t -> new ArrayList<>()).add(product);
+            }
+        }
+        normalizedNames.putAll(names);
+        for (Product product : products) all.add(product);
+        byTrigram.forEach((trigram, batch) -> postings.compute(trigram, (t, posting) -> {
+            Posting list = posting != null ? posting : new Posting();
+            for (Product product : batch) list.add(product);
+            return list;
+        }));
+    }
+
+    @Override
+    public void removed(Product product) {
+        String name = normalizedNames.remove(product);
+        if (name == null) return;
+        all.remove(product);
+        for (long trigram : trigrams(name)) {
+            postings.computeIfPresent(trigram, (t, posting) -> {
+                posting.remove(product);
+                return posting.isEmpty() ? null : posting;
+            });
+        }
+    }
+
+    @Override
+    public void priceChanged(Product product, BigDecimal oldPrice) {
+        //names never change
+    }
+
+    @Override
+    public void cleared() {
+        postings.clear();
+        normalizedNames.clear();
+        all.clear();
+    }
+
+    //case-insensitive substring match, same semantics as name().toLowerCase(Locale.ROOT).contains(term)
+    List<Product> search(String searchTerm) {
+        String term = normalize(searchTerm);
+        List<Product> result = new ArrayList<>();
+        if (term.length() < 3) {
+            for (Map.Entry<Product, String> e : normalizedNames.entrySet()) {
+                if (e.getValue().contains(term)) {
+                    result.add(e.getKey());
+                }
+            }
+            return result;
+        }
+        Posting shortest = narrowestPosting(term);
+        if (shortest == null) return result;
+        //walk the shortest list and verify the full substring, which also rules out names missing another trigram;
+        //probing the other lists first costs a skip-list lookup per candidate and saves only a contains
+        for (Product candidate : shortest) {
+            String name = normalizedNames.get(candidate);
+            if (name != null && name.contains(term)) {
+                result.add(candidate);
+            }
+        }
+        return result;
+    }
+
+    /*
+     * For the query planner: the shortest posting list of the normalized term's trigrams, which
+     * holds every product whose name contains the term, or an empty set if some trigram has no
+     * products. Null for terms shorter than a trigram, which no posting list covers.
+     */
+    Set<Product> narrowest(String term) {
+        if (term.length() < 3) return null;
+        Posting narrowest = narrowestPosting(term);
+        return narrowest != null ? narrowest : Set.of();
+    }
+
+    /*
+     * Up to limit products whose name contains the normalized term, in id order, starting after the
+     * given id (from the first when null). Walks the narrowest posting list, or every product for
+     * terms shorter than a trigram, from that id on and stops once limit have matched.
+     */
+    List<Product> containingAfter(String term, UUID after, int limit) {
+        List<Product> result = new ArrayList<>();
+        Posting source = term.length() < 3 ? all : narrowestPosting(term);
+        if (source == null) return result;
+        for (Product candidate : source.after(after)) {
+            if (result.size() == limit) break;
+            String name = normalizedNames.get(candidate);
+            if (name != null && name.contains(term)) result.add(candidate);
+        }
+        return result;
+    }
+
+    //null when some trigram of the term has no products
+    private Posting narrowestPosting(String term) {
+        Posting narrowest = null;
+        for (long trigram : trigrams(term)) {
+            Posting posting = postings.get(trigram);
+            if (posting == null) return null;
+            if (narrowest == null || posting.size() < narrowest.size()) narrowest = posting;
+        }
+        return narrowest;
+    }
+
+    static String normalize(String name) {
+        return name == null ? "" : name.toLowerCase(Locale.ROOT);
+    }
+
+    /*
+     * Three UTF-16 chars packed into one long, duplicates removed. The packing is scrambled by an
+     * odd multiplier, which keeps it one-to-one: plain packing folds to c0 ^ c1 ^ c2 in the low bits
+     * of Long.hashCode, so ASCII names land in about 128 buckets of any hash map.
+     */
+    static Set<Long> trigrams(String s) {
+        Set<Long> result = new HashSet<>();
+        for (int i = 0; i + 3 <= s.length(); i++) {
+            long packed = ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+            result.add(packed * 0x9E3779B97F4A7C15L);
+        }
+        return result;
+    }
+
+    /*
+     * One posting list: products keyed by id, so iteration follows Pages.Order.ID. The skip list
+     * counts its entries by walking them, so the size the planner and search compare is kept here.
+     * Membership is by identity, like the hash sets the other indexes use.
+     */
+    static final class Posting extends AbstractSet<Product> {
+        private final ConcurrentSkipListMap<UUID, Product> byId = new ConcurrentSkipListMap<>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        @Override
+        public boolean add(Product product) {
+            if (byId.putIfAbsent(product.uuid(), product) != null) return false;
+            size.incrementAndGet();
+            return true;
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!(o instanceof Product product) || !byId.remove(product.uuid(), product)) return false;
+            size.decrementAndGet();
+            return true;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Product product && byId.get(product.uuid()) == product;
+        }
+
+        @Override
+        public void clear() {
+            byId.clear();
+            size.set(0);
+        }
+
+        @Override
+        public int size() {
+            return size.get();
+        }
+
+        @Override
+        public Iterator<Product> iterator() {
+            return Collections.unmodifiableCollection(byId.values()).iterator();
+        }
+
+        //the products with ids after the given one, all of them when it is null
+        Iterable<Product> after(UUID id) {
+            ConcurrentNavigableMap<UUID, Product> tail = id == null ? byId : byId.tailMap(id, false);
+            return Collections.unmodifiableCollection(tail.values());
+        }
+    }
+}
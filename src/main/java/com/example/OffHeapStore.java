@@ -0,0 +1,894 @@
+package com.example;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Products as fixed-width records in native memory, for Storage.OFF_HEAP warehouses. A record
+ * holds the id, the price and weight as unscaled longs with their scales next to the cent and gram
+ * forms that scans compare, the expiration epoch day, the warranty, a store-local category id and
+ * the address of the UTF-8 name in a separate name area. An open-addressing table of (hash, slot)
+ * longs, also in native memory, maps ids to records. The heap holds no per-product object.
+ *
+ * <p>get and iteration materialize a new FoodProduct or ElectronicsProduct each time, so a product
+ * read from here is a detached copy and its price reaches the store only through
+ * Warehouse.updateProductPrice. The queries Warehouse answers from heap indexes in HEAP mode are
+ * scans of the records, which materialize just the products they return.
+ *
+ * <p>Records never move: a removed record goes on a free list threaded through the dead records and
+ * its slot is reused by a later put. Iteration walks the slots in order a batch at a time and is
+ * weakly consistent. Writes take an exclusive lock and reads a shared one; native memory is only
+ * released under the exclusive lock, by clear, table growth and name compaction. Record capacity,
+ * once allocated, is kept until clear.
+ */
+final class OffHeapStore implements ProductStore {
+    //record layout, in bytes from the start of the record
+    private static final long MSB = 0;
+    private static final long LSB = 8;
+    private static final long PRICE_CENTS = 16;
+    private static final long PRICE_UNSCALED = 24;
+    private static final long WEIGHT_UNSCALED = 32;
+    private static final long WEIGHT_GRAMS = 40;
+    private static final long EXPIRATION_DAY = 48;
+    private static final long NAME_ADDRESS = 56;
+    private static final long NAME_LENGTH = 64;
+    private static final long CATEGORY = 68;
+    private static final long WARRANTY = 72;
+    private static final long PRICE_SCALE = 76;
+    private static final long WEIGHT_SCALE = 77;
+    private static final long TYPE = 78;
+    private static final long FLAGS = 79;
+    static final int RECORD_BYTES = 80;
+    //a free record's next free slot, over its id
+    private static final long NEXT_FREE = MSB;
+
+    private static final byte FREE = 0;
+    private static final byte FOOD = 1;
+    private static final byte ELECTRONICS = 2;
+    private static final byte HAS_PRICE = 1;
+    private static final int NO_NAME = -1;
+    private static final int NO_CATEGORY = -1;
+
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_RECORDS = 1 << CHUNK_BITS;
+    private static final int NAME_CHUNK_BYTES = 4 << 20;
+    private static final int MIN_TABLE = 1024;
+    //products materialized per read-lock hold while iterating
+    private static final int BATCH = 256;
+
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG;
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT;
+    private static final ValueLayout.OfByte BYTE = ValueLayout.JAVA_BYTE;
+
+    //price, then id, the order of PriceIndex
+    private static final Comparator<Product> PRICE_ORDER = Comparator.<Product, BigDecimal>comparing(Product::price)
+            .thenComparingLong(p -> p.uuid().getMostSignificantBits())
+            .thenComparingLong(p -> p.uuid().getLeastSignificantBits());
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Arena recordArena;
+    private MemorySegment[] chunks;
+    //slots handed out so far, live or free
+    private int highWater;
+    private volatile int size;
+    private int freeHead;
+
+    private Arena tableArena;
+    private MemorySegment table;
+    private int tableMask;
+
+    private Arena nameArena;
+    private final List<MemorySegment> nameChunks = new ArrayList<>();
+    private long nameUsed;
+    private long liveNameBytes;
+    private long deadNameBytes;
+
+    //ids stay assigned across clear, there are only ever a handful of categories
+    private final List<Category> categories = new ArrayList<>();
+    private final Map<Category, Integer> categoryIds = new HashMap<>();
+    private int[] categoryCounts = new int[8];
+
+    OffHeapStore() {
+        allocate();
+    }
+
+    private void allocate() {
+        recordArena = Arena.ofShared();
+        chunks = new MemorySegment[0];
+        highWater = 0;
+        size = 0;
+        freeHead = -1;
+        tableArena = Arena.ofShared();
+        table = tableArena.allocate(MIN_TABLE * 8L, 8);
+        tableMask = MIN_TABLE - 1;
+        nameArena = Arena.ofShared();
+        nameChunks.clear();
+        nameUsed = 0;
+        liveNameBytes = 0;
+        deadNameBytes = 0;
+        Arrays.fill(categoryCounts, 0);
+    }
+
+    private MemorySegment chunk(int slot) {
+        return chunks[slot >>> CHUNK_BITS];
+    }
+
+    private static long base(int slot) {
+        return (long) (slot & (CHUNK_RECORDS - 1)) * RECORD_BYTES;
+    }
+
+    //murmur3 finalizer over both halves, folded to the 32 bits a table entry keeps
+    private static int hash(long msb, long lsb) {
+        long h = msb ^ Long.rotateLeft(lsb, 32);
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return (int) (h ^ (h >>> 33));
+    }
+
+    //position in the table of the id's entry, or -1; caller holds either lock
+    private int findEntry(long msb, long lsb) {
+        int hash = hash(msb, lsb);
+        int i = hash & tableMask;
+        while (true) {
+            long entry = table.getAtIndex(LONG, i);
+            if (entry == 0) return -1;
+            if ((int) (entry >>> 32) == hash) {
+                int slot = (int) entry - 1;
+                MemorySegment chunk = chunk(slot);
+                long base = base(slot);
+                if (chunk.get(LONG, base + MSB) == msb && chunk.get(LONG, base + LSB) == lsb) return i;
+            }
+            i = (i + 1) & tableMask;
+        }
+    }
+
+    private int find(UUID id) {
+        int i = findEntry(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        return i < 0 ? -1 : (int) table.getAtIndex(LONG, i) - 1;
+    }
+
+    private void insertEntry(int hash, int slot) {
+        int i = hash & tableMask;
+        while (table.getAtIndex(LONG, i) != 0) i = (i + 1) & tableMask;
+        table.setAtIndex(LONG, i, ((long) hash << 32) | (slot + 1L));
+    }
+
+    //backward-shift deletion, so linear probing needs no tombstones
+    private void deleteEntry(int hole) {
+        int i = (hole + 1) & tableMask;
+        while (true) {
+            long entry = table.getAtIndex(LONG, i);
+            if (entry == 0) break;
+            int home = (int) (entry >>> 32) & tableMask;
+            //the entry may fill the hole unless its home lies cyclically in (hole, i]
+            boolean stays = hole <= i ? hole < home && home <= i : hole < home || home <= i;
+            if (!stays) {
+                table.setAtIndex(LONG, hole, entry);
+                hole = i;
+            }
+            i = (i + 1) & tableMask;
+        }
+        table.setAtIndex(LONG, hole, 0L);
+    }
+
+    //keeps the table at most 3/4 full for expected entries
+    private void ensureTable(long expected) {
+        long capacity = tableMask + 1L;
+        if (expected * 4 <= capacity * 3) return;
+        while (expected * 4 > capacity * 3) capacity <<= 1;
+        Arena oldArena = tableArena;
+        MemorySegment old = table;
+        long oldCapacity = tableMask + 1L;
+        tableArena = Arena.ofShared();
+        table = tableArena.allocate(capacity * 8, 8);
+        tableMask = (int) (capacity - 1);
+        for (long i = 0; i < oldCapacity; i++) {
+            long entry = old.getAtIndex(LONG, i);
+            if (entry != 0) insertEntry((int) (entry >>> 32), (int) entry - 1);
+        }
+        oldArena.close();
+    }
+
+    @Override
+    public void checkStorable(Product product) {
+        if (!ProductCodec.supports(product)) {
+            throw new IllegalArgumentException("Off-heap storage cannot hold product type " + product.getClass().getName() + ".");
+        }
+        checkDecimal("price", product.price());
+        checkDecimal("weight", product instanceof FoodProduct food ? food.weightValue() : ((ElectronicsProduct) product).weightValue());
+    }
+
+    //unscaled value in a long and scale in a byte
+    private static void checkDecimal(String what, BigDecimal value) {
+        if (value != null && (value.unscaledValue().bitLength() > 63 || value.scale() != (byte) value.scale())) {
+            throw new IllegalArgumentException("Off-heap storage cannot hold " + what + " " + value + ".");
+        }
+    }
+
+    @Override
+    public Product get(UUID id) {
+        lock.readLock().lock();
+        try {
+            int slot = find(id);
+            return slot < 0 ? null : materialize(chunk(slot), base(slot));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean containsKey(UUID id) {
+        lock.readLock().lock();
+        try {
+            return find(id) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Product put(Product product) {
+        checkStorable(product);
+        lock.writeLock().lock();
+        try {
+            return store(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //checks the whole batch before storing any of it
+    @Override
+    public void putAll(Collection<? extends Product> products) {
+        for (Product p : products) checkStorable(p);
+        lock.writeLock().lock();
+        try {
+            ensureTable((long) size + products.size());
+            for (Product p : products) store(p);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //caller holds the write lock and has checked the product
+    private Product store(Product product) {
+        int slot = find(product.uuid());
+        if (slot >= 0) {
+            MemorySegment chunk = chunk(slot);
+            long base = base(slot);
+            Product previous = materialize(chunk, base);
+            release(chunk, base);
+            write(chunk, base, product);
+            compactNamesIfSparse();
+            return previous;
+        }
+        ensureTable(size + 1L);
+        slot = allocateSlot();
+        write(chunk(slot), base(slot), product);
+        insertEntry(hash(product.uuid().getMostSignificantBits(), product.uuid().getLeastSignificantBits()), slot);
+        size++;
+        return null;
+    }
+
+    private int allocateSlot() {
+        if (freeHead >= 0) {
+            int slot = freeHead;
+            freeHead = (int) chunk(slot).get(LONG, base(slot) + NEXT_FREE);
+            return slot;
+        }
+        if (highWater == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Off-heap storage is full.");
+        }
+        if ((highWater >>> CHUNK_BITS) == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunks.length + 1);
+            chunks[chunks.length - 1] = recordArena.allocate((long) CHUNK_RECORDS * RECORD_BYTES, 8);
+        }
+        return highWater++;
+    }
+
+    private void write(MemorySegment chunk, long base, Product product) {
+        UUID id = product.uuid();
+        chunk.set(LONG, base + MSB, id.getMostSignificantBits());
+        chunk.set(LONG, base + LSB, id.getLeastSignificantBits());
+        writePrice(chunk, base, product.price());
+        BigDecimal weight;
+        long grams;
+        if (product instanceof FoodProduct food) {
+            weight = food.weightValue();
+            grams = food.weightGrams();
+            chunk.set(LONG, base + EXPIRATION_DAY, food.expirationDay());
+            chunk.set(INT, base + WARRANTY, 0);
+            chunk.set(BYTE, base + TYPE, FOOD);
+        } else {
+            ElectronicsProduct electronics = (ElectronicsProduct) product;
+            weight = electronics.weightValue();
+            grams = electronics.weightGrams();
+            chunk.set(LONG, base + EXPIRATION_DAY, Perishable.NO_EXPIRY);
+            chunk.set(INT, base + WARRANTY, electronics.warrantyMonths());
+            chunk.set(BYTE, base + TYPE, ELECTRONICS);
+        }
+        chunk.set(LONG, base + WEIGHT_UNSCALED, weight.unscaledValue().longValue());
+        chunk.set(BYTE, base + WEIGHT_SCALE, (byte) weight.scale());
+        chunk.set(LONG, base + WEIGHT_GRAMS, grams);
+        writeName(chunk, base, product.name());
+        int category = categoryId(product.category());
+        chunk.set(INT, base + CATEGORY, category);
+        if (category != NO_CATEGORY) categoryCounts[category]++;
+    }
+
+    private static void writePrice(MemorySegment chunk, long base, BigDecimal price) {
+        if (price == null) {
+            chunk.set(LONG, base + PRICE_CENTS, FixedPoint.INEXACT);
+            chunk.set(LONG, base + PRICE_UNSCALED, 0);
+            chunk.set(BYTE, base + PRICE_SCALE, (byte) 0);
+            chunk.set(BYTE, base + FLAGS, (byte) 0);
+            return;
+        }
+        chunk.set(LONG, base + PRICE_CENTS, FixedPoint.toScaled(price, FixedPoint.CENTS));
+        chunk.set(LONG, base + PRICE_UNSCALED, price.unscaledValue().longValue());
+        chunk.set(BYTE, base + PRICE_SCALE, (byte) price.scale());
+        chunk.set(BYTE, base + FLAGS, HAS_PRICE);
+    }
+
+    private int categoryId(Category category) {
+        if (category == null) return NO_CATEGORY;
+        Integer id = categoryIds.get(category);
+        if (id != null) return id;
+        int fresh = categories.size();
+        categories.add(category);
+        categoryIds.put(category, fresh);
+        if (fresh == categoryCounts.length) categoryCounts = Arrays.copyOf(categoryCounts, fresh * 2);
+        return fresh;
+    }
+
+    //gives back what a live record holds in the name area and the category counts
+    private void release(MemorySegment chunk, long base) {
+        int length = chunk.get(INT, base + NAME_LENGTH);
+        if (length > 0) {
+            liveNameBytes -= length;
+            deadNameBytes += length;
+        }
+        int category = chunk.get(INT, base + CATEGORY);
+        if (category != NO_CATEGORY) categoryCounts[category]--;
+    }
+
+    @Override
+    public void repriced(Product product) {
+        BigDecimal price = product.price();
+        checkDecimal("price", price);
+        lock.writeLock().lock();
+        try {
+            int slot = find(product.uuid());
+            if (slot >= 0) writePrice(chunk(slot), base(slot), price);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Product remove(UUID id) {
+        lock.writeLock().lock();
+        try {
+            int entry = findEntry(id.getMostSignificantBits(), id.getLeastSignificantBits());
+            if (entry < 0) return null;
+            int slot = (int) table.getAtIndex(LONG, entry) - 1;
+            MemorySegment chunk = chunk(slot);
+            long base = base(slot);
+            Product previous = materialize(chunk, base);
+            deleteEntry(entry);
+            release(chunk, base);
+            chunk.set(BYTE, base + TYPE, FREE);
+            chunk.set(LONG, base + NEXT_FREE, freeHead);
+            freeHead = slot;
+            size--;
+            compactNamesIfSparse();
+            return previous;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            recordArena.close();
+            tableArena.close();
+            nameArena.close();
+            allocate();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    //native bytes held for records, the id table and names, including free space
+    long nativeBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = (long) chunks.length * CHUNK_RECORDS * RECORD_BYTES + table.byteSize();
+            for (MemorySegment names : nameChunks) bytes += names.byteSize();
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*
+     * Names are appended to the current chunk of the name area, a name longer than a chunk getting
+     * one of its own. The address is the chunk index in the high 32 bits and the offset in the low.
+     */
+    private void writeName(MemorySegment chunk, long base, String name) {
+        if (name == null) {
+            chunk.set(LONG, base + NAME_ADDRESS, 0);
+            chunk.set(INT, base + NAME_LENGTH, NO_NAME);
+            return;
+        }
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        chunk.set(LONG, base + NAME_ADDRESS, appendName(MemorySegment.ofArray(bytes), 0, bytes.length));
+        chunk.set(INT, base + NAME_LENGTH, bytes.length);
+    }
+
+    private long appendName(MemorySegment source, long offset, int length) {
+        if (nameChunks.isEmpty() || nameUsed + length > nameChunks.getLast().byteSize()) {
+            nameChunks.add(nameArena.allocate(Math.max(NAME_CHUNK_BYTES, length), 1));
+            nameUsed = 0;
+        }
+        long address = ((long) (nameChunks.size() - 1) << 32) | nameUsed;
+        MemorySegment.copy(source, offset, nameChunks.getLast(), nameUsed, length);
+        nameUsed += length;
+        liveNameBytes += length;
+        return address;
+    }
+
+    private String readName(MemorySegment chunk, long base) {
+        int length = chunk.get(INT, base + NAME_LENGTH);
+        if (length == NO_NAME) return null;
+        long address = chunk.get(LONG, base + NAME_ADDRESS);
+        byte[] bytes = new byte[length];
+        MemorySegment.copy(nameChunks.get((int) (address >>> 32)), BYTE, address & 0xFFFFFFFFL, bytes, 0, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    //rewrites the live names into a fresh area once more than half of the old one is dead
+    private void compactNamesIfSparse() {
+        if (deadNameBytes < NAME_CHUNK_BYTES || deadNameBytes <= liveNameBytes) return;
+        Arena oldArena = nameArena;
+        List<MemorySegment> old = new ArrayList<>(nameChunks);
+        nameArena = Arena.ofShared();
+        nameChunks.clear();
+        liveNameBytes = 0;
+        deadNameBytes = 0;
+        forEachRecord((chunk, base) -> {
+            int length = chunk.get(INT, base + NAME_LENGTH);
+            if (length == NO_NAME) return;
+            long address = chunk.get(LONG, base + NAME_ADDRESS);
+            chunk.set(LONG, base + NAME_ADDRESS, appendName(old.get((int) (address >>> 32)), address & 0xFFFFFFFFL, length));
+        });
+        oldArena.close();
+    }
+
+    private Product materialize(MemorySegment chunk, long base) {
+        UUID id = new UUID(chunk.get(LONG, base + MSB), chunk.get(LONG, base + LSB));
+        String name = readName(chunk, base);
+        int categoryId = chunk.get(INT, base + CATEGORY);
+        Category category = categoryId == NO_CATEGORY ? null : categories.get(categoryId);
+        BigDecimal price = price(chunk, base);
+        BigDecimal weight = BigDecimal.valueOf(chunk.get(LONG, base + WEIGHT_UNSCALED), chunk.get(BYTE, base + WEIGHT_SCALE));
+        if (chunk.get(BYTE, base + TYPE) == FOOD) {
+            long day = chunk.get(LONG, base + EXPIRATION_DAY);
+            return new FoodProduct(id, name, category, price, day == Perishable.NO_EXPIRY ? null : LocalDate.ofEpochDay(day), weight);
+        }
+        return new ElectronicsProduct(id, name, category, price, chunk.get(INT, base + WARRANTY), weight);
+    }
+
+    private static BigDecimal price(MemorySegment chunk, long base) {
+        if ((chunk.get(BYTE, base + FLAGS) & HAS_PRICE) == 0) return null;
+        return BigDecimal.valueOf(chunk.get(LONG, base + PRICE_UNSCALED), chunk.get(BYTE, base + PRICE_SCALE));
+    }
+
+    private interface RecordVisitor {
+        void visit(MemorySegment chunk, long base);
+    }
+
+    //every live record in slot order; caller holds either lock
+    private void forEachRecord(RecordVisitor visitor) {
+        for (int c = 0; c < chunks.length; c++) {
+            MemorySegment chunk = chunks[c];
+            long end = (long) Math.min(CHUNK_RECORDS, highWater - (c << CHUNK_BITS)) * RECORD_BYTES;
+            for (long base = 0; base < end; base += RECORD_BYTES) {
+                if (chunk.get(BYTE, base + TYPE) != FREE) visitor.visit(chunk, base);
+            }
+        }
+    }
+
+    /*
+     * Scans behind Warehouse's queries in OFF_HEAP mode, each under the read lock. Whole-cent
+     * prices are compared as longs against the bounds rounded to cents, other prices as BigDecimal.
+     */
+
+    //null bounds are open, results in price order like PriceIndex's
+    List<Product> pricedBetween(BigDecimal min, boolean minInclusive, BigDecimal max, boolean maxInclusive) {
+        long lowCents = min == null ? Long.MIN_VALUE : minInclusive ? FixedPoint.ceilCents(min) : Math.min(FixedPoint.floorCents(min), Long.MAX_VALUE - 1) + 1;
+        long highCents = max == null ? Long.MAX_VALUE : maxInclusive ? FixedPoint.floorCents(max) : FixedPoint.ceilCents(max) - 1;
+        List<Product> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            forEachRecord((chunk, base) -> {
+                if ((chunk.get(BYTE, base + FLAGS) & HAS_PRICE) == 0) return;
+                long cents = chunk.get(LONG, base + PRICE_CENTS);
+                boolean inRange;
+                if (cents != FixedPoint.INEXACT) {
+                    inRange = cents >= lowCents && cents <= highCents;
+                } else {
+                    BigDecimal price = price(chunk, base);
+                    inRange = (min == null || (minInclusive ? price.compareTo(min) >= 0 : price.compareTo(min) > 0))
+                            && (max == null || (maxInclusive ? price.compareTo(max) <= 0 : price.compareTo(max) < 0));
+                }
+                if (inRange) result.add(materialize(chunk, base));
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        result.sort(PRICE_ORDER);
+        return result;
+    }
+
+    int countPriceAtLeast(BigDecimal threshold) {
+        long thresholdCents = FixedPoint.ceilCents(threshold);
+        int[] count = new int[1];
+        lock.readLock().lock();
+        try {
+            forEachRecord((chunk, base) -> {
+                if ((chunk.get(BYTE, base + FLAGS) & HAS_PRICE) == 0) return;
+                long cents = chunk.get(LONG, base + PRICE_CENTS);
+                if (cents != FixedPoint.INEXACT ? cents >= thresholdCents : price(chunk, base).compareTo(threshold) >= 0) count[0]++;
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        return count[0];
+    }
+
+    Optional<Product> cheapest() {
+        return extreme(-1);
+    }
+
+    Optional<Product> mostExpensive() {
+        return extreme(1);
+    }
+
+    //the last product in PRICE_ORDER for sign 1, the first for sign -1
+    private Optional<Product> extreme(int sign) {
+        lock.readLock().lock();
+        try {
+            MemorySegment[] best = new MemorySegment[1];
+            long[] bestBase = new long[1];
+            forEachRecord((chunk, base) -> {
+                if ((chunk.get(BYTE, base + FLAGS) & HAS_PRICE) == 0) return;
+                if (best[0] == null || Integer.signum(compare(chunk, base, best[0], bestBase[0])) == sign) {
+                    best[0] = chunk;
+                    bestBase[0] = base;
+                }
+            });
+            return best[0] == null ? Optional.empty() : Optional.of(materialize(best[0], bestBase[0]));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static int compare(MemorySegment a, long aBase, MemorySegment b, long bBase) {
+        long aCents = a.get(LONG, aBase + PRICE_CENTS);
+        long bCents = b.get(LONG, bBase + PRICE_CENTS);
+        int byPrice = aCents != FixedPoint.INEXACT && bCents != FixedPoint.INEXACT
+                ? Long.compare(aCents, bCents)
+                : price(a, aBase).compareTo(price(b, bBase));
+        if (byPrice != 0) return byPrice;
+        int byMsb = Long.compare(a.get(LONG, aBase + MSB), b.get(LONG, bBase + MSB));
+        return byMsb != 0 ? byMsb : Long.compare(a.get(LONG, aBase + LSB), b.get(LONG, bBase + LSB));
+    }
+
+    //from the per-category counts kept on every write, O(categories)
+    int categoryCount() {
+        lock.readLock().lock();
+        try {
+            int count = 0;
+            for (int i = 0; i < categories.size(); i++) {
+                if (categoryCounts[i] > 0) count++;
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    Map<Category, Integer> countByCategory() {
+        lock.readLock().lock();
+        try {
+            Map<Category, Integer> counts = new HashMap<>();
+            for (int i = 0; i < categories.size(); i++) {
+                if (categoryCounts[i] > 0) counts.put(categories.get(i), categoryCounts[i]);
+            }
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    List<Product> productsIn(Category category) {
+        List<Product> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Integer id = categoryIds.get(category);
+            if (id == null) return result;
+            forEachRecord((chunk, base) -> {
+                if (chunk.get(INT, base + CATEGORY) == id) result.add(materialize(chunk, base));
+            });
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    Map<Category, List<Product>> grouped() {
+        Map<Category, List<Product>> result = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            forEachRecord((chunk, base) -> {
+                int id = chunk.get(INT, base + CATEGORY);
+                if (id != NO_CATEGORY) result.computeIfAbsent(categories.get(id), c -> new ArrayList<>()).add(materialize(chunk, base));
+            });
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //same sums and rounding as CategoryIndex, built in one pass over the price and weight fields
+    Map<Category, BigDecimal> weightedAveragePrices() {
+        lock.readLock().lock();
+        try {
+            CategoryIndex.Sums[] sums = new CategoryIndex.Sums[categories.size()];
+            forEachRecord((chunk, base) -> {
+                int id = chunk.get(INT, base + CATEGORY);
+                if (id == NO_CATEGORY || (chunk.get(BYTE, base + FLAGS) & HAS_PRICE) == 0) return;
+                if (sums[id] == null) sums[id] = new CategoryIndex.Sums();
+                long cents = chunk.get(LONG, base + PRICE_CENTS);
+                BigDecimal price = cents == FixedPoint.INEXACT ? price(chunk, base) : null;
+                long weightUnscaled = chunk.get(LONG, base + WEIGHT_UNSCALED);
+                if (weightUnscaled <= 0) {
+                    sums[id].add(cents, price, 0, null, 1);
+                    return;
+                }
+                long grams = chunk.get(LONG, base + WEIGHT_GRAMS);
+                //as Shippable.weight() reports it, through a double
+                BigDecimal weight = grams == FixedPoint.INEXACT
+                        ? BigDecimal.valueOf(BigDecimal.valueOf(weightUnscaled, chunk.get(BYTE, base + WEIGHT_SCALE)).doubleValue())
+                        : null;
+                sums[id].add(cents, price, grams, weight, 1);
+            });
+            Map<Category, BigDecimal> result = new HashMap<>();
+            for (int i = 0; i < sums.length; i++) {
+                BigDecimal average = sums[i] == null ? null : sums[i].weightedAverage();
+                if (average != null) result.put(categories.get(i), average);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //inclusive on both ends
+    List<Perishable> expiringBetween(long fromDay, long toDay) {
+        List<Perishable> result = new ArrayList<>();
+        if (fromDay > toDay) return result;
+        lock.readLock().lock();
+        try {
+            forEachRecord((chunk, base) -> {
+                long day = chunk.get(LONG, base + EXPIRATION_DAY);
+                if (day >= fromDay && day <= toDay && day != Perishable.NO_EXPIRY) {
+                    result.add((Perishable) materialize(chunk, base));
+                }
+            });
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //strictly before the given day
+    List<Perishable> expiredBefore(long epochDay) {
+        return epochDay == Long.MIN_VALUE ? new ArrayList<>() : expiringBetween(Long.MIN_VALUE, epochDay - 1);
+    }
+
+    int countExpiredBefore(long epochDay) {
+        int[] count = new int[1];
+        lock.readLock().lock();
+        try {
+            forEachRecord((chunk, base) -> {
+                if (chunk.get(LONG, base + EXPIRATION_DAY) < epochDay) count[0]++;
+            });
+            return count[0];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    List<Product> expiringOn(long epochDay) {
+        List<Product> result = new ArrayList<>();
+        for (Perishable p : expiringBetween(epochDay, epochDay)) result.add((Product) p);
+        return result;
+    }
+
+    /*
+     * Case-insensitive substring search with NameIndex's semantics. For an ASCII term, ASCII names
+     * are matched on their bytes without decoding; any other name is decoded and lower-cased.
+     */
+    List<Product> search(String searchTerm) {
+        String term = NameIndex.normalize(searchTerm);
+        byte[] ascii = term.chars().allMatch(ch -> ch < 0x80) ? term.getBytes(StandardCharsets.US_ASCII) : null;
+        List<Product> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            byte[][] scratch = {new byte[64]};
+            forEachRecord((chunk, base) -> {
+                int length = chunk.get(INT, base + NAME_LENGTH);
+                boolean match;
+                if (length == NO_NAME) {
+                    match = term.isEmpty();
+                } else {
+                    if (scratch[0].length < length) scratch[0] = new byte[Math.max(length, scratch[0].length * 2)];
+                    long address = chunk.get(LONG, base + NAME_ADDRESS);
+                    MemorySegment.copy(nameChunks.get((int) (address >>> 32)), BYTE, address & 0xFFFFFFFFL, scratch[0], 0, length);
+                    int found = ascii == null ? -1 : asciiContains(scratch[0], length, ascii);
+                    match = found >= 0
+                            ? found == 1
+                            : NameIndex.normalize(new String(scratch[0], 0, length, StandardCharsets.UTF_8)).contains(term);
+                }
+                if (match) result.add(materialize(chunk, base));
+            });
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //1 if the lower-cased name contains term, 0 if not, -1 if the name is not all ASCII
+    private static int asciiContains(byte[] name, int length, byte[] term) {
+        for (int i = 0; i < length; i++) {
+            if (name[i] < 0) return -1;
+        }
+        outer:
+        for (int i = 0; i + term.length <= length; i++) {
+            for (int j = 0; j < term.length; j++) {
+                byte b = name[i + j];
+                if (b >= 'A' && b <= 'Z') b += 'a' - 'A';
+                if (b != term[j]) continue outer;
+            }
+            return 1;
+        }
+        return 0;
+    }
+
+    @Override
+    public Collection<Product> values() {
+        return values;
+    }
+
+    private final Collection<Product> values = new AbstractCollection<>() {
+        @Override
+        public Iterator<Product> iterator() {
+            return Spliterators.iterator(spliterator());
+        }
+
+        @Override
+        public Spliterator<Product> spliterator() {
+            lock.readLock().lock();
+            try {
+                return new Cursor(0, highWater);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public int size() {
+            return OffHeapStore.this.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return OffHeapStore.this.isEmpty();
+        }
+    };
+
+    //walks slots [next, end), materializing up to BATCH products per read-lock hold
+    private final class Cursor implements Spliterator<Product> {
+        private int next;
+        private final int end;
+        private final List<Product> batch = new ArrayList<>(BATCH);
+        private int taken;
+
+        Cursor(int next, int end) {
+            this.next = next;
+            this.end = end;
+        }
+
+        private boolean fill() {
+            batch.clear();
+            taken = 0;
+            lock.readLock().lock();
+            try {
+                //after a clear highWater may be below end, slots past it are gone
+                int limit = Math.min(end, highWater);
+                while (next < limit && batch.size() < BATCH) {
+                    MemorySegment chunk = chunk(next);
+                    long base = base(next++);
+                    if (chunk.get(BYTE, base + TYPE) != FREE) batch.add(materialize(chunk, base));
+                }
+                if (next >= limit) next = end;
+            } finally {
+                lock.readLock().unlock();
+            }
+            return !batch.isEmpty();
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Product> action) {
+            if (taken == batch.size() && !fill()) return false;
+            action.accept(batch.get(taken++));
+            return true;
+        }
+
+        @Override
+        public Spliterator<Product> trySplit() {
+            if (taken < batch.size()) return null;
+            int middle = (int) (((long) next + end) >>> 1);
+            if (middle - next < BATCH) return null;
+            Cursor prefix = new Cursor(next, middle);
+            next = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - next;
+        }
+
+        @Override
+        public int characteristics() {
+            return CONCURRENT | NONNULL;
+        }
+    }
+}
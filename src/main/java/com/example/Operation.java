@@ -0,0 +1,70 @@
+package com.example;
+
+/**
+ * The Warehouse and WarehouseAnalyzer calls WarehouseMetrics times, one latency histogram each.
+ * Overloads that only fill in a default day delegate and are timed once, under the full call.
+ * Every call is counted; the sampled ones, lookups answering in well under a microsecond, are only
+ * timed one call in WarehouseMetrics.SAMPLE_EVERY.
+ */
+enum Operation {
+    ADD_PRODUCT("Warehouse.addProduct", false),
+    ADD_ALL("Warehouse.addAll", false),
+    UPDATE_PRODUCT_PRICE("Warehouse.updateProductPrice", false),
+    REMOVE("Warehouse.remove", false),
+    CLEAR_PRODUCTS("Warehouse.clearProducts", false),
+    GET_PRODUCT_BY_ID("Warehouse.getProductById", true),
+    GET_PRODUCTS("Warehouse.getProducts", false),
+    PRODUCTS_IN_PRICE_RANGE("Warehouse.productsInPriceRange", false),
+    PRODUCTS_ABOVE_PRICE("Warehouse.productsAbovePrice", false),
+    PRODUCTS_BELOW_PRICE("Warehouse.productsBelowPrice", false),
+    TOTAL_VALUE("Warehouse.totalValue", true),
+    CATEGORY_COUNT("Warehouse.categoryCount", true),
+    COUNT_BY_CATEGORY("Warehouse.countByCategory", false),
+    WEIGHTED_AVERAGE_PRICE_BY_CATEGORY("Warehouse.weightedAveragePriceByCategory", false),
+    PRODUCTS_IN_CATEGORY("Warehouse.productsInCategory", false),
+    PRODUCTS_GROUPED_BY_CATEGORIES("Warehouse.getProductsGroupedByCategories", false),
+    MOST_EXPENSIVE_PRODUCT("Warehouse.mostExpensiveProduct", true),
+    CHEAPEST_PRODUCT("Warehouse.cheapestProduct", true),
+    EXPIRED_PRODUCTS("Warehouse.expiredProducts", false),
+    COUNT_EXPIRED_PRODUCTS("Warehouse.countExpiredProducts", true),
+    QUERY("Warehouse.query", false),
+    PRODUCTS_EXPIRING_BETWEEN("Warehouse.productsExpiringBetween", false),
+    PRODUCTS_EXPIRING_ON("Warehouse.productsExpiringOn", false),
+    SEARCH_BY_NAME("Warehouse.searchByName", false),
+    SHIPPABLE_PRODUCTS("Warehouse.shippableProducts", false),
+    PRICE_QUANTILES("Warehouse.priceQuantiles", true),
+    CHANGES_SINCE("Warehouse.changesSince", false),
+    FIND_PRODUCTS_IN_PRICE_RANGE("WarehouseAnalyzer.findProductsInPriceRange", false),
+    FIND_PRODUCTS_EXPIRING_WITHIN_DAYS("WarehouseAnalyzer.findProductsExpiringWithinDays", false),
+    SEARCH_PRODUCTS_BY_NAME("WarehouseAnalyzer.searchProductsByName", false),
+    FIND_PRODUCTS_ABOVE_PRICE("WarehouseAnalyzer.findProductsAbovePrice", false),
+    //the paginated variants, timed apart from the full lists
+    FIND_PRODUCTS_IN_PRICE_RANGE_PAGE("WarehouseAnalyzer.findProductsInPriceRange(page)", false),
+    FIND_PRODUCTS_EXPIRING_WITHIN_DAYS_PAGE("WarehouseAnalyzer.findProductsExpiringWithinDays(page)", false),
+    SEARCH_PRODUCTS_BY_NAME_PAGE("WarehouseAnalyzer.searchProductsByName(page)", false),
+    FIND_PRODUCTS_ABOVE_PRICE_PAGE("WarehouseAnalyzer.findProductsAbovePrice(page)", false),
+    CALCULATE_WEIGHTED_AVERAGE_PRICE_BY_CATEGORY("WarehouseAnalyzer.calculateWeightedAveragePriceByCategory", false),
+    FIND_PRICE_OUTLIERS("WarehouseAnalyzer.findPriceOutliers", false),
+    IS_PRICE_OUTLIER("WarehouseAnalyzer.isPriceOutlier", true),
+    PACK_SHIPPING_GROUPS("WarehouseAnalyzer.packShippingGroups", false),
+    CALCULATE_EXPIRATION_BASED_DISCOUNTS("WarehouseAnalyzer.calculateExpirationBasedDiscounts", false),
+    VALIDATE_INVENTORY_CONSTRAINTS("WarehouseAnalyzer.validateInventoryConstraints", false),
+    GET_INVENTORY_STATISTICS("WarehouseAnalyzer.getInventoryStatistics", false);
+
+    private final String label;
+    private final boolean sampled;
+
+    Operation(String label, boolean sampled) {
+        this.label = label;
+        this.sampled = sampled;
+    }
+
+    //the key under WarehouseMetricsMXBean.getOperations()
+    String label() {
+        return label;
+    }
+
+    boolean sampled() {
+        return sampled;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example;
+
+/**
+ * Bin-packing heuristics for {@link WarehouseAnalyzer#packShippingGroups}.
+ * Both sort items by weight, heaviest first, before placing them.
+ */
+enum PackingStrategy {
+    //the first open group the item fits in, the original optimizeShippingGroups behaviour
+    FIRST_FIT_DECREASING,
+    //the fullest open group the item still fits in
+    BEST_FIT_DECREASING
+}
@@ -0,0 +1,20 @@
+package com.example;
+
+import java.util.List;
+
+/**
+ * One page of a paginated WarehouseAnalyzer result, in the order its method documents. Pass
+ * nextToken back with the same arguments for the following page; it is null on the last page. The
+ * token marks a position in that order rather than an offset, so the next page starts right after
+ * the last product shown even if products were added or removed in between.
+ */
+public record Page<T>(List<T> items, String nextToken) {
+
+    public Page {
+        items = List.copyOf(items);
+    }
+
+    public boolean hasNext() {
+        return nextToken != null;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Keyset pagination for the analyzer's page variants. Each paginated result is ordered by a Key,
+ * and a page token is the key of the page's last product tagged with its Order, so a token handed
+ * to a method paging in another order is rejected. Sources walked in key order stop once a page is
+ * full; any other source goes through smallestAfter, whose memory is bounded by the page size.
+ */
+final class Pages {
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private Pages() {
+    }
+
+    enum Order {
+        //price, then id: the order of PriceIndex
+        PRICE,
+        //expiration day, then id
+        EXPIRY,
+        //id alone
+        ID;
+
+        Key keyOf(Product p) {
+            long msb = p.uuid().getMostSignificantBits();
+            long lsb = p.uuid().getLeastSignificantBits();
+            return switch (this) {
+                case PRICE -> new Key(p.price(), 0, msb, lsb);
+                case EXPIRY -> new Key(BigDecimal.ZERO, ((Perishable) p).expirationDay(), msb, lsb);
+                case ID -> new Key(BigDecimal.ZERO, 0, msb, lsb);
+            };
+        }
+    }
+
+    //the parts an order does not use are zero; ids compare as signed halves, like PriceIndex's keys
+    record Key(BigDecimal price, long day, long msb, long lsb) implements Comparable<Key> {
+        @Override
+        public int compareTo(Key other) {
+            int byPrice = price.compareTo(other.price);
+            if (byPrice != 0) return byPrice;
+            int byDay = Long.compare(day, other.day);
+            if (byDay != 0) return byDay;
+            int byMsb = Long.compare(msb, other.msb);
+            return byMsb != 0 ? byMsb : Long.compare(lsb, other.lsb);
+        }
+    }
+
+    //products to fetch for a page: one more than it holds, which tells whether another page follows
+    static int fetchSize(int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive.");
+        }
+        return pageSize == Integer.MAX_VALUE ? pageSize : pageSize + 1;
+    }
+
+    //the position a token continues from, null for the first page
+    static Key after(Order order, String token) {
+        if (token == null) return null;
+        try {
+            String[] parts = new String(DECODER.decode(token), StandardCharsets.UTF_8).split(":");
+            if (parts.length != 5 || !parts[0].equals(order.name())) {
+                throw new IllegalArgumentException("Invalid page token.");
+            }
+            return new Key(new BigDecimal(parts[1]), Long.parseLong(parts[2]), Long.parseLong(parts[3]), Long.parseLong(parts[4]));
+        } catch (IllegalArgumentException e) {
+            //NumberFormatException and Base64's own errors included
+            throw new IllegalArgumentException("Invalid page token.", e);
+        }
+    }
+
+    static String token(Order order, Key key) {
+        String plain = order.name() + ":" + key.price() + ":" + key.day() + ":" + key.msb() + ":" + key.lsb();
+        return ENCODER.encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+    }
+
+    //found holds up to fetchSize(pageSize) products in order; the extra one only decides nextToken
+    static <T> Page<T> page(List<Product> found, int pageSize, Order order, Function<Product, T> item) {
+        boolean more = found.size() > pageSize;
+        List<Product> shown = more ? found.subList(0, pageSize) : found;
+        List<T> items = new ArrayList<>(shown.size());
+        for (Product p : shown) items.add(item.apply(p));
+        return new Page<>(items, more ? token(order, order.keyOf(shown.getLast())) : null);
+    }
+
+    /*
+     * The limit smallest candidates in the order that sort after the given key, smallest first.
+     * Keeps a max-heap of at most limit products, so memory does not grow with the candidates.
+     */
+    static List<Product> smallestAfter(Stream<Product> candidates, Order order, Key after, int limit) {
+        record Entry(Key key, Product product) {
+        }
+        if (limit == 0) return new ArrayList<>();
+        PriorityQueue<Entry> largestFirst = new PriorityQueue<>((a, b) -> b.key().compareTo(a.key()));
+        for (Iterator<Product> it = candidates.iterator(); it.hasNext(); ) {
+            Product p = it.next();
+            Key key = order.keyOf(p);
+            if (after != null && key.compareTo(after) <= 0) continue;
+            if (largestFirst.size() < limit) {
+                largestFirst.add(new Entry(key, p));
+            } else if (key.compareTo(largestFirst.peek().key()) < 0) {
+                largestFirst.poll();
+                largestFirst.add(new Entry(key, p));
+            }
+        }
+        Product[] sorted = new Product[largestFirst.size()];
+        for (int i = sorted.length - 1; i >= 0; i--) sorted[i] = largestFirst.poll().product();
+        return new ArrayList<>(List.of(sorted));
+    }
+}
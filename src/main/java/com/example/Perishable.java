@@ -3,10 +3,24 @@ package com.example;
 import java.time.LocalDate;
 
 public interface Perishable {
+    //expirationDay() of a product without an expiration date, so it never counts as expired
+    long NO_EXPIRY = Long.MAX_VALUE;
+
     LocalDate expirationDate();
 
-    //see if product is expired
+    //expiration as an epoch day, for comparing against a "today" worked out once per query
+    default long expirationDay() {
+        LocalDate date = expirationDate();
+        return date == null ? NO_EXPIRY : date.toEpochDay();
+    }
+
+    //see if product is expired; reads the system clock, scans should pass their own day instead
     default boolean isExpired() {
-        return expirationDate().isBefore(LocalDate.now());
+        return isExpired(LocalDate.now());
+    }
+
+    //expired as of the given day, which is when the expiration date lies before it
+    default boolean isExpired(LocalDate asOf) {
+        return expirationDay() < asOf.toEpochDay();
     }
-}
\ No newline at end of file
+}
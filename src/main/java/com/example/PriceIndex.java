@@ -0,0 +1,170 @@
+package com.example;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Products ordered by price, so range and threshold queries cost O(log n + k).
+ * Prices must be changed through Warehouse.updateProductPrice for the index to stay valid.
+ * Backed by a skip list, so queries run without locks alongside writers.
+ */
+final class PriceIndex implements ProductIndex {
+    //replaced only by a bulk load into an empty index
+    private volatile NavigableMap<PriceKey, Product> byPrice = new ConcurrentSkipListMap<>();
+    //the skip list counts by walking, so the entry count is kept alongside
+    private final LongAdder size = new LongAdder();
+
+    @Override
+    public void added(Product product) {
+        if (product.price() != null && byPrice.put(PriceKey.of(product.price(), product.uuid()), product) == null) {
+            size.increment();
+        }
+    }
+
+    //into an empty index the sorted batch becomes a new skip list, which is built in linear time
+    @Override
+    public void addedAll(List<Product> products) {
+        TreeMap<PriceKey, Product> sorted = new TreeMap<>();
+        for (Product p : products) {
+            if (p.price() != null) sorted.put(PriceKey.of(p.price(), p.uuid()), p);
+        }
+        if (byPrice.isEmpty()) {
+            byPrice = new ConcurrentSkipListMap<>(sorted);
+        } else {
+            byPrice.putAll(sorted);
+        }
+        //the warehouse rejects ids it already holds, so every key is new
+        size.add(sorted.size());
+    }
+
+    @Override
+    public void removed(Product product) {
+        if (product.price() != null && byPrice.remove(PriceKey.of(product.price(), product.uuid())) != null) {
+            size.decrement();
+        }
+    }
+
+    @Override
+    public void priceChanged(Product product, BigDecimal oldPrice) {
+        if (oldPrice != null && byPrice.remove(PriceKey.of(oldPrice, product.uuid())) != null) {
+            size.decrement();
+        }
+        added(product);
+    }
+
+    @Override
+    public void cleared() {
+        byPrice.clear();
+        size.reset();
+    }
+
+    //products with a price
+    long size() {
+        return size.sum();
+    }
+
+    /*
+     * The prices at the given 0-based ranks in key order, from one ascending walk that stops at the
+     * highest rank asked for. Writers can move entries under the walk; a rank past the end then gets
+     * the last price seen. Empty when the index has no entries.
+     */
+    List<BigDecimal> pricesAtRanks(long... ranks) {
+        BigDecimal[] prices = new BigDecimal[ranks.length];
+        Iterator<PriceKey> keys = byPrice.keySet().iterator();
+        long position = -1;
+        BigDecimal price = null;
+        for (int i : IntStream.range(0, ranks.length).boxed().sorted(Comparator.comparingLong(i -> ranks[i])).toList()) {
+            while (position < ranks[i] && keys.hasNext()) {
+                price = keys.next().price();
+                position++;
+            }
+            if (price == null) return new ArrayList<>();
+            prices[i] = price;
+        }
+        return new ArrayList<>(List.of(prices));
+    }
+
+    Optional<Product> cheapest() {
+        Map.Entry<PriceKey, Product> first = byPrice.firstEntry();
+        return first == null ? Optional.empty() : Optional.of(first.getValue());
+    }
+
+    Optional<Product> mostExpensive() {
+        Map.Entry<PriceKey, Product> last = byPrice.lastEntry();
+        return last == null ? Optional.empty() : Optional.of(last.getValue());
+    }
+
+    //inclusive on both ends
+    List<Product> between(BigDecimal minPrice, BigDecimal maxPrice) {
+        if (minPrice.compareTo(maxPrice) > 0) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(byPrice.subMap(PriceKey.lowest(minPrice), true, PriceKey.highest(maxPrice), true).values());
+    }
+
+    //strictly below
+    List<Product> below(BigDecimal price) {
+        return new ArrayList<>(byPrice.headMap(PriceKey.lowest(price), false).values());
+    }
+
+    //strictly above
+    List<Product> above(BigDecimal price) {
+        return new ArrayList<>(byPrice.tailMap(PriceKey.highest(price), false).values());
+    }
+
+    //live, weakly consistent view of the products priced in [minPrice, maxPrice], for the query planner
+    Collection<Product> viewBetween(BigDecimal minPrice, BigDecimal maxPrice) {
+        if (minPrice.compareTo(maxPrice) > 0) {
+            return List.of();
+        }
+        return byPrice.subMap(PriceKey.lowest(minPrice), true, PriceKey.highest(maxPrice), true).values();
+    }
+
+    //live view in key order from (price, msb, lsb) on, up to maxPrice inclusive unless it is null
+    Collection<Product> viewFrom(BigDecimal price, long msb, long lsb, boolean inclusive, BigDecimal maxPrice) {
+        PriceKey from = new PriceKey(price, msb, lsb);
+        if (maxPrice == null) {
+            return byPrice.tailMap(from, inclusive).values();
+        }
+        PriceKey to = PriceKey.highest(maxPrice);
+        if (from.compareTo(to) > 0) {
+            return List.of();
+        }
+        return byPrice.subMap(from, inclusive, to, true).values();
+    }
+
+    //price first, then id so equal prices never collide
+    private record PriceKey(BigDecimal price, long msb, long lsb) implements Comparable<PriceKey> {
+        static PriceKey of(BigDecimal price, UUID id) {
+            return new PriceKey(price, id.getMostSignificantBits(), id.getLeastSignificantBits());
+        }
+
+        static PriceKey lowest(BigDecimal price) {
+            return new PriceKey(price, Long.MIN_VALUE, Long.MIN_VALUE);
+        }
+
+        static PriceKey highest(BigDecimal price) {
+            return new PriceKey(price, Long.MAX_VALUE, Long.MAX_VALUE);
+        }
+
+        @Override
+        public int compareTo(PriceKey other) {
+            int byPrice = price.compareTo(other.price);
+            if (byPrice != 0) return byPrice;
+            int byMsb = Long.compare(msb, other.msb);
+            return byMsb != 0 ? byMsb : Long.compare(lsb, other.lsb);
+        }
+    }
+}
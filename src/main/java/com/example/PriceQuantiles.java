@@ -0,0 +1,25 @@
+package com.example;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * A price distribution kept in step with the warehouse, answering quantile queries without sorting.
+ * Products without a price are not counted.
+ */
+interface PriceQuantiles extends ProductIndex {
+    QuantileMode mode();
+
+    /*
+     * For each q in [0, 1] the price at 0-based rank floor(q * n) of the n prices in ascending order;
+     * empty when there are no prices. Concurrent writes may land between the values of one call.
+     */
+    List<BigDecimal> valuesAt(double... quantiles);
+
+    static long rank(double quantile, long count) {
+        if (quantile < 0.0 || quantile > 1.0 || Double.isNaN(quantile)) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1.");
+        }
+        return Math.min(count - 1, (long) (quantile * count));
+    }
+}
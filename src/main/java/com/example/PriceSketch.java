@@ -0,0 +1,91 @@
+package com.example;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Approximate price quantiles from logarithmic buckets (the DDSketch layout). Bucket i covers
+ * (gamma^(i-1), gamma^i] with gamma = (1 + a) / (1 - a), and reports 2 gamma^i / (gamma + 1), which
+ * is within a relative error a = RELATIVE_ERROR of every price in the bucket. So a returned quantile
+ * is within a of the exact price at that rank, for prices between MIN_PRICE and MAX_PRICE; smaller
+ * positive prices count as MIN_PRICE, larger ones as MAX_PRICE, and zero or negative prices as zero.
+ * Writes are single lock-free counter updates; a query walks the fixed set of buckets.
+ */
+final class PriceSketch implements PriceQuantiles {
+    static final double RELATIVE_ERROR = 0.01;
+    static final double MIN_PRICE = 0.01;
+    static final double MAX_PRICE = 1e12;
+
+    private static final double GAMMA = (1 + RELATIVE_ERROR) / (1 - RELATIVE_ERROR);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final int MIN_INDEX = index(MIN_PRICE);
+    //slot 0 counts prices at or below zero, slot k > 0 is bucket MIN_INDEX + k - 1
+    private static final int SLOTS = index(MAX_PRICE) - MIN_INDEX + 2;
+
+    private final AtomicLongArray counts = new AtomicLongArray(SLOTS);
+
+    @Override
+    public QuantileMode mode() {
+        return QuantileMode.APPROXIMATE;
+    }
+
+    @Override
+    public void added(Product product) {
+        if (product.price() != null) counts.incrementAndGet(slot(product.price()));
+    }
+
+    @Override
+    public void removed(Product product) {
+        if (product.price() != null) counts.decrementAndGet(slot(product.price()));
+    }
+
+    @Override
+    public void priceChanged(Product product, BigDecimal oldPrice) {
+        if (oldPrice != null) counts.decrementAndGet(slot(oldPrice));
+        added(product);
+    }
+
+    @Override
+    public void cleared() {
+        for (int i = 0; i < SLOTS; i++) counts.set(i, 0);
+    }
+
+    //counts are read once into a local copy, so all answers come from the same state
+    @Override
+    public List<BigDecimal> valuesAt(double... quantiles) {
+        long[] snapshot = new long[SLOTS];
+        long n = 0;
+        for (int i = 0; i < SLOTS; i++) {
+            //a concurrent remove may briefly run ahead of its add
+            snapshot[i] = Math.max(0, counts.get(i));
+            n += snapshot[i];
+        }
+        List<BigDecimal> values = new ArrayList<>(quantiles.length);
+        if (n == 0) return values;
+        for (double q : quantiles) {
+            long rank = PriceQuantiles.rank(q, n);
+            int i = 0;
+            for (long seen = snapshot[0]; seen <= rank; seen += snapshot[i]) i++;
+            values.add(i == 0 ? BigDecimal.ZERO : new BigDecimal(value(MIN_INDEX + i - 1), MathContext.DECIMAL64));
+        }
+        return values;
+    }
+
+    private static int slot(BigDecimal price) {
+        double value = price.doubleValue();
+        if (value <= 0) return 0;
+        int index = index(Math.min(Math.max(value, MIN_PRICE), MAX_PRICE));
+        return index - MIN_INDEX + 1;
+    }
+
+    private static int index(double value) {
+        return (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+    }
+
+    private static double value(int index) {
+        return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+    }
+}
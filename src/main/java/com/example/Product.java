@@ -7,14 +7,16 @@ public abstract class Product {
     private final UUID id;
     private final String name;
     private final Category category;
-    private BigDecimal price;
-
+    private volatile BigDecimal price;
+    //fixed-point copy of price for primitive hot paths, FixedPoint.INEXACT if not whole cents
+    private volatile long priceCents;
 
     public Product(UUID id, String name, Category category, BigDecimal price) {
         this.id = id;
         this.name = name;
         this.category = category;
         this.price = price;
+        this.priceCents = FixedPoint.toScaled(price, FixedPoint.CENTS);
     }
 
     public UUID uuid() {
@@ -33,11 +35,16 @@ public abstract class Product {
         return price;
     }
 
+    long priceCents() {
+        return priceCents;
+    }
+
     public void price(BigDecimal price) {
         //price cant be negative
         if (price.compareTo(BigDecimal.ZERO) < 0) {
             throw new IllegalArgumentException("Price cannot be negative.");
         }
+        this.priceCents = FixedPoint.toScaled(price, FixedPoint.CENTS);
         this.price = price;
     }
 
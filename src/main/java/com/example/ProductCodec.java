@@ -0,0 +1,259 @@
+package com.example;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Compact binary format for FoodProduct and ElectronicsProduct streams.
+ *
+ * <p>Per product: a type byte, the UUID as two big-endian longs, the category as a varint id,
+ * the name as varint length plus UTF-8, and the price; then the expiration as a varint epoch day
+ * and the weight (food) or the warranty and weight (electronics). Decimals are a varint of the
+ * zigzagged scale followed by the zigzagged unscaled value as a varint, so a price like 12.50
+ * takes three bytes. Categories are interned per stream: an id equal to the number of categories
+ * seen so far introduces a new one and is followed by its name, later products refer to it by id.
+ *
+ * <p>Encoder and Decoder are stateful, one per stream and not thread-safe. Neither allocates per
+ * field beyond the objects being decoded, except that encoding a decimal reads its unscaled value
+ * through a short-lived BigDecimal, which the JIT's escape analysis normally removes.
+ */
+public final class ProductCodec {
+    private static final byte FOOD = 1;
+    private static final byte ELECTRONICS = 2;
+
+    private ProductCodec() {
+    }
+
+    //true for the product types the format can hold
+    public static boolean supports(Product product) {
+        return product instanceof FoodProduct || product instanceof ElectronicsProduct;
+    }
+
+    static void checkSupported(Product product) {
+        if (!supports(product)) {
+            throw new IllegalArgumentException("Cannot encode product type " + product.getClass().getName() + ".");
+        }
+    }
+
+    public static final class Encoder {
+        private final Map<Category, Integer> categoryIds = new IdentityHashMap<>();
+
+        /*
+         * Appends one product at the buffer's position. When the buffer is too small this throws
+         * BufferOverflowException with the position and the category table unchanged, so the caller
+         * can drain or grow the buffer and call again.
+         */
+        public void encode(Product product, ByteBuffer out) {
+            checkSupported(product);
+            int start = out.position();
+            try {
+                out.put(product instanceof FoodProduct ? FOOD : ELECTRONICS);
+                writeUuid(out, product.uuid());
+                Category category = product.category();
+                Integer id = categoryIds.get(category);
+                if (id == null) {
+                    writeVarLong(out, categoryIds.size());
+                    writeString(out, category.getName());
+                } else {
+                    writeVarLong(out, id);
+                }
+                writeString(out, product.name());
+                writeDecimal(out, product.price());
+                if (product instanceof FoodProduct food) {
+                    LocalDate expires = food.expirationDate();
+                    //0 is no date, so every day shifts up by one
+                    writeVarLong(out, expires == null ? 0 : zigzag(expires.toEpochDay()) + 1);
+                    writeDecimal(out, food.weightValue());
+                } else {
+                    ElectronicsProduct electronics = (ElectronicsProduct) product;
+                    writeVarLong(out, electronics.warrantyMonths());
+                    writeDecimal(out, electronics.weightValue());
+                }
+                if (id == null) categoryIds.put(category, categoryIds.size());
+            } catch (BufferOverflowException e) {
+                out.position(start);
+                throw e;
+            }
+        }
+
+        //forgets interned categories, for starting a new stream
+        public void reset() {
+            categoryIds.clear();
+        }
+    }
+
+    public static final class Decoder {
+        private final List<Category> categories = new ArrayList<>();
+        private char[] chars = new char[64];
+
+        //reads one product from the buffer's position; malformed input throws IllegalArgumentException,
+        //input cut short BufferUnderflowException
+        public Product decode(ByteBuffer in) {
+            byte type = in.get();
+            if (type != FOOD && type != ELECTRONICS) {
+                throw new IllegalArgumentException("Unknown product type " + type + ".");
+            }
+            UUID id = readUuid(in);
+            long categoryId = readVarLong(in);
+            Category category;
+            if (categoryId == categories.size()) {
+                category = Category.of(readString(in));
+                categories.add(category);
+            } else if (categoryId >= 0 && categoryId < categories.size()) {
+                category = categories.get((int) categoryId);
+            } else {
+                throw new IllegalArgumentException("Unknown category id " + categoryId + ".");
+            }
+            String name = readString(in);
+            BigDecimal price = readDecimal(in);
+            if (type == FOOD) {
+                long day = readVarLong(in);
+                LocalDate expires = day == 0 ? null : LocalDate.ofEpochDay(unzigzag(day - 1));
+                return new FoodProduct(id, name, category, price, expires, readDecimal(in));
+            }
+            int warranty = (int) readVarLong(in);
+            return new ElectronicsProduct(id, name, category, price, warranty, readDecimal(in));
+        }
+
+        public void reset() {
+            categories.clear();
+        }
+
+        private String readString(ByteBuffer in) {
+            int length = (int) readVarLong(in);
+            if (length < 0 || length > in.remaining()) {
+                throw new IllegalArgumentException("String length " + length + " runs past the buffer.");
+            }
+            if (chars.length < length) chars = new char[Math.max(length, chars.length * 2)];
+            int n = 0;
+            int end = in.position() + length;
+            while (in.position() < end) {
+                int b = in.get() & 0xFF;
+                if (b < 0x80) {
+                    chars[n++] = (char) b;
+                } else if (b < 0xE0) {
+                    chars[n++] = (char) (((b & 0x1F) << 6) | (in.get() & 0x3F));
+                } else if (b < 0xF0) {
+                    chars[n++] = (char) (((b & 0x0F) << 12) | ((in.get() & 0x3F) << 6) | (in.get() & 0x3F));
+                } else {
+                    int cp = ((b & 0x07) << 18) | ((in.get() & 0x3F) << 12) | ((in.get() & 0x3F) << 6) | (in.get() & 0x3F);
+                    chars[n++] = Character.highSurrogate(cp);
+                    chars[n++] = Character.lowSurrogate(cp);
+                }
+            }
+            return new String(chars, 0, n);
+        }
+    }
+
+    static void writeUuid(ByteBuffer out, UUID id) {
+        out.putLong(id.getMostSignificantBits());
+        out.putLong(id.getLeastSignificantBits());
+    }
+
+    static UUID readUuid(ByteBuffer in) {
+        return new UUID(in.getLong(), in.getLong());
+    }
+
+    //an odd scale header marks an unscaled value too wide for a long, written as length-prefixed two's complement
+    static void writeDecimal(ByteBuffer out, BigDecimal value) {
+        long scale = zigzag(value.scale());
+        //up to 18 digits the unscaled value fits a long: read it from the compact scale-0 value, not a BigInteger
+        if (value.precision() <= 18) {
+            writeVarLong(out, scale << 1);
+            writeVarLong(out, zigzag(value.movePointRight(value.scale()).longValueExact()));
+            return;
+        }
+        BigInteger unscaled = value.unscaledValue();
+        if (unscaled.bitLength() < 64) {
+            writeVarLong(out, scale << 1);
+            writeVarLong(out, zigzag(unscaled.longValue()));
+        } else {
+            byte[] bytes = unscaled.toByteArray();
+            writeVarLong(out, (scale << 1) | 1);
+            writeVarLong(out, bytes.length);
+            out.put(bytes);
+        }
+    }
+
+    static BigDecimal readDecimal(ByteBuffer in) {
+        long header = readVarLong(in);
+        int scale = (int) unzigzag(header >>> 1);
+        if ((header & 1) == 0) {
+            return BigDecimal.valueOf(unzigzag(readVarLong(in)), scale);
+        }
+        byte[] bytes = new byte[(int) readVarLong(in)];
+        in.get(bytes);
+        return new BigDecimal(new BigInteger(bytes), scale);
+    }
+
+    //UTF-8 written straight from the chars, length first
+    private static void writeString(ByteBuffer out, String value) {
+        int length = value.length();
+        int bytes = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) bytes += 1;
+            else if (c < 0x800) bytes += 2;
+            else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else bytes += 3;
+        }
+        writeVarLong(out, bytes);
+        if (out.remaining() < bytes) throw new BufferOverflowException();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                out.put((byte) c);
+            } else if (c < 0x800) {
+                out.put((byte) (0xC0 | (c >> 6)));
+                out.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, value.charAt(++i));
+                out.put((byte) (0xF0 | (cp >> 18)));
+                out.put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+                out.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+                out.put((byte) (0x80 | (cp & 0x3F)));
+            } else {
+                //lone surrogates go through as their own three-byte form
+                out.put((byte) (0xE0 | (c >> 12)));
+                out.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                out.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    static void writeVarLong(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IllegalArgumentException("Varint longer than 10 bytes.");
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
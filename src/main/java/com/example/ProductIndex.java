@@ -0,0 +1,24 @@
+package com.example;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * A secondary structure that Warehouse keeps in step with its product map.
+ * Warehouse calls these hooks after every successful mutation, addedAll once per bulk load.
+ */
+interface ProductIndex {
+    void added(Product product);
+
+    //a bulk load of products none of which is indexed yet; override where one pass beats n calls
+    default void addedAll(List<Product> products) {
+        for (Product p : products) added(p);
+    }
+
+    void removed(Product product);
+
+    //called after the product already carries its new price
+    void priceChanged(Product product, BigDecimal oldPrice);
+
+    void cleared();
+}
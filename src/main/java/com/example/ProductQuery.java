@@ -0,0 +1,170 @@
+package com.example;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * An immutable conjunction of product filters for {@link Warehouse#query}, which answers it in one
+ * pass over the candidates of a single access path. Each method returns a new query with one more
+ * condition; repeating a condition narrows it, so two price ranges leave their overlap and two
+ * categories leave nothing.
+ *
+ * <pre>
+ * ProductQuery.all().inCategory(Category.of("Food")).priceBetween(twenty, fifty)
+ *         .expiringBetween(today, today.plusDays(3)).nameContains("milk").limit(10)
+ * </pre>
+ */
+public final class ProductQuery {
+    private static final ProductQuery ALL = new ProductQuery(null, null, null, Long.MIN_VALUE, Long.MAX_VALUE,
+            List.of(), List.of(), Integer.MAX_VALUE);
+
+    //the first category asked for, later ones are checked as predicates
+    private final Category category;
+    //inclusive, null when open
+    private final BigDecimal minPrice;
+    private final BigDecimal maxPrice;
+    //inclusive epoch days; MIN_VALUE to MAX_VALUE means no expiry condition
+    private final long fromDay;
+    private final long toDay;
+    //normalized like NameIndex
+    private final List<String> nameTerms;
+    private final List<Predicate<? super Product>> predicates;
+    private final int limit;
+
+    private ProductQuery(Category category, BigDecimal minPrice, BigDecimal maxPrice, long fromDay, long toDay,
+                         List<String> nameTerms, List<Predicate<? super Product>> predicates, int limit) {
+        this.category = category;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.fromDay = fromDay;
+        this.toDay = toDay;
+        this.nameTerms = nameTerms;
+        this.predicates = predicates;
+        this.limit = limit;
+    }
+
+    public static ProductQuery all() {
+        return ALL;
+    }
+
+    public ProductQuery inCategory(Category category) {
+        if (category == null) {
+            throw new IllegalArgumentException("Category cannot be null.");
+        }
+        if (this.category == null) {
+            return new ProductQuery(category, minPrice, maxPrice, fromDay, toDay, nameTerms, predicates, limit);
+        }
+        return where(p -> category.equals(p.category()));
+    }
+
+    //inclusive on both ends; products without a price never match
+    public ProductQuery priceBetween(BigDecimal minPrice, BigDecimal maxPrice) {
+        if (minPrice == null || maxPrice == null) {
+            throw new IllegalArgumentException("Price bounds cannot be null.");
+        }
+        BigDecimal min = this.minPrice == null || minPrice.compareTo(this.minPrice) > 0 ? minPrice : this.minPrice;
+        BigDecimal max = this.maxPrice == null || maxPrice.compareTo(this.maxPrice) < 0 ? maxPrice : this.maxPrice;
+        return new ProductQuery(category, min, max, fromDay, toDay, nameTerms, predicates, limit);
+    }
+
+    //perishables expiring on a day in the range, inclusive on both ends
+    public ProductQuery expiringBetween(LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Expiration dates cannot be null.");
+        }
+        long first = Math.max(fromDay, from.toEpochDay());
+        long last = Math.min(toDay, to.toEpochDay());
+        return new ProductQuery(category, minPrice, maxPrice, first, last, nameTerms, predicates, limit);
+    }
+
+    //case-insensitive substring, the same match as Warehouse.searchByName
+    public ProductQuery nameContains(String term) {
+        if (term == null) {
+            throw new IllegalArgumentException("Search term cannot be null.");
+        }
+        List<String> terms = new ArrayList<>(nameTerms);
+        terms.add(NameIndex.normalize(term));
+        return new ProductQuery(category, minPrice, maxPrice, fromDay, toDay, List.copyOf(terms), predicates, limit);
+    }
+
+    //any other condition; checked after the built-in ones and never used to pick an access path
+    public ProductQuery where(Predicate<? super Product> predicate) {
+        if (predicate == null) {
+            throw new IllegalArgumentException("Predicate cannot be null.");
+        }
+        List<Predicate<? super Product>> all = new ArrayList<>(predicates);
+        all.add(predicate);
+        return new ProductQuery(category, minPrice, maxPrice, fromDay, toDay, nameTerms, List.copyOf(all), limit);
+    }
+
+    //at most this many results, the first ones found
+    public ProductQuery limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative.");
+        }
+        return new ProductQuery(category, minPrice, maxPrice, fromDay, toDay, nameTerms, predicates, limit);
+    }
+
+    Category category() {
+        return category;
+    }
+
+    BigDecimal minPrice() {
+        return minPrice;
+    }
+
+    BigDecimal maxPrice() {
+        return maxPrice;
+    }
+
+    boolean hasPriceRange() {
+        return minPrice != null;
+    }
+
+    boolean hasExpiryRange() {
+        return fromDay != Long.MIN_VALUE || toDay != Long.MAX_VALUE;
+    }
+
+    long fromDay() {
+        return fromDay;
+    }
+
+    long toDay() {
+        return toDay;
+    }
+
+    List<String> nameTerms() {
+        return nameTerms;
+    }
+
+    int limit() {
+        return limit;
+    }
+
+    //every condition, cheapest checks first
+    boolean matches(Product p) {
+        if (category != null && !category.equals(p.category())) return false;
+        if (minPrice != null) {
+            BigDecimal price = p.price();
+            if (price == null || price.compareTo(minPrice) < 0 || price.compareTo(maxPrice) > 0) return false;
+        }
+        if (hasExpiryRange()) {
+            if (!(p instanceof Perishable per)) return false;
+            long day = per.expirationDay();
+            if (day == Perishable.NO_EXPIRY || day < fromDay || day > toDay) return false;
+        }
+        if (!nameTerms.isEmpty()) {
+            String name = NameIndex.normalize(p.name());
+            for (String term : nameTerms) {
+                if (!name.contains(term)) return false;
+            }
+        }
+        for (Predicate<? super Product> predicate : predicates) {
+            if (!predicate.test(p)) return false;
+        }
+        return true;
+    }
+}
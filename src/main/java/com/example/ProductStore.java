@@ -0,0 +1,39 @@
+package com.example;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Warehouse's primary map from product id to product: a HeapStore of the products themselves for
+ * Storage.HEAP, an OffHeapStore of records for Storage.OFF_HEAP. Warehouse serializes writes per
+ * id; implementations must still allow writes to different ids, and reads, to run concurrently.
+ */
+interface ProductStore {
+    Product get(UUID id);
+
+    boolean containsKey(UUID id);
+
+    //returns the product previously stored under the same id, or null
+    Product put(Product product);
+
+    void putAll(Collection<? extends Product> products);
+
+    Product remove(UUID id);
+
+    void clear();
+
+    int size();
+
+    boolean isEmpty();
+
+    //live, weakly consistent view of the products
+    Collection<Product> values();
+
+    //throws IllegalArgumentException for a product put would not accept, checked before anything is logged
+    default void checkStorable(Product product) {
+    }
+
+    //called after product, as returned by get, took its new price; stores that copy products write it back
+    default void repriced(Product product) {
+    }
+}
@@ -0,0 +1,11 @@
+package com.example;
+
+/**
+ * How Warehouse tracks the price distribution behind {@link Warehouse#priceQuantiles}.
+ */
+public enum QuantileMode {
+    //ranks walked off the price index: nothing extra per write, O(n) per query, heap warehouses only
+    EXACT,
+    //log-bucket sketch: lock-free constant-time writes, values within PriceSketch.RELATIVE_ERROR of the exact ones
+    APPROXIMATE
+}
@@ -0,0 +1,76 @@
+package com.example;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Picks the access path for a ProductQuery: the one with the fewest candidates among the indexes
+ * that cover one of its conditions, else a scan. Category and name candidates are counted by set
+ * size; expiry buckets and price ranges are counted by walking them, but never past the best
+ * count so far, so planning costs no more than executing the chosen path would.
+ */
+final class QueryPlanner {
+    private final ProductStore products;
+    //all null for a warehouse that keeps no per-product indexes
+    private final PriceIndex priceIndex;
+    private final ExpirationIndex expirationIndex;
+    private final CategoryIndex categoryIndex;
+    private final NameIndex nameIndex;
+
+    QueryPlanner(ProductStore products, PriceIndex priceIndex, ExpirationIndex expirationIndex,
+                 CategoryIndex categoryIndex, NameIndex nameIndex) {
+        this.products = products;
+        this.priceIndex = priceIndex;
+        this.expirationIndex = expirationIndex;
+        this.categoryIndex = categoryIndex;
+        this.nameIndex = nameIndex;
+    }
+
+    //candidates are a weakly consistent superset of the query's matches, each product once unless repriced mid-walk
+    record Plan(AccessPath path, Iterable<Product> candidates) {
+    }
+
+    Plan plan(ProductQuery query) {
+        Plan best = new Plan(AccessPath.SCAN, products.values());
+        long bestCount = products.size();
+        if (categoryIndex != null && query.category() != null) {
+            Set<Product> members = categoryIndex.members(query.category());
+            if (members.size() < bestCount) {
+                best = new Plan(AccessPath.CATEGORY_INDEX, members);
+                bestCount = members.size();
+            }
+        }
+        if (nameIndex != null) {
+            for (String term : query.nameTerms()) {
+                Set<Product> posting = nameIndex.narrowest(term);
+                if (posting != null && posting.size() < bestCount) {
+                    best = new Plan(AccessPath.NAME_INDEX, posting);
+                    bestCount = posting.size();
+                }
+            }
+        }
+        if (expirationIndex != null && query.hasExpiryRange()) {
+            Collection<Set<Product>> buckets = expirationIndex.bucketsBetween(query.fromDay(), query.toDay());
+            long count = 0;
+            for (Set<Product> bucket : buckets) {
+                count += bucket.size();
+                if (count >= bestCount) break;
+            }
+            if (count < bestCount) {
+                best = new Plan(AccessPath.EXPIRATION_INDEX, () -> buckets.stream().flatMap(Set::stream).iterator());
+                bestCount = count;
+            }
+        }
+        if (priceIndex != null && query.hasPriceRange()) {
+            Collection<Product> range = priceIndex.viewBetween(query.minPrice(), query.maxPrice());
+            long count = 0;
+            for (Product ignored : range) {
+                if (++count >= bestCount) break;
+            }
+            if (count < bestCount) {
+                best = new Plan(AccessPath.PRICE_INDEX, range);
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.function.Consumer;
+
+/**
+ * Reads and writes framed records through memory-mapped windows of a file, so neither side copies
+ * through a heap buffer and files larger than one mapping (2 GB) work. A record that does not fit
+ * the rest of the current window starts a new window at its own offset.
+ */
+final class RecordFile {
+    static final int WINDOW = 64 << 20;
+
+    private RecordFile() {
+    }
+
+    /*
+     * Hands each intact record's payload, positioned at its first byte, to the consumer and returns
+     * the offset just past the last one. Reading stops at end of file, at an empty frame, at a frame
+     * that runs past it or at a checksum mismatch: the torn tail of an interrupted append.
+     */
+    static long read(FileChannel channel, long from, Consumer<ByteBuffer> payloads) throws IOException {
+        long size = channel.size();
+        long offset = from;
+        MappedByteBuffer window = null;
+        long windowStart = 0;
+        while (size - offset >= RecordFormat.FRAME_HEADER) {
+            if (window == null || offset + RecordFormat.FRAME_HEADER > windowStart + window.limit()) {
+                windowStart = offset;
+                window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(WINDOW, size - windowStart));
+            }
+            int at = (int) (offset - windowStart);
+            int length = window.getInt(at);
+            int crc = window.getInt(at + 4);
+            long end = offset + RecordFormat.FRAME_HEADER + length;
+            //every record holds at least an op byte; a zero length with its zero CRC is unwritten, zero-filled space
+            if (length <= 0 || end > size) break;
+            if (end > windowStart + window.limit()) {
+                windowStart = offset;
+                window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.max(Math.min(WINDOW, size - windowStart), end - offset));
+                at = 0;
+            }
+            ByteBuffer payload = window.slice(at + RecordFormat.FRAME_HEADER, length);
+            if (!RecordFormat.checksumMatches(payload, crc)) break;
+            payloads.accept(payload);
+            offset = end;
+        }
+        return offset;
+    }
+
+    /**
+     * Appends records to a fresh file through read-write mappings. The file grows a window at a time
+     * and is cut back to the bytes written by {@link #finish()}, which also forces everything to disk.
+     */
+    static final class Writer {
+        private final FileChannel channel;
+        private MappedByteBuffer window;
+        private long windowStart;
+
+        Writer(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        //record holds one framed record between position 0 and its limit
+        void write(ByteBuffer record) throws IOException {
+            int length = record.remaining();
+            if (window == null || window.remaining() < length) {
+                long offset = window == null ? 0 : windowStart + window.position();
+                if (window != null) window.force();
+                windowStart = offset;
+                window = channel.map(FileChannel.MapMode.READ_WRITE, windowStart, Math.max(WINDOW, length));
+            }
+            window.put(record);
+        }
+
+        long finish() throws IOException {
+            long size = window == null ? 0 : windowStart + window.position();
+            if (window != null) window.force();
+            channel.truncate(size);
+            channel.force(true);
+            return size;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32C;
+
+/**
+ * Record framing shared by the write-ahead log and snapshots. Every record is written as
+ * [int payload length][int CRC32C of payload][payload], so a reader can tell a torn or corrupt
+ * tail from a complete record. Products inside payloads use {@link ProductCodec}.
+ */
+final class RecordFormat {
+    static final int FRAME_HEADER = 8;
+
+    private RecordFormat() {
+    }
+
+    //frames the payload between start + FRAME_HEADER and the buffer position
+    static void seal(ByteBuffer out, int start) {
+        int length = out.position() - start - FRAME_HEADER;
+        CRC32C crc = new CRC32C();
+        crc.update(out.slice(start + FRAME_HEADER, length));
+        out.putInt(start, length);
+        out.putInt(start + 4, (int) crc.getValue());
+    }
+
+    static boolean checksumMatches(ByteBuffer payload, int expected) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload.duplicate());
+        return (int) crc.getValue() == expected;
+    }
+
+    //copy into a buffer at least twice as large with room for needed more bytes, keeping position
+    static ByteBuffer grow(ByteBuffer buffer, int needed) {
+        int capacity = buffer.capacity() * 2;
+        while (capacity - buffer.position() < needed) capacity *= 2;
+        ByteBuffer bigger = ByteBuffer.allocate(capacity);
+        bigger.put(buffer.flip());
+        return bigger;
+    }
+}
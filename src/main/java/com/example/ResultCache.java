@@ -0,0 +1,102 @@
+package com.example;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Analyzer results keyed by operation, argument and Warehouse.version(), in least recently used
+ * order and capped at maxEntries. A write makes every entry unreachable by moving the version on;
+ * stale entries are then evicted as new ones push them out, or when found past their time to live.
+ * Results are computed outside the lock, so a slow miss never holds up hits. Two threads missing
+ * the same key both compute it, and the result is only kept if the version did not move meanwhile.
+ */
+final class ResultCache {
+    static final int DEFAULT_MAX_ENTRIES = 64;
+    static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(1);
+
+    private final LongSupplier version;
+    private final WarehouseMetrics metrics;
+    private final int maxEntries;
+    private final long timeToLiveNanos;
+    private final LongSupplier ticker;
+    private final ReentrantLock lock = new ReentrantLock();
+    //guarded by lock, as are the counters
+    private final LinkedHashMap<Key, Entry> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    ResultCache(LongSupplier version, WarehouseMetrics metrics, int maxEntries, Duration timeToLive, LongSupplier ticker) {
+        this.version = version;
+        this.metrics = metrics;
+        this.maxEntries = maxEntries;
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.ticker = ticker;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() <= ResultCache.this.maxEntries) return false;
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    private record Key(Operation operation, Object argument, long version) {
+    }
+
+    private record Entry(Object value, long expiresAt) {
+    }
+
+    //calls since the cache was created; size counts entries of old versions not yet evicted
+    record Statistics(long hits, long misses, long evictions, int size) {
+    }
+
+    //argument must have value semantics, null for operations without one
+    @SuppressWarnings("unchecked")
+    <T> T get(Operation operation, Object argument, Supplier<T> compute) {
+        long current = version.getAsLong();
+        Key key = new Key(operation, argument, current);
+        lock.lock();
+        try {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (ticker.getAsLong() - entry.expiresAt() < 0) {
+                    hits++;
+                    metrics.cacheHit();
+                    return (T) entry.value();
+                }
+                entries.remove(key);
+                evictions++;
+            }
+            misses++;
+        } finally {
+            lock.unlock();
+        }
+        metrics.cacheMiss();
+        T value = compute.get();
+        if (version.getAsLong() == current) {
+            Entry entry = new Entry(value, ticker.getAsLong() + timeToLiveNanos);
+            lock.lock();
+            try {
+                entries.put(key, entry);
+            } finally {
+                lock.unlock();
+            }
+        }
+        return value;
+    }
+
+    Statistics statistics() {
+        lock.lock();
+        try {
+            return new Statistics(hits, misses, evictions, entries.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+}
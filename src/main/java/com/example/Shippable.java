@@ -5,4 +5,9 @@ import java.math.BigDecimal;
 public interface Shippable {
     BigDecimal calculateShippingCost();
     double weight();
+
+    //weight in grams, FixedPoint.INEXACT when it is not a whole number of grams
+    default long weightGrams() {
+        return FixedPoint.toGrams(BigDecimal.valueOf(weight()));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package com.example;
+
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event for a shipping group packing run, from optimizeShippingGroups or
+ * packShippingGroups, that took longer than the threshold, 10 ms unless a recording's settings
+ * say otherwise.
+ */
+@Name("com.example.ShippingOptimization")
+@Label("Shipping Optimization")
+@jdk.jfr.Category("Warehouse")
+@Description("Shippable products packed into weight-limited groups")
+@Threshold("10 ms")
+@StackTrace(false)
+final class ShippingOptimizationEvent extends Event {
+
+    @Label("Strategy")
+    String strategy;
+
+    @Label("Max Weight Per Group")
+    double maxWeightPerGroup;
+
+    @Label("Products")
+    @Description("Shippable products packed")
+    int products;
+
+    @Label("Groups")
+    int groups;
+
+    @Label("Fill Ratio")
+    @Description("Total weight over the capacity of the groups used")
+    double fillRatio;
+
+    static ShippingOptimizationEvent started() {
+        ShippingOptimizationEvent event = new ShippingOptimizationEvent();
+        event.begin();
+        return event;
+    }
+
+    //passes the result through; fields are only filled in when the run was slow enough to be recorded
+    PackingResult commit(PackingResult result, double maxWeightPerGroup, int products) {
+        end();
+        if (shouldCommit()) {
+            strategy = result.getStrategy().name();
+            this.maxWeightPerGroup = maxWeightPerGroup;
+            this.products = products;
+            groups = result.getGroupCount();
+            fillRatio = result.getFillRatio();
+            commit();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example;
+
+/**
+ * Where a Warehouse keeps its products, chosen once in {@link Warehouse#getInstance(String, Storage)}.
+ */
+public enum Storage {
+    //product objects in a ConcurrentHashMap, with every secondary index on the heap beside them
+    HEAP,
+    //fixed-width records in native memory, see OffHeapStore; queries scan them, reads materialize products
+    OFF_HEAP
+}
@@ -1,84 +1,905 @@
 package com.example;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+/**
+ * Thread-safe product store. Reads never lock: lookups go straight to a ConcurrentHashMap and
+ * the indexes are concurrent structures, so a reader may briefly see a product in one view
+ * before another. Writers lock one of a fixed set of stripes chosen by product id, so mutations
+ * of the same product are serialized while unrelated writers proceed in parallel.
+ *
+ * <p>A Storage.OFF_HEAP warehouse keeps its products as records in an OffHeapStore instead and
+ * only the indexes whose size does not grow with the catalog: the running totals, the change
+ * journal and, by default, the approximate price quantiles. Its other queries scan the records.
+ * Products it returns are copies, so prices change only through updateProductPrice.
+ *
+ * <p>Mutations and queries, and the WarehouseAnalyzer calls over them, are counted and timed into
+ * a WarehouseMetricsMXBean registered under the warehouse's name when run with
+ * -Dwarehouse.metrics=true.
+ */
 public class Warehouse {
-    private static final Map<String, Warehouse> INSTANCES = new HashMap<>();
-    private final Map<UUID, Product> products = new HashMap<>();
-    private final Set<UUID> changedProducts = new HashSet<>();
+    private static final Map<String, Warehouse> INSTANCES = new ConcurrentHashMap<>();
+    private static final int STRIPES = 64;
 
-    private Warehouse(String name) {
+    private final Storage storage;
+    private final ProductStore products;
+    //the same store as products for OFF_HEAP, null for HEAP
+    private final OffHeapStore offHeap;
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private final PriceIndex priceIndex = new PriceIndex();
+    private final ExpirationIndex expirationIndex = new ExpirationIndex();
+    private final NameIndex nameIndex = new NameIndex();
+    private final InventoryAggregates aggregates = new InventoryAggregates();
+    private final CategoryIndex categoryIndex = new CategoryIndex();
+    private volatile PriceQuantiles priceQuantiles;
+    private final ChangeJournal journal = new ChangeJournal(ChangeJournal.DEFAULT_CAPACITY);
+    private final List<ProductIndex> indexes;
+    private volatile WriteAheadLog log;
+    //decides "today" for expiry queries that are not given a day
+    private volatile Clock clock = Clock.systemDefaultZone();
+    //serializes checkpoints with each other and with disablePersistence
+    private final ReentrantLock checkpointLock = new ReentrantLock();
+    private final AtomicBoolean checkpointScheduled = new AtomicBoolean();
+    private final WarehouseMetrics metrics;
+    private final QueryPlanner planner;
+    //bumped after each raw mutation has updated every index, see version()
+    private final AtomicLong version = new AtomicLong();
+
+    private Warehouse(Storage storage) {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.storage = storage;
+        if (storage == Storage.OFF_HEAP) {
+            offHeap = new OffHeapStore();
+            products = offHeap;
+            priceQuantiles = new PriceSketch();
+            indexes = new CopyOnWriteArrayList<>(List.of(aggregates, priceQuantiles, journal));
+        } else {
+            offHeap = null;
+            products = new HeapStore();
+            priceQuantiles = new ExactPriceQuantiles(priceIndex);
+            indexes = new CopyOnWriteArrayList<>(List.of(priceIndex, expirationIndex, nameIndex, aggregates, categoryIndex, priceQuantiles, journal));
+        }
+        planner = offHeap != null
+                ? new QueryPlanner(products, null, null, null, null)
+                : new QueryPlanner(products, priceIndex, expirationIndex, categoryIndex, nameIndex);
+        //the gauges read the stores directly, so polling them is not counted as calls
+        metrics = new WarehouseMetrics(storage, products::size,
+                () -> offHeap != null ? offHeap.categoryCount() : categoryIndex.categoryCount(),
+                () -> offHeap != null ? offHeap.nativeBytes() : 0);
+    }
+
+    private static Warehouse create(String name, Storage storage) {
+        Warehouse warehouse = new Warehouse(storage);
+        warehouse.metrics.register(name);
+        return warehouse;
+    }
+
+    //id must not be null, the public entry points rule that out first
+    private ReentrantLock lockFor(UUID id) {
+        int h = id.hashCode();
+        return locks[(h ^ (h >>> 16)) & (STRIPES - 1)];
     }
 
     //singleton pattern: returns unique Warehouse instance per name
     public static Warehouse getInstance(String name) {
-        return INSTANCES.computeIfAbsent(name, Warehouse::new);
+        return INSTANCES.computeIfAbsent(name, n -> create(n, Storage.HEAP));
+    }
+
+    //as getInstance(name), creating the warehouse with the given storage; an existing one must already use it
+    public static Warehouse getInstance(String name, Storage storage) {
+        if (storage == null) {
+            throw new IllegalArgumentException("Storage cannot be null.");
+        }
+        Warehouse warehouse = INSTANCES.computeIfAbsent(name, n -> create(n, storage));
+        if (warehouse.storage != storage) {
+            throw new IllegalStateException("Warehouse " + name + " already uses " + warehouse.storage + " storage.");
+        }
+        return warehouse;
     }
 
     public static Warehouse getInstance() {
         return getInstance("DefaultWarehouse");
     }
 
+    public Storage storage() {
+        return storage;
+    }
+
     public boolean isEmpty() {
         return products.isEmpty();
     }
 
     public void addProduct(Product product) {
-        if (product == null) {
-            throw new IllegalArgumentException("Product cannot be null.");
+        long start = metrics.start(Operation.ADD_PRODUCT);
+        try {
+            if (product == null) {
+                throw new IllegalArgumentException("Product cannot be null.");
+            }
+            products.checkStorable(product);
+            ReentrantLock lock = lockFor(product.uuid());
+            WriteAheadLog log;
+            long position = 0;
+            lock.lock();
+            try {
+                log = this.log;
+                if (products.containsKey(product.uuid())) {
+                    throw new IllegalArgumentException("Product with that id already exists, use updateProduct for updates.");
+                }
+                if (log != null) position = log.add(product);
+                insert(product);
+            } finally {
+                lock.unlock();
+            }
+            commit(log, position);
+        } finally {
+            metrics.record(Operation.ADD_PRODUCT, start);
+        }
+    }
+
+    /*
+     * Bulk load, all or nothing: nulls and ids that already exist or repeat within the batch are
+     * rejected before anything is added. The batch then goes in under every stripe at once, with
+     * one presizing putAll and a single addedAll per index instead of a hook call per product.
+     */
+    public void addAll(Collection<? extends Product> batch) {
+        long start = metrics.start(Operation.ADD_ALL);
+        try {
+            BulkMutationEvent event = BulkMutationEvent.started();
+            if (batch == null) {
+                throw new IllegalArgumentException("Products cannot be null.");
+            }
+            List<Product> list = new ArrayList<>(batch.size());
+            Set<UUID> ids = HashSet.newHashSet(batch.size());
+            for (Product p : batch) {
+                if (p == null) {
+                    throw new IllegalArgumentException("Product cannot be null.");
+                }
+                if (!ids.add(p.uuid())) {
+                    throw new IllegalArgumentException("Duplicate product id in batch: " + p.uuid());
+                }
+                products.checkStorable(p);
+                list.add(p);
+            }
+            if (list.isEmpty()) return;
+            WriteAheadLog log;
+            long position = 0;
+            for (ReentrantLock lock : locks) lock.lock();
+            try {
+                log = this.log;
+                for (Product p : list) {
+                    if (products.containsKey(p.uuid())) {
+                        throw new IllegalArgumentException("Product with that id already exists, use updateProduct for updates.");
+                    }
+                }
+                if (log != null) position = log.addAll(list);
+                insertAll(list);
+            } finally {
+                for (int i = STRIPES - 1; i >= 0; i--) locks[i].unlock();
+            }
+            commit(log, position);
+            event.commit(Operation.ADD_ALL, list.size(), this);
+        } finally {
+            metrics.record(Operation.ADD_ALL, start);
+        }
+    }
+
+    //null unless this warehouse was created OFF_HEAP
+    OffHeapStore offHeapStore() {
+        return offHeap;
+    }
+
+    //also published over JMX, see WarehouseMetricsMXBean
+    WarehouseMetrics metrics() {
+        return metrics;
+    }
+
+    /*
+     * Switches how the price distribution is tracked, EXACT by default on the heap and APPROXIMATE
+     * off it. EXACT ranks the price index, which OFF_HEAP warehouses do not keep. The new structure
+     * is built from the current products under every stripe lock and replaces the old one.
+     */
+    public void usePriceQuantiles(QuantileMode mode) {
+        if (mode == null) {
+            throw new IllegalArgumentException("Quantile mode cannot be null.");
+        }
+        if (mode == QuantileMode.EXACT && offHeap != null) {
+            throw new IllegalStateException("Off-heap warehouses keep no price index, their quantiles are approximate.");
+        }
+        if (priceQuantiles.mode() == mode) return;
+        for (ReentrantLock lock : locks) lock.lock();
+        try {
+            if (priceQuantiles.mode() == mode) return;
+            PriceQuantiles replacement = mode == QuantileMode.EXACT ? new ExactPriceQuantiles(priceIndex) : new PriceSketch();
+            for (Product p : products.values()) replacement.added(p);
+            indexes.remove(priceQuantiles);
+            indexes.add(replacement);
+            priceQuantiles = replacement;
+        } finally {
+            for (int i = STRIPES - 1; i >= 0; i--) locks[i].unlock();
+        }
+    }
+
+    //replaces the system clock for expiry queries, e.g. with Clock.fixed for reproducible reports
+    public void useClock(Clock clock) {
+        if (clock == null) {
+            throw new IllegalArgumentException("Clock cannot be null.");
+        }
+        this.clock = clock;
+    }
+
+    //the current day by this warehouse's clock; read once per query, not once per product
+    public LocalDate today() {
+        return LocalDate.now(clock);
+    }
+
+    public QuantileMode priceQuantileMode() {
+        return priceQuantiles.mode();
+    }
+
+    //price at 0-based rank floor(q * n) for each q, without sorting; empty when no product has a price
+    public List<BigDecimal> priceQuantiles(double... quantiles) {
+        long start = metrics.start(Operation.PRICE_QUANTILES);
+        try {
+            return priceQuantiles.valuesAt(quantiles);
+        } finally {
+            metrics.record(Operation.PRICE_QUANTILES, start);
         }
-        if (products.containsKey(product.uuid())) {
-            throw new IllegalArgumentException("Product with that id already exists, use updateProduct for updates.");
+    }
+
+    /*
+     * Changes after the given sequence, oldest first, from a bounded journal of recent adds,
+     * removals, repricings and clears. Start from 0 or lastChangeSequence() and pass the returned
+     * batch's lastSequence on the next call; an incomplete batch means the journal has moved on
+     * and the caller must reload from getProducts().
+     */
+    public ChangeBatch changesSince(long sequence) {
+        long start = metrics.start(Operation.CHANGES_SINCE);
+        try {
+            return journal.since(sequence);
+        } finally {
+            metrics.record(Operation.CHANGES_SINCE, start);
         }
-        products.put(product.uuid(), product);
     }
 
+    public long lastChangeSequence() {
+        return journal.lastSequence();
+    }
+
+    //full snapshot copy; prefer forEach, stream or productsView for read-only passes
     public List<Product> getProducts() {
-        return Collections.unmodifiableList(new ArrayList<>(products.values()));
+        long start = metrics.start(Operation.GET_PRODUCTS);
+        try {
+            return Collections.unmodifiableList(new ArrayList<>(products.values()));
+        } finally {
+            metrics.record(Operation.GET_PRODUCTS, start);
+        }
+    }
+
+    public int size() {
+        return products.size();
+    }
+
+    /*
+     * Counts completed modifications: every add, bulk add, reprice, removal and clear moves it on
+     * once the products and indexes reflect the change. A result computed after reading version v
+     * includes at least every change up to v, so it may be reused for as long as version() stays v.
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /*
+     * Copy-free reads. All of these walk the live map and are weakly consistent: each product is
+     * seen at most once, no ConcurrentModificationException is thrown, and products added or
+     * removed during the walk may or may not be seen.
+     */
+    public void forEach(Consumer<? super Product> action) {
+        products.values().forEach(action);
+    }
+
+    //not SIZED: estimateSize() is the map size when the spliterator was created
+    public Spliterator<Product> spliterator() {
+        return products.values().spliterator();
+    }
+
+    public Stream<Product> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    //read-only live view; iterating it allocates nothing per product
+    public Collection<Product> productsView() {
+        return Collections.unmodifiableCollection(products.values());
     }
 
     public Optional<Product> getProductById(UUID id) {
-        return Optional.ofNullable(products.get(id));
+        long start = metrics.start(Operation.GET_PRODUCT_BY_ID);
+        try {
+            return id == null ? Optional.empty() : Optional.ofNullable(products.get(id));
+        } finally {
+            metrics.record(Operation.GET_PRODUCT_BY_ID, start);
+        }
     }
 
     public void updateProductPrice(UUID id, BigDecimal newPrice) {
-        Product product = products.get(id);
-        if (product == null) {
-            throw new NoSuchElementException("Product not found with id: " + id);
+        long start = metrics.start(Operation.UPDATE_PRODUCT_PRICE);
+        try {
+            if (id == null) throw new NoSuchElementException("Product not found with id: null");
+            ReentrantLock lock = lockFor(id);
+            WriteAheadLog log;
+            long position = 0;
+            lock.lock();
+            try {
+                log = this.log;
+                Product product = products.get(id);
+                if (product == null) {
+                    throw new NoSuchElementException("Product not found with id: " + id);
+                }
+                if (log != null) log.checkWritable();
+                reprice(product, newPrice);
+                if (log != null) position = log.reprice(id, newPrice);
+            } finally {
+                lock.unlock();
+            }
+            commit(log, position);
+        } finally {
+            metrics.record(Operation.UPDATE_PRODUCT_PRICE, start);
+        }
+    }
+
+    //inclusive price range, answered from the sorted price index
+    public List<Product> productsInPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        long start = metrics.start(Operation.PRODUCTS_IN_PRICE_RANGE);
+        try {
+            if (offHeap != null) {
+                return minPrice.compareTo(maxPrice) > 0 ? new ArrayList<>() : offHeap.pricedBetween(minPrice, true, maxPrice, true);
+            }
+            return priceIndex.between(minPrice, maxPrice);
+        } finally {
+            metrics.record(Operation.PRODUCTS_IN_PRICE_RANGE, start);
+        }
+    }
+
+    public List<Product> productsAbovePrice(BigDecimal price) {
+        long start = metrics.start(Operation.PRODUCTS_ABOVE_PRICE);
+        try {
+            return offHeap != null ? offHeap.pricedBetween(price, false, null, false) : priceIndex.above(price);
+        } finally {
+            metrics.record(Operation.PRODUCTS_ABOVE_PRICE, start);
+        }
+    }
+
+    public List<Product> productsBelowPrice(BigDecimal price) {
+        long start = metrics.start(Operation.PRODUCTS_BELOW_PRICE);
+        try {
+            return offHeap != null ? offHeap.pricedBetween(null, false, price, false) : priceIndex.below(price);
+        } finally {
+            metrics.record(Operation.PRODUCTS_BELOW_PRICE, start);
+        }
+    }
+
+    //running aggregates, O(1) regardless of catalog size
+    public BigDecimal totalValue() {
+        long start = metrics.start(Operation.TOTAL_VALUE);
+        try {
+            return aggregates.totalValue();
+        } finally {
+            metrics.record(Operation.TOTAL_VALUE, start);
+        }
+    }
+
+    //per-category index, O(categories)
+    public int categoryCount() {
+        long start = metrics.start(Operation.CATEGORY_COUNT);
+        try {
+            return offHeap != null ? offHeap.categoryCount() : categoryIndex.categoryCount();
+        } finally {
+            metrics.record(Operation.CATEGORY_COUNT, start);
+        }
+    }
+
+    public Map<Category, Integer> countByCategory() {
+        long start = metrics.start(Operation.COUNT_BY_CATEGORY);
+        try {
+            return offHeap != null ? offHeap.countByCategory() : categoryIndex.countByCategory();
+        } finally {
+            metrics.record(Operation.COUNT_BY_CATEGORY, start);
+        }
+    }
+
+    //weight-based average price per category from the index's running sums, see CategoryIndex
+    public Map<Category, BigDecimal> weightedAveragePriceByCategory() {
+        long start = metrics.start(Operation.WEIGHTED_AVERAGE_PRICE_BY_CATEGORY);
+        try {
+            return offHeap != null ? offHeap.weightedAveragePrices() : categoryIndex.weightedAveragePrices();
+        } finally {
+            metrics.record(Operation.WEIGHTED_AVERAGE_PRICE_BY_CATEGORY, start);
+        }
+    }
+
+    public List<Product> productsInCategory(Category category) {
+        long start = metrics.start(Operation.PRODUCTS_IN_CATEGORY);
+        try {
+            return offHeap != null ? offHeap.productsIn(category) : categoryIndex.productsIn(category);
+        } finally {
+            metrics.record(Operation.PRODUCTS_IN_CATEGORY, start);
+        }
+    }
+
+    //ends of the price index, O(log n)
+    public Optional<Product> mostExpensiveProduct() {
+        long start = metrics.start(Operation.MOST_EXPENSIVE_PRODUCT);
+        try {
+            return offHeap != null ? offHeap.mostExpensive() : priceIndex.mostExpensive();
+        } finally {
+            metrics.record(Operation.MOST_EXPENSIVE_PRODUCT, start);
+        }
+    }
+
+    public Optional<Product> cheapestProduct() {
+        long start = metrics.start(Operation.CHEAPEST_PRODUCT);
+        try {
+            return offHeap != null ? offHeap.cheapest() : priceIndex.cheapest();
+        } finally {
+            metrics.record(Operation.CHEAPEST_PRODUCT, start);
         }
-        product.price(newPrice);
-        changedProducts.add(id); //track price changes
     }
 
     public List<Perishable> expiredProducts() {
-        return products.values().stream()
-                .filter(p -> p instanceof Perishable)
-                .map(p -> (Perishable) p)
-                .filter(Perishable::isExpired)
-                .collect(Collectors.toList());
+        return expiredProducts(today());
+    }
+
+    //expired as of the given day, answered from the day-bucketed expiration index
+    public List<Perishable> expiredProducts(LocalDate asOf) {
+        long start = metrics.start(Operation.EXPIRED_PRODUCTS);
+        try {
+            long day = asOf.toEpochDay();
+            return offHeap != null ? offHeap.expiredBefore(day) : expirationIndex.expiredBefore(day);
+        } finally {
+            metrics.record(Operation.EXPIRED_PRODUCTS, start);
+        }
+    }
+
+    public int countExpiredProducts(LocalDate asOf) {
+        long start = metrics.start(Operation.COUNT_EXPIRED_PRODUCTS);
+        try {
+            long day = asOf.toEpochDay();
+            return offHeap != null ? offHeap.countExpiredBefore(day) : expirationIndex.countExpiredBefore(day);
+        } finally {
+            metrics.record(Operation.COUNT_EXPIRED_PRODUCTS, start);
+        }
+    }
+
+    //inclusive on both ends
+    public List<Perishable> productsExpiringBetween(LocalDate from, LocalDate to) {
+        long start = metrics.start(Operation.PRODUCTS_EXPIRING_BETWEEN);
+        try {
+            return offHeap != null
+                    ? offHeap.expiringBetween(from.toEpochDay(), to.toEpochDay())
+                    : expirationIndex.expiringBetween(from.toEpochDay(), to.toEpochDay());
+        } finally {
+            metrics.record(Operation.PRODUCTS_EXPIRING_BETWEEN, start);
+        }
+    }
+
+    public List<Product> productsExpiringOn(LocalDate day) {
+        long start = metrics.start(Operation.PRODUCTS_EXPIRING_ON);
+        try {
+            return offHeap != null ? offHeap.expiringOn(day.toEpochDay()) : expirationIndex.expiringOn(day.toEpochDay());
+        } finally {
+            metrics.record(Operation.PRODUCTS_EXPIRING_ON, start);
+        }
+    }
+
+    //case-insensitive substring search, answered from the trigram name index
+    public List<Product> searchByName(String searchTerm) {
+        long start = metrics.start(Operation.SEARCH_BY_NAME);
+        try {
+            return offHeap != null ? offHeap.search(searchTerm) : nameIndex.search(searchTerm);
+        } finally {
+            metrics.record(Operation.SEARCH_BY_NAME, start);
+        }
+    }
+
+    /*
+     * Products matching every condition of the query, found in one pass over the candidates of the
+     * most selective access path the planner sees, see explain. The order is unspecified and, like
+     * the copy-free reads, weakly consistent with concurrent writes.
+     */
+    public List<Product> query(ProductQuery query) {
+        return query(query, Function.identity());
+    }
+
+    //as query(query), mapping each match as it is found
+    public <R> List<R> query(ProductQuery query, Function<? super Product, ? extends R> projection) {
+        long start = metrics.start(Operation.QUERY);
+        try {
+            if (query == null) {
+                throw new IllegalArgumentException("Query cannot be null.");
+            }
+            if (projection == null) {
+                throw new IllegalArgumentException("Projection cannot be null.");
+            }
+            List<R> result = new ArrayList<>();
+            int limit = query.limit();
+            if (limit == 0) return result;
+            for (Product p : planner.plan(query).candidates()) {
+                if (!query.matches(p)) continue;
+                result.add(projection.apply(p));
+                if (result.size() == limit) break;
+            }
+            return result;
+        } finally {
+            metrics.record(Operation.QUERY, start);
+        }
+    }
+
+    //the access path query would take right now; it can change as the catalog does
+    public AccessPath explain(ProductQuery query) {
+        if (query == null) {
+            throw new IllegalArgumentException("Query cannot be null.");
+        }
+        return planner.plan(query).path();
+    }
+
+    /*
+     * Lazy sources behind WarehouseAnalyzer's stream and page variants. On the heap they walk the
+     * price and expiration indexes in key order and a name's narrowest posting list; OFF_HEAP they
+     * scan the records, materializing each one only when the walk reaches it. maxPrice null is open.
+     */
+    Stream<Product> streamPriced(BigDecimal minPrice, boolean minInclusive, BigDecimal maxPrice) {
+        if (offHeap != null) {
+            return stream().filter(p -> inPriceRange(p.price(), minPrice, minInclusive, maxPrice));
+        }
+        long id = minInclusive ? Long.MIN_VALUE : Long.MAX_VALUE;
+        return priceIndex.viewFrom(minPrice, id, id, minInclusive, maxPrice).stream();
+    }
+
+    Stream<Product> streamExpiring(long fromDay, long toDay) {
+        if (offHeap != null) {
+            return stream().filter(p -> p instanceof Perishable per && per.expirationDay() != Perishable.NO_EXPIRY
+                    && per.expirationDay() >= fromDay && per.expirationDay() <= toDay);
+        }
+        return expirationIndex.bucketsBetween(fromDay, toDay).stream().flatMap(Set::stream);
+    }
+
+    Stream<Product> streamNamed(String searchTerm) {
+        String term = NameIndex.normalize(searchTerm);
+        Collection<Product> candidates = offHeap != null ? products.values() : nameIndex.narrowest(term);
+        if (candidates == null) candidates = products.values();
+        return candidates.stream().filter(p -> NameIndex.normalize(p.name()).contains(term));
+    }
+
+    //up to limit products of the range sorting after the key, in Pages.Order.PRICE
+    List<Product> pricedAfter(Pages.Key after, BigDecimal minPrice, boolean minInclusive, BigDecimal maxPrice, int limit) {
+        if (offHeap != null) {
+            return Pages.smallestAfter(streamPriced(minPrice, minInclusive, maxPrice), Pages.Order.PRICE, after, limit);
+        }
+        Stream<Product> priced = after == null
+                ? streamPriced(minPrice, minInclusive, maxPrice)
+                : priceIndex.viewFrom(after.price(), after.msb(), after.lsb(), false, maxPrice).stream();
+        return priced.limit(limit).toList();
+    }
+
+    //in Pages.Order.EXPIRY; on the heap only the buckets from the key's day on are visited, each one selected from
+    List<Product> expiringAfter(Pages.Key after, long fromDay, long toDay, int limit) {
+        if (offHeap != null) {
+            return Pages.smallestAfter(streamExpiring(fromDay, toDay), Pages.Order.EXPIRY, after, limit);
+        }
+        List<Product> result = new ArrayList<>();
+        long first = after == null ? fromDay : Math.max(fromDay, after.day());
+        for (Set<Product> bucket : expirationIndex.bucketsBetween(first, toDay)) {
+            result.addAll(Pages.smallestAfter(bucket.stream(), Pages.Order.EXPIRY, after, limit - result.size()));
+            if (result.size() == limit) break;
+        }
+        return result;
+    }
+
+    //in Pages.Order.ID; on the heap the name index resumes its id-ordered posting list after the key
+    List<Product> namedAfter(Pages.Key after, String searchTerm, int limit) {
+        if (offHeap != null) {
+            return Pages.smallestAfter(streamNamed(searchTerm), Pages.Order.ID, after, limit);
+        }
+        UUID afterId = after == null ? null : new UUID(after.msb(), after.lsb());
+        return nameIndex.containingAfter(NameIndex.normalize(searchTerm), afterId, limit);
+    }
+
+    private static boolean inPriceRange(BigDecimal price, BigDecimal min, boolean minInclusive, BigDecimal max) {
+        if (price == null) return false;
+        int low = price.compareTo(min);
+        return (minInclusive ? low >= 0 : low > 0) && (max == null || price.compareTo(max) <= 0);
     }
 
     public List<Shippable> shippableProducts() {
-        return products.values().stream()
-                .filter(p -> p instanceof Shippable)
-                .map(p -> (Shippable) p)
-                .collect(Collectors.toList());
+        long start = metrics.start(Operation.SHIPPABLE_PRODUCTS);
+        try {
+            return products.values().stream()
+                    .filter(p -> p instanceof Shippable)
+                    .map(p -> (Shippable) p)
+                    .collect(Collectors.toList());
+        } finally {
+            metrics.record(Operation.SHIPPABLE_PRODUCTS, start);
+        }
     }
 
     public void remove(UUID id) {
-        products.remove(id);
-        changedProducts.remove(id);
+        long start = metrics.start(Operation.REMOVE);
+        try {
+            if (id == null) return;
+            ReentrantLock lock = lockFor(id);
+            WriteAheadLog log;
+            long position = 0;
+            lock.lock();
+            try {
+                log = this.log;
+                if (log != null) log.checkWritable();
+                if (delete(id) != null && log != null) position = log.remove(id);
+            } finally {
+                lock.unlock();
+            }
+            commit(log, position);
+        } finally {
+            metrics.record(Operation.REMOVE, start);
+        }
     }
 
+    //takes every stripe, in order, so no writer is midway through an index update
     public void clearProducts() {
+        long start = metrics.start(Operation.CLEAR_PRODUCTS);
+        try {
+            BulkMutationEvent event = BulkMutationEvent.started();
+            WriteAheadLog log;
+            long position = 0;
+            int removed;
+            for (ReentrantLock lock : locks) lock.lock();
+            try {
+                log = this.log;
+                if (log != null) position = log.clear();
+                removed = products.size();
+                wipe();
+            } finally {
+                for (int i = STRIPES - 1; i >= 0; i--) locks[i].unlock();
+            }
+            commit(log, position);
+            event.commit(Operation.CLEAR_PRODUCTS, removed, this);
+        } finally {
+            metrics.record(Operation.CLEAR_PRODUCTS, start);
+        }
+    }
+
+    //the raw mutations, callers hold the product's stripe lock (wipe: all of them)
+    private void insert(Product product) {
+        Product replaced = products.put(product);
+        if (replaced != null) {
+            for (ProductIndex index : indexes) index.removed(replaced);
+        }
+        for (ProductIndex index : indexes) index.added(product);
+        version.incrementAndGet();
+    }
+
+    //none of the ids may be present, callers hold every stripe
+    private void insertAll(List<Product> list) {
+        products.putAll(list);
+        for (ProductIndex index : indexes) index.addedAll(list);
+        version.incrementAndGet();
+    }
+
+    private void reprice(Product product, BigDecimal newPrice) {
+        BigDecimal oldPrice = product.price();
+        product.price(newPrice);
+        products.repriced(product);
+        for (ProductIndex index : indexes) index.priceChanged(product, oldPrice);
+        version.incrementAndGet();
+    }
+
+    private Product delete(UUID id) {
+        Product removed = products.remove(id);
+        if (removed != null) {
+            for (ProductIndex index : indexes) index.removed(removed);
+            version.incrementAndGet();
+        }
+        return removed;
+    }
+
+    private void wipe() {
         products.clear();
-        changedProducts.clear();
+        for (ProductIndex index : indexes) index.cleared();
+        version.incrementAndGet();
+    }
+
+    /*
+     * Persistence mode. If the directory holds a snapshot or log, that state is recovered into
+     * this warehouse, which must be empty; otherwise the current products become the first
+     * snapshot. From then on every add, reprice, removal and clear is appended to the log and
+     * fsynced before the call returns, with concurrent writers sharing one fsync, and a checkpoint
+     * runs in the background each time the log grows by 64 MB. A failed recovery leaves the
+     * warehouse empty.
+     */
+    public void enablePersistence(Path directory) {
+        enablePersistence(directory, WriteAheadLog.DEFAULT_CHECKPOINT_BYTES);
+    }
+
+    void enablePersistence(Path directory, long checkpointBytes) {
+        if (directory == null) {
+            throw new IllegalArgumentException("Directory cannot be null.");
+        }
+        for (ReentrantLock lock : locks) lock.lock();
+        try {
+            if (log != null) {
+                throw new IllegalStateException("Persistence is already enabled.");
+            }
+            boolean recovering = WriteAheadLog.hasState(directory);
+            if (recovering && !products.isEmpty()) {
+                throw new IllegalStateException("Cannot recover into a non-empty warehouse.");
+            }
+            products.values().forEach(ProductCodec::checkSupported);
+            WriteAheadLog opened;
+            try {
+                Recovery recovery = new Recovery();
+                opened = WriteAheadLog.open(directory, checkpointBytes, recovery);
+                recovery.flush();
+            } catch (IOException | RuntimeException e) {
+                if (recovering) wipe();
+                throw e;
+            }
+            if (!recovering && !products.isEmpty()) {
+                opened.writeSnapshot(opened.rotate(), products.values().toArray(new Product[0]));
+            }
+            log = opened;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            for (int i = STRIPES - 1; i >= 0; i--) locks[i].unlock();
+        }
+    }
+
+    //flushes and closes the log; the products stay in memory and later changes are not persisted
+    public void disablePersistence() {
+        checkpointLock.lock();
+        try {
+            WriteAheadLog closing;
+            for (ReentrantLock lock : locks) lock.lock();
+            try {
+                closing = log;
+                log = null;
+            } finally {
+                for (int i = STRIPES - 1; i >= 0; i--) locks[i].unlock();
+            }
+            if (closing != null) closing.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            checkpointLock.unlock();
+        }
+    }
+
+    public boolean isPersistent() {
+        return log != null;
     }
 
+    //writes a snapshot now and drops the log segments it replaces
+    public void checkpoint() {
+        WriteAheadLog log = this.log;
+        if (log == null) {
+            throw new IllegalStateException("Persistence is not enabled.");
+        }
+        checkpoint(log);
+    }
+
+    /*
+     * Stripes are held only to copy the product references and rotate the log; the snapshot is
+     * written after writers have been let go again.
+     */
+    private void checkpoint(WriteAheadLog log) {
+        checkpointLock.lock();
+        try {
+            Product[] copy;
+            long generation;
+            for (ReentrantLock lock : locks) lock.lock();
+            try {
+                if (this.log != log) return;
+                copy = products.values().toArray(new Product[0]);
+                generation = log.rotate();
+            } finally {
+                for (int i = STRIPES - 1; i >= 0; i--) locks[i].unlock();
+            }
+            log.writeSnapshot(generation, copy);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            checkpointLock.unlock();
+        }
+    }
+
+    //waits for the group commit covering position, then checkpoints in the background if the log is due
+    private void commit(WriteAheadLog log, long position) {
+        if (log == null) return;
+        log.sync(position);
+        if (log.checkpointDue() && checkpointScheduled.compareAndSet(false, true)) {
+            Thread.ofPlatform().daemon().name("warehouse-checkpoint").start(() -> {
+                try {
+                    checkpoint(log);
+                } catch (UncheckedIOException e) {
+                    //nobody waits on this thread, so the failure stops the log and the next write reports it
+                    log.fail(e.getCause());
+                } finally {
+                    checkpointScheduled.set(false);
+                }
+            });
+        }
+    }
+
+    /*
+     * Applies recovered records with every stripe held, tolerant of records the snapshot already
+     * reflects. Runs of adds, a whole snapshot in particular, are collected and bulk inserted.
+     */
+    private final class Recovery implements WriteAheadLog.Replay {
+        private final Set<UUID> pending = new HashSet<>();
+        private final List<Product> order = new ArrayList<>();
+
+        @Override
+        public void add(Product product) {
+            if (pending.contains(product.uuid()) || products.containsKey(product.uuid())) {
+                flush();
+                insert(product);
+                return;
+            }
+            pending.add(product.uuid());
+            order.add(product);
+        }
+
+        @Override
+        public void reprice(UUID id, BigDecimal price) {
+            flush();
+            Product product = products.get(id);
+            if (product != null) Warehouse.this.reprice(product, price);
+        }
+
+        @Override
+        public void remove(UUID id) {
+            flush();
+            delete(id);
+        }
+
+        @Override
+        public void clear() {
+            pending.clear();
+            order.clear();
+            wipe();
+        }
+
+        void flush() {
+            if (order.isEmpty()) return;
+            insertAll(order);
+            pending.clear();
+            order.clear();
+        }
+    }
+
+    //copies each category's members, no regrouping of the catalog
     public Map<Category, List<Product>> getProductsGroupedByCategories() {
-        return products.values().stream()
-                .collect(Collectors.groupingBy(Product::category));
+        long start = metrics.start(Operation.PRODUCTS_GROUPED_BY_CATEGORIES);
+        try {
+            return offHeap != null ? offHeap.grouped() : categoryIndex.grouped();
+        } finally {
+            metrics.record(Operation.PRODUCTS_GROUPED_BY_CATEGORIES, start);
+        }
     }
 }
\ No newline at end of file
@@ -3,205 +3,488 @@ package com.example;
 import java.math.BigDecimal;
 import java.math.MathContext;
 import java.math.RoundingMode;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * Analyzer class that provides advanced warehouse operations.
  * Students must implement these methods for the advanced tests to pass.
  */
 class WarehouseAnalyzer {
+    //below this many products a parallel analyzer still runs sequentially, splitting would cost more than it saves
+    static final int DEFAULT_PARALLEL_THRESHOLD = 10_000;
+
     private final Warehouse warehouse;
+    //the warehouse's, so analyzer calls show up beside its own
+    private final WarehouseMetrics metrics;
+    //null when sequential; otherwise full scans over at least parallelThreshold products are split across it
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+    //null unless cached; shared with the parallel and sequential views of a cached analyzer
+    private final ResultCache cache;
 
     public WarehouseAnalyzer(Warehouse warehouse) {
+        this(warehouse, null, DEFAULT_PARALLEL_THRESHOLD, null);
+    }
+
+    private WarehouseAnalyzer(Warehouse warehouse, ForkJoinPool pool, int parallelThreshold, ResultCache cache) {
         this.warehouse = warehouse;
+        this.metrics = warehouse.metrics();
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+        this.cache = cache;
+    }
+
+    //an analyzer over the same warehouse whose scans run on the common pool; analyzer.parallel().x() opts in per call
+    public WarehouseAnalyzer parallel() {
+        return parallel(ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    public WarehouseAnalyzer parallel(ForkJoinPool pool, int parallelThreshold) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool cannot be null.");
+        }
+        if (parallelThreshold < 1) {
+            throw new IllegalArgumentException("Parallel threshold must be positive.");
+        }
+        return new WarehouseAnalyzer(warehouse, pool, parallelThreshold, cache);
+    }
+
+    public WarehouseAnalyzer sequential() {
+        return pool == null ? this : new WarehouseAnalyzer(warehouse, null, DEFAULT_PARALLEL_THRESHOLD, cache);
+    }
+
+    public boolean isParallel() {
+        return pool != null;
+    }
+
+    /*
+     * An analyzer over the same warehouse that memoizes getInventoryStatistics,
+     * validateInventoryConstraints and calculateWeightedAveragePriceByCategory per Warehouse.version(),
+     * so dashboards polling an unchanged catalog get the previous result back. Results are shared
+     * between callers: the averages map comes back unmodifiable. The time to live bounds how long
+     * any result is served, for callers that also want a periodic recompute.
+     */
+    public WarehouseAnalyzer cached() {
+        return cached(ResultCache.DEFAULT_MAX_ENTRIES, ResultCache.DEFAULT_TIME_TO_LIVE);
+    }
+
+    public WarehouseAnalyzer cached(int maxEntries, Duration timeToLive) {
+        return cached(maxEntries, timeToLive, System::nanoTime);
+    }
+
+    //ticker stands in for System.nanoTime in tests
+    WarehouseAnalyzer cached(int maxEntries, Duration timeToLive, LongSupplier ticker) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Cache size must be positive.");
+        }
+        if (timeToLive == null || timeToLive.isNegative() || timeToLive.isZero()) {
+            throw new IllegalArgumentException("Time to live must be positive.");
+        }
+        ResultCache cache = new ResultCache(warehouse::version, metrics, maxEntries, timeToLive, ticker);
+        return new WarehouseAnalyzer(warehouse, pool, parallelThreshold, cache);
+    }
+
+    public WarehouseAnalyzer uncached() {
+        return cache == null ? this : new WarehouseAnalyzer(warehouse, pool, parallelThreshold, null);
+    }
+
+    public boolean isCached() {
+        return cache != null;
+    }
+
+    //per analyzer; the warehouse's MXBean sums hits and misses over all of them
+    ResultCache.Statistics cacheStatistics() {
+        if (cache == null) {
+            throw new IllegalStateException("Analyzer is not cached.");
+        }
+        return cache.statistics();
+    }
+
+    private <T> T memoized(Operation operation, Object argument, Supplier<T> compute) {
+        return cache == null ? compute.get() : cache.get(operation, argument, compute);
+    }
+
+    private boolean splitScan() {
+        return pool != null && warehouse.size() >= parallelThreshold;
+    }
+
+    //parallel streams started inside a pool task run on that pool instead of the common pool
+    private <T> T inPool(Callable<T> task) {
+        return pool.submit(task).join();
     }
 
     public List<Product> findProductsInPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
-        List<Product> result = new ArrayList<>();
-        for (Product p : warehouse.getProducts()) {
-            BigDecimal price = p.price();
-            if (price.compareTo(minPrice) >= 0 && price.compareTo(maxPrice) <= 0) {
-                result.add(p);
-            }
+        long start = metrics.start(Operation.FIND_PRODUCTS_IN_PRICE_RANGE);
+        try {
+            AnalyzerQueryEvent event = AnalyzerQueryEvent.started();
+            List<Product> inRange = warehouse.productsInPriceRange(minPrice, maxPrice);
+            return event.commit(Operation.FIND_PRODUCTS_IN_PRICE_RANGE, warehouse, inRange);
+        } finally {
+            metrics.record(Operation.FIND_PRODUCTS_IN_PRICE_RANGE, start);
         }
-        return result;
     }
 
     public List<Perishable> findProductsExpiringWithinDays(int days) {
-        LocalDate today = LocalDate.now();
-        LocalDate end = today.plusDays(days);
-        List<Perishable> result = new ArrayList<>();
-        for (Product p : warehouse.getProducts()) {
-            if (p instanceof Perishable per) {
-                LocalDate exp = per.expirationDate();
-                if (!exp.isBefore(today) && !exp.isAfter(end)) {
-                    result.add(per);
-                }
-            }
+        return findProductsExpiringWithinDays(days, warehouse.today());
+    }
+
+    public List<Perishable> findProductsExpiringWithinDays(int days, LocalDate today) {
+        long start = metrics.start(Operation.FIND_PRODUCTS_EXPIRING_WITHIN_DAYS);
+        try {
+            AnalyzerQueryEvent event = AnalyzerQueryEvent.started();
+            List<Perishable> expiring = warehouse.productsExpiringBetween(today, today.plusDays(days));
+            return event.commit(Operation.FIND_PRODUCTS_EXPIRING_WITHIN_DAYS, warehouse, expiring);
+        } finally {
+            metrics.record(Operation.FIND_PRODUCTS_EXPIRING_WITHIN_DAYS, start);
         }
-        return result;
     }
 
     public List<Product> searchProductsByName(String searchTerm) {
-        String term = searchTerm.toLowerCase(Locale.ROOT);
-        List<Product> result = new ArrayList<>();
-        for (Product p : warehouse.getProducts()) {
-            if (p.name().toLowerCase(Locale.ROOT).contains(term)) {
-                result.add(p);
-            }
+        long start = metrics.start(Operation.SEARCH_PRODUCTS_BY_NAME);
+        try {
+            AnalyzerQueryEvent event = AnalyzerQueryEvent.started();
+            return event.commit(Operation.SEARCH_PRODUCTS_BY_NAME, warehouse, warehouse.searchByName(searchTerm));
+        } finally {
+            metrics.record(Operation.SEARCH_PRODUCTS_BY_NAME, start);
         }
-        return result;
     }
 
     public List<Product> findProductsAbovePrice(BigDecimal price) {
-        List<Product> result = new ArrayList<>();
-        for (Product p : warehouse.getProducts()) {
-            if (p.price().compareTo(price) > 0) {
-                result.add(p);
-            }
+        long start = metrics.start(Operation.FIND_PRODUCTS_ABOVE_PRICE);
+        try {
+            AnalyzerQueryEvent event = AnalyzerQueryEvent.started();
+            return event.commit(Operation.FIND_PRODUCTS_ABOVE_PRICE, warehouse, warehouse.productsAbovePrice(price));
+        } finally {
+            metrics.record(Operation.FIND_PRODUCTS_ABOVE_PRICE, start);
         }
-        return result;
     }
 
-    public Map<Category, BigDecimal> calculateWeightedAveragePriceByCategory() {
-        Map<Category, List<Product>> byCat = warehouse.getProducts().stream()
-                .collect(Collectors.groupingBy(Product::category));
-        Map<Category, BigDecimal> result = new HashMap<>();
-        for (Map.Entry<Category, List<Product>> e : byCat.entrySet()) {
-            Category cat = e.getKey();
-            List<Product> items = e.getValue();
-            BigDecimal weightedSum = BigDecimal.ZERO;
-            double weightSum = 0.0;
-            for (Product p : items) {
-                if (p instanceof Shippable s) {
-                    double w = Optional.ofNullable(s.weight()).orElse(0.0);
-                    if (w > 0) {
-                        BigDecimal wBD = BigDecimal.valueOf(w);
-                        weightedSum = weightedSum.add(p.price().multiply(wBD));
-                        weightSum += w;
-                    }
-                }
-            }
-            BigDecimal avg;
-            if (weightSum > 0) {
-                avg = weightedSum.divide(BigDecimal.valueOf(weightSum), 2, RoundingMode.HALF_UP);
-            } else {
-                BigDecimal sum = items.stream().map(Product::price).reduce(BigDecimal.ZERO, BigDecimal::add);
-                avg = sum.divide(BigDecimal.valueOf(items.size()), 2, RoundingMode.HALF_UP);
-            }
-            result.put(cat, avg);
+    /*
+     * Lazy variants of the four searches above: nothing is collected up front, products are found
+     * as the stream is consumed, and a short-circuiting terminal operation such as limit or
+     * findFirst stops the walk. The order is unspecified. Streams are weakly consistent with
+     * concurrent writes, like Warehouse.stream().
+     */
+    public Stream<Product> streamProductsInPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        return warehouse.streamPriced(minPrice, true, maxPrice);
+    }
+
+    public Stream<Perishable> streamProductsExpiringWithinDays(int days) {
+        return streamProductsExpiringWithinDays(days, warehouse.today());
+    }
+
+    public Stream<Perishable> streamProductsExpiringWithinDays(int days, LocalDate today) {
+        long first = today.toEpochDay();
+        return warehouse.streamExpiring(first, first + days).map(p -> (Perishable) p);
+    }
+
+    public Stream<Product> streamProductsByName(String searchTerm) {
+        return warehouse.streamNamed(searchTerm);
+    }
+
+    public Stream<Product> streamProductsAbovePrice(BigDecimal price) {
+        return warehouse.streamPriced(price, false, null);
+    }
+
+    /*
+     * Paginated variants: at most pageSize products per call, and pageToken null for the first page
+     * or the previous page's nextToken. Price searches page in price then id order, expiry in
+     * expiration day then id order, and name search in id order. On the heap each page resumes its
+     * index after the token and stops once full: the price index, the expiration buckets, or the
+     * term's id-ordered posting list. OFF_HEAP has no such index, so every page there scans all the
+     * records and keeps the pageSize smallest after the token: O(n) per page, and paging through
+     * all k matches costs O(n * k / pageSize).
+     */
+    public Page<Product> findProductsInPriceRange(BigDecimal minPrice, BigDecimal maxPrice, int pageSize, String pageToken) {
+        long start = metrics.start(Operation.FIND_PRODUCTS_IN_PRICE_RANGE_PAGE);
+        try {
+            AnalyzerQueryEvent event = AnalyzerQueryEvent.started();
+            List<Product> found = warehouse.pricedAfter(Pages.after(Pages.Order.PRICE, pageToken), minPrice, true, maxPrice,
+                    Pages.fetchSize(pageSize));
+            Page<Product> page = Pages.page(found, pageSize, Pages.Order.PRICE, p -> p);
+            return event.commit(Operation.FIND_PRODUCTS_IN_PRICE_RANGE_PAGE, warehouse, page);
+        } finally {
+            metrics.record(Operation.FIND_PRODUCTS_IN_PRICE_RANGE_PAGE, start);
         }
-        return result;
     }
 
-    public List<Product> findPriceOutliers(double deviationFactor) {
-        List<Product> products = warehouse.getProducts();
-        int n = products.size();
-        if (n == 0) return List.of();
+    //pass today explicitly when paging across midnight, the range moves with it
+    public Page<Perishable> findProductsExpiringWithinDays(int days, int pageSize, String pageToken) {
+        return findProductsExpiringWithinDays(days, warehouse.today(), pageSize, pageToken);
+    }
 
-        //sortera priser
-        var sortedProducts = products.stream()
-                .sorted(Comparator.comparing(Product::price))
-                .toList();
+    public Page<Perishable> findProductsExpiringWithinDays(int days, LocalDate today, int pageSize, String pageToken) {
+        long start = metrics.start(Operation.FIND_PRODUCTS_EXPIRING_WITHIN_DAYS_PAGE);
+        try {
+            AnalyzerQueryEvent event = AnalyzerQueryEvent.started();
+            long first = today.toEpochDay();
+            List<Product> found = warehouse.expiringAfter(Pages.after(Pages.Order.EXPIRY, pageToken), first, first + days,
+                    Pages.fetchSize(pageSize));
+            Page<Perishable> page = Pages.page(found, pageSize, Pages.Order.EXPIRY, p -> (Perishable) p);
+            return event.commit(Operation.FIND_PRODUCTS_EXPIRING_WITHIN_DAYS_PAGE, warehouse, page);
+        } finally {
+            metrics.record(Operation.FIND_PRODUCTS_EXPIRING_WITHIN_DAYS_PAGE, start);
+        }
+    }
 
-        //räkna ut vart första och tredje kvartilen ligger
-        int q1Index = n / 4;
-        int q3Index = (3 * n) / 4;
+    public Page<Product> searchProductsByName(String searchTerm, int pageSize, String pageToken) {
+        long start = metrics.start(Operation.SEARCH_PRODUCTS_BY_NAME_PAGE);
+        try {
+            AnalyzerQueryEvent event = AnalyzerQueryEvent.started();
+            List<Product> found = warehouse.namedAfter(Pages.after(Pages.Order.ID, pageToken), searchTerm, Pages.fetchSize(pageSize));
+            Page<Product> page = Pages.page(found, pageSize, Pages.Order.ID, p -> p);
+            return event.commit(Operation.SEARCH_PRODUCTS_BY_NAME_PAGE, warehouse, page);
+        } finally {
+            metrics.record(Operation.SEARCH_PRODUCTS_BY_NAME_PAGE, start);
+        }
+    }
 
-        //priserna på 25% och 75% positionerna
-        BigDecimal q1 = sortedProducts.get(q1Index).price();
-        BigDecimal q3 = sortedProducts.get(q3Index).price();
-        BigDecimal iqr = q3.subtract(q1);
+    public Page<Product> findProductsAbovePrice(BigDecimal price, int pageSize, String pageToken) {
+        long start = metrics.start(Operation.FIND_PRODUCTS_ABOVE_PRICE_PAGE);
+        try {
+            AnalyzerQueryEvent event = AnalyzerQueryEvent.started();
+            List<Product> found = warehouse.pricedAfter(Pages.after(Pages.Order.PRICE, pageToken), price, false, null,
+                    Pages.fetchSize(pageSize));
+            Page<Product> page = Pages.page(found, pageSize, Pages.Order.PRICE, p -> p);
+            return event.commit(Operation.FIND_PRODUCTS_ABOVE_PRICE_PAGE, warehouse, page);
+        } finally {
+            metrics.record(Operation.FIND_PRODUCTS_ABOVE_PRICE_PAGE, start);
+        }
+    }
 
-        //räkna ut när ett pris är för lågt eller högt
-        BigDecimal lowerBound = q1.subtract(iqr.multiply(BigDecimal.valueOf(deviationFactor)));
-        BigDecimal upperBound = q3.add(iqr.multiply(BigDecimal.valueOf(deviationFactor)));
+    //running per-category sums kept by Warehouse, O(categories)
+    public Map<Category, BigDecimal> calculateWeightedAveragePriceByCategory() {
+        long start = metrics.start(Operation.CALCULATE_WEIGHTED_AVERAGE_PRICE_BY_CATEGORY);
+        try {
+            AnalyzerQueryEvent event = AnalyzerQueryEvent.started();
+            Map<Category, BigDecimal> averages = cache == null
+                    ? warehouse.weightedAveragePriceByCategory()
+                    : cache.get(Operation.CALCULATE_WEIGHTED_AVERAGE_PRICE_BY_CATEGORY, null,
+                            () -> Collections.unmodifiableMap(warehouse.weightedAveragePriceByCategory()));
+            return event.commit(Operation.CALCULATE_WEIGHTED_AVERAGE_PRICE_BY_CATEGORY, warehouse, averages);
+        } finally {
+            metrics.record(Operation.CALCULATE_WEIGHTED_AVERAGE_PRICE_BY_CATEGORY, start);
+        }
+    }
 
-        //hitta outliers
-        return sortedProducts.stream()
-                .filter(product -> product.price().compareTo(lowerBound) < 0 ||
-                        product.price().compareTo(upperBound) > 0)
-                .toList();
+    /*
+     * Quartiles come from the warehouse's price distribution and the products outside the bounds
+     * from the price index, so nothing is sorted. In QuantileMode.APPROXIMATE the quartiles, and so
+     * the bounds, carry the sketch's relative error.
+     */
+    public List<Product> findPriceOutliers(double deviationFactor) {
+        long start = metrics.start(Operation.FIND_PRICE_OUTLIERS);
+        try {
+            AnalyzerQueryEvent event = AnalyzerQueryEvent.started();
+            BigDecimal[] bounds = outlierBounds(deviationFactor);
+            if (bounds == null) return event.commit(Operation.FIND_PRICE_OUTLIERS, warehouse, List.of());
+            List<Product> outliers = warehouse.productsBelowPrice(bounds[0]);
+            outliers.addAll(warehouse.productsAbovePrice(bounds[1]));
+            return event.commit(Operation.FIND_PRICE_OUTLIERS, warehouse, outliers);
+        } finally {
+            metrics.record(Operation.FIND_PRICE_OUTLIERS, start);
+        }
+    }
+
+    //constant time in QuantileMode.APPROXIMATE, cheap enough to check on every price update; EXACT walks the price index
+    public boolean isPriceOutlier(Product product, double deviationFactor) {
+        long start = metrics.start(Operation.IS_PRICE_OUTLIER);
+        try {
+            AnalyzerQueryEvent event = AnalyzerQueryEvent.started();
+            BigDecimal[] bounds = outlierBounds(deviationFactor);
+            boolean outlier = bounds != null && product.price() != null
+                    && (product.price().compareTo(bounds[0]) < 0 || product.price().compareTo(bounds[1]) > 0);
+            return event.commit(Operation.IS_PRICE_OUTLIER, warehouse, outlier);
+        } finally {
+            metrics.record(Operation.IS_PRICE_OUTLIER, start);
+        }
+    }
+
+    //Q1 - f * IQR and Q3 + f * IQR, with Q1 and Q3 the prices at ranks n / 4 and 3n / 4; null without prices
+    private BigDecimal[] outlierBounds(double deviationFactor) {
+        List<BigDecimal> quartiles = warehouse.priceQuantiles(0.25, 0.75);
+        if (quartiles.isEmpty()) return null;
+        BigDecimal q1 = quartiles.get(0);
+        BigDecimal q3 = quartiles.get(1);
+        BigDecimal spread = q3.subtract(q1).multiply(BigDecimal.valueOf(deviationFactor));
+        return new BigDecimal[]{q1.subtract(spread), q3.add(spread)};
     }
 
     public List<ShippingGroup> optimizeShippingGroups(BigDecimal maxWeightPerGroup) {
-        double maxW = maxWeightPerGroup.doubleValue();
-        List<Shippable> items = warehouse.shippableProducts();
-        items.sort((a, b) -> Double.compare(Objects.requireNonNullElse(b.weight(), 0.0), Objects.requireNonNullElse(a.weight(), 0.0)));
-        List<List<Shippable>> bins = new ArrayList<>();
-        for (Shippable item : items) {
-            double w = Objects.requireNonNullElse(item.weight(), 0.0);
-            boolean placed = false;
-            for (List<Shippable> bin : bins) {
-                double binWeight = bin.stream().map(Shippable::weight).reduce(0.0, Double::sum);
-                if (binWeight + w <= maxW) {
-                    bin.add(item);
-                    placed = true;
-                    break;
-                }
-            }
-            if (!placed) {
-                List<Shippable> newBin = new ArrayList<>();
-                newBin.add(item);
-                bins.add(newBin);
+        return packShippingGroups(maxWeightPerGroup, PackingStrategy.FIRST_FIT_DECREASING).getGroups();
+    }
+
+    public PackingResult packShippingGroups(BigDecimal maxWeightPerGroup, PackingStrategy strategy) {
+        long start = metrics.start(Operation.PACK_SHIPPING_GROUPS);
+        try {
+            ShippingOptimizationEvent event = ShippingOptimizationEvent.started();
+            double maxW = maxWeightPerGroup.doubleValue();
+            List<Shippable> shippables = warehouse.shippableProducts();
+            List<ShippingGroup> groups = new ArrayList<>();
+            for (List<Shippable> bin : BinPacker.pack(shippables, maxW, strategy)) {
+                groups.add(new ShippingGroup(bin));
             }
+            return event.commit(new PackingResult(strategy, groups, maxW), maxW, shippables.size());
+        } finally {
+            metrics.record(Operation.PACK_SHIPPING_GROUPS, start);
         }
-        List<ShippingGroup> groups = new ArrayList<>();
-        for (List<Shippable> bin : bins) groups.add(new ShippingGroup(bin));
-        return groups;
     }
 
     public Map<Product, BigDecimal> calculateExpirationBasedDiscounts() {
-        Map<Product, BigDecimal> result = new HashMap<>();
-        LocalDate today = LocalDate.now();
-        for (Product p : warehouse.getProducts()) {
-            BigDecimal discounted = p.price();
-            if (p instanceof Perishable per) {
-                LocalDate exp = per.expirationDate();
-                long daysBetween = java.time.temporal.ChronoUnit.DAYS.between(today, exp);
-                if (daysBetween == 0) {
-                    discounted = p.price().multiply(new BigDecimal("0.50"));
-                } else if (daysBetween == 1) {
-                    discounted = p.price().multiply(new BigDecimal("0.70"));
-                } else if (daysBetween > 1 && daysBetween <= 3) {
-                    discounted = p.price().multiply(new BigDecimal("0.85"));
-                } else {
-                    discounted = p.price();
-                }
-                discounted = discounted.setScale(2, RoundingMode.HALF_UP);
+        return calculateExpirationBasedDiscounts(warehouse.today());
+    }
+
+    //discounts as of the given day, so a report can be reproduced or priced ahead
+    public Map<Product, BigDecimal> calculateExpirationBasedDiscounts(LocalDate today) {
+        long start = metrics.start(Operation.CALCULATE_EXPIRATION_BASED_DISCOUNTS);
+        try {
+            AnalyzerQueryEvent event = AnalyzerQueryEvent.started();
+            return event.commit(Operation.CALCULATE_EXPIRATION_BASED_DISCOUNTS, warehouse, discountsAsOf(today));
+        } finally {
+            metrics.record(Operation.CALCULATE_EXPIRATION_BASED_DISCOUNTS, start);
+        }
+    }
+
+    private Map<Product, BigDecimal> discountsAsOf(LocalDate today) {
+        if (splitScan()) {
+            //prices are worked out in parallel; the map is filled by one thread, merging partial maps costs more than it saves
+            long day = today.toEpochDay();
+            Product[] products = inPool(() -> warehouse.stream().parallel().toArray(Product[]::new));
+            BigDecimal[] prices = new BigDecimal[products.length];
+            inPool(() -> {
+                IntStream.range(0, products.length).parallel().forEach(i -> prices[i] = discountedFor(products[i], day));
+                return null;
+            });
+            Map<Product, BigDecimal> result = HashMap.newHashMap(products.length);
+            for (int i = 0; i < products.length; i++) {
+                result.put(products[i], prices[i]);
             }
-            result.put(p, discounted);
+            return result;
+        }
+        if (warehouse.offHeapStore() != null) {
+            //each read hands out new copies, so a bucket's products would not replace the scan's; price each copy once
+            long day = today.toEpochDay();
+            Map<Product, BigDecimal> result = HashMap.newHashMap(warehouse.size());
+            for (Product p : warehouse.productsView()) {
+                result.put(p, discountedFor(p, day));
+            }
+            return result;
+        }
+        Map<Product, BigDecimal> result = new HashMap<>();
+        //every product keeps its price, perishables rounded to cents
+        for (Product p : warehouse.productsView()) {
+            result.put(p, p instanceof Perishable ? discounted(p, 100) : p.price());
         }
+        //only the buckets expiring today to three days out get a discount
+        applyDiscount(result, warehouse.productsExpiringOn(today), 50);
+        applyDiscount(result, warehouse.productsExpiringOn(today.plusDays(1)), 70);
+        applyDiscount(result, warehouse.productsExpiringOn(today.plusDays(2)), 85);
+        applyDiscount(result, warehouse.productsExpiringOn(today.plusDays(3)), 85);
         return result;
     }
 
+    //the same percentages the sequential path applies bucket by bucket, worked out per product
+    private static BigDecimal discountedFor(Product p, long today) {
+        if (!(p instanceof Perishable per)) return p.price();
+        long expires = per.expirationDay();
+        if (expires == Perishable.NO_EXPIRY) return discounted(p, 100);
+        long days = expires - today;
+        int percent = days == 0 ? 50 : days == 1 ? 70 : days == 2 || days == 3 ? 85 : 100;
+        return discounted(p, percent);
+    }
+
+    private static void applyDiscount(Map<Product, BigDecimal> result, List<Product> products, int percent) {
+        for (Product p : products) {
+            result.put(p, discounted(p, percent));
+        }
+    }
+
+    //percent of the price rounded HALF_UP to cents, in fixed point when the price is whole cents
+    private static BigDecimal discounted(Product p, int percent) {
+        long cents = FixedPoint.percentOfHalfUp(p.priceCents(), percent);
+        if (cents != FixedPoint.INEXACT) {
+            return FixedPoint.centsToBigDecimal(cents);
+        }
+        return p.price().multiply(BigDecimal.valueOf(percent, 2)).setScale(2, RoundingMode.HALF_UP);
+    }
+
     public InventoryValidation validateInventoryConstraints() {
-        List<Product> items = warehouse.getProducts();
-        if (items.isEmpty()) return new InventoryValidation(0.0, 0);
+        long start = metrics.start(Operation.VALIDATE_INVENTORY_CONSTRAINTS);
+        try {
+            AnalyzerQueryEvent event = AnalyzerQueryEvent.started();
+            InventoryValidation validation = memoized(Operation.VALIDATE_INVENTORY_CONSTRAINTS, null, this::validate);
+            return event.commit(Operation.VALIDATE_INVENTORY_CONSTRAINTS, warehouse, validation);
+        } finally {
+            metrics.record(Operation.VALIDATE_INVENTORY_CONSTRAINTS, start);
+        }
+    }
+
+    private InventoryValidation validate() {
         BigDecimal highValueThreshold = new BigDecimal("1000");
-        long highValueCount = items.stream().filter(p -> p.price().compareTo(highValueThreshold) >= 0).count();
-        double percentage = (highValueCount * 100.0) / items.size();
-        int diversity = (int) items.stream().map(Product::category).distinct().count();
-        return new InventoryValidation(percentage, diversity);
+        long highValueCents = 100_000;
+        OffHeapStore records = warehouse.offHeapStore();
+        if (records != null) {
+            int size = records.size();
+            if (size == 0) return new InventoryValidation(0.0, 0);
+            double percentage = (records.countPriceAtLeast(highValueThreshold) * 100.0) / size;
+            return new InventoryValidation(percentage, warehouse.categoryCount());
+        }
+        if (splitScan()) {
+            //count and sum of 0/1 flags give the total and the high-value count from a single pass
+            IntSummaryStatistics counts = inPool(() -> warehouse.stream().parallel()
+                    .mapToInt(p -> isHighValue(p, highValueCents, highValueThreshold) ? 1 : 0)
+                    .summaryStatistics());
+            if (counts.getCount() == 0) return new InventoryValidation(0.0, 0);
+            return new InventoryValidation((counts.getSum() * 100.0) / counts.getCount(), warehouse.categoryCount());
+        }
+        int total = 0;
+        int highValueCount = 0;
+        for (Product p : warehouse.productsView()) {
+            total++;
+            if (isHighValue(p, highValueCents, highValueThreshold)) highValueCount++;
+        }
+        if (total == 0) return new InventoryValidation(0.0, 0);
+        double percentage = (highValueCount * 100.0) / total;
+        return new InventoryValidation(percentage, warehouse.categoryCount());
     }
 
+    private static boolean isHighValue(Product p, long thresholdCents, BigDecimal threshold) {
+        long cents = p.priceCents();
+        return cents != FixedPoint.INEXACT ? cents >= thresholdCents : p.price().compareTo(threshold) >= 0;
+    }
+
+    //served from Warehouse's running aggregates and indexes, independent of catalog size
     public InventoryStatistics getInventoryStatistics() {
-        List<Product> items = warehouse.getProducts();
-        int totalProducts = items.size();
-        BigDecimal totalValue = items.stream().map(Product::price).reduce(BigDecimal.ZERO, BigDecimal::add);
-        BigDecimal averagePrice = totalProducts == 0 ? BigDecimal.ZERO : totalValue.divide(BigDecimal.valueOf(totalProducts), 2, RoundingMode.HALF_UP);
-        int expiredCount = 0;
-        for (Product p : items) {
-            if (p instanceof Perishable per && per.expirationDate().isBefore(LocalDate.now())) {
-                expiredCount++;
-            }
+        return getInventoryStatistics(warehouse.today());
+    }
+
+    //expired count as of the given day
+    public InventoryStatistics getInventoryStatistics(LocalDate asOf) {
+        long start = metrics.start(Operation.GET_INVENTORY_STATISTICS);
+        try {
+            AnalyzerQueryEvent event = AnalyzerQueryEvent.started();
+            InventoryStatistics statistics = memoized(Operation.GET_INVENTORY_STATISTICS, asOf, () -> statisticsAsOf(asOf));
+            return event.commit(Operation.GET_INVENTORY_STATISTICS, warehouse, statistics);
+        } finally {
+            metrics.record(Operation.GET_INVENTORY_STATISTICS, start);
         }
-        int categoryCount = (int) items.stream().map(Product::category).distinct().count();
-        Product mostExpensive = items.stream().max(Comparator.comparing(Product::price)).orElse(null);
-        Product cheapest = items.stream().min(Comparator.comparing(Product::price)).orElse(null);
-        return new InventoryStatistics(totalProducts, totalValue, averagePrice, expiredCount, categoryCount, mostExpensive, cheapest);
+    }
+
+    private InventoryStatistics statisticsAsOf(LocalDate asOf) {
+        int totalProducts = warehouse.size();
+        BigDecimal totalValue = warehouse.totalValue();
+        BigDecimal averagePrice = totalProducts == 0 ? BigDecimal.ZERO : totalValue.divide(BigDecimal.valueOf(totalProducts), 2, RoundingMode.HALF_UP);
+        int expiredCount = warehouse.countExpiredProducts(asOf);
+        return new InventoryStatistics(totalProducts, totalValue, averagePrice, expiredCount, warehouse.categoryCount(),
+                warehouse.mostExpensiveProduct().orElse(null), warehouse.cheapestProduct().orElse(null));
     }
 }
 
@@ -225,6 +508,35 @@ class ShippingGroup {
     public BigDecimal getTotalShippingCost() { return totalShippingCost; }
 }
 
+class PackingResult {
+    private final PackingStrategy strategy;
+    private final List<ShippingGroup> groups;
+    private final double maxWeightPerGroup;
+    private final double totalWeight;
+    private final int lowerBound;
+    private final double fillRatio;
+
+    public PackingResult(PackingStrategy strategy, List<ShippingGroup> groups, double maxWeightPerGroup) {
+        this.strategy = strategy;
+        this.groups = new ArrayList<>(groups);
+        this.maxWeightPerGroup = maxWeightPerGroup;
+        this.totalWeight = groups.stream()
+                .mapToDouble(ShippingGroup::getTotalWeight)
+                .sum();
+        //no packing can use fewer groups than the total weight divided by the group limit
+        this.lowerBound = groups.isEmpty() ? 0 : (int) Math.ceil(totalWeight / maxWeightPerGroup);
+        this.fillRatio = groups.isEmpty() ? 0.0 : totalWeight / (groups.size() * maxWeightPerGroup);
+    }
+
+    public PackingStrategy getStrategy() { return strategy; }
+    public List<ShippingGroup> getGroups() { return new ArrayList<>(groups); }
+    public int getGroupCount() { return groups.size(); }
+    public double getTotalWeight() { return totalWeight; }
+    public int getLowerBound() { return lowerBound; }
+    public double getFillRatio() { return fillRatio; }
+    public double getUnusedCapacity() { return groups.size() * maxWeightPerGroup - totalWeight; }
+}
+
 class InventoryValidation {
     private final double highValuePercentage;
     private final int categoryDiversity;
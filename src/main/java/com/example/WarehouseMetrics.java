@@ -0,0 +1,160 @@
+package com.example;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-warehouse call counts and latency histograms, published as a WarehouseMetricsMXBean. Timed
+ * calls take start() on entry and pass it to record() on exit. Each timing costs two clock reads,
+ * which for a sub-microsecond lookup is more than the lookup itself, so sampled operations read
+ * the clock on a random one in SAMPLE_EVERY calls and only count the others; their percentiles come
+ * from that sample. ENABLED is read once, from the warehouse.metrics system property (off unless
+ * "true"). Even sampled, the extra code keeps the cheapest lookups from inlining into their callers
+ * and roughly doubles getProductById, so it is opt-in; being a static final constant it lets the JIT
+ * drop both calls entirely when off, and then nothing is allocated or registered either.
+ */
+final class WarehouseMetrics implements WarehouseMetricsMXBean {
+    static final boolean ENABLED = Boolean.getBoolean("warehouse.metrics");
+
+    static final int SAMPLE_EVERY = 16;
+    //start() of a call that is counted but not timed
+    private static final long UNTIMED = Long.MIN_VALUE;
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    private final Storage storage;
+    private final IntSupplier productCount;
+    private final IntSupplier categoryCount;
+    private final LongSupplier nativeBytes;
+    //both indexed by Operation ordinal, null when switched off
+    private final LatencyHistogram[] histograms;
+    private final AtomicLongArray untimedCalls;
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    WarehouseMetrics(Storage storage, IntSupplier productCount, IntSupplier categoryCount, LongSupplier nativeBytes) {
+        this.storage = storage;
+        this.productCount = productCount;
+        this.categoryCount = categoryCount;
+        this.nativeBytes = nativeBytes;
+        if (ENABLED) {
+            histograms = new LatencyHistogram[OPERATIONS.length];
+            for (int i = 0; i < OPERATIONS.length; i++) histograms[i] = new LatencyHistogram();
+            untimedCalls = new AtomicLongArray(OPERATIONS.length);
+        } else {
+            histograms = null;
+            untimedCalls = null;
+        }
+    }
+
+    long start(Operation operation) {
+        if (!ENABLED) return 0;
+        if (operation.sampled() && ThreadLocalRandom.current().nextInt(SAMPLE_EVERY) != 0) return UNTIMED;
+        return System.nanoTime();
+    }
+
+    //also called when the operation threw, its time counts all the same
+    void record(Operation operation, long start) {
+        if (!ENABLED) return;
+        if (start == UNTIMED) {
+            untimedCalls.incrementAndGet(operation.ordinal());
+        } else {
+            histograms[operation.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    void cacheHit() {
+        if (ENABLED) cacheHits.increment();
+    }
+
+    void cacheMiss() {
+        if (ENABLED) cacheMisses.increment();
+    }
+
+    static ObjectName objectName(String warehouseName) {
+        try {
+            return new ObjectName("com.example:type=Warehouse,name=" + ObjectName.quote(warehouseName));
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /*
+     * Publishes this bean under the warehouse's name. Warehouses live as long as the JVM, so it is
+     * never unregistered; a name already taken, say by a copy of this class in another class
+     * loader, leaves that bean in place.
+     */
+    void register(String warehouseName) {
+        if (!ENABLED) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName(warehouseName));
+        } catch (InstanceAlreadyExistsException e) {
+            //keep the existing bean
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public String getStorage() {
+        return storage.name();
+    }
+
+    @Override
+    public int getProductCount() {
+        return productCount.getAsInt();
+    }
+
+    @Override
+    public int getCategoryCount() {
+        return categoryCount.getAsInt();
+    }
+
+    @Override
+    public long getNativeBytes() {
+        return nativeBytes.getAsLong();
+    }
+
+    @Override
+    public Map<String, OperationStatistics> getOperations() {
+        Map<String, OperationStatistics> result = new LinkedHashMap<>();
+        for (Operation operation : OPERATIONS) result.put(operation.label(), statistics(operation));
+        return result;
+    }
+
+    @Override
+    public long getAnalyzerCacheHits() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long getAnalyzerCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    OperationStatistics statistics(Operation operation) {
+        if (!ENABLED) return new OperationStatistics(0, 0, 0, 0, 0);
+        LatencyHistogram.Snapshot s = histograms[operation.ordinal()].snapshot(0.5, 0.99, 0.999);
+        long count = s.count() + untimedCalls.get(operation.ordinal());
+        return new OperationStatistics(count, s.values()[0], s.values()[1], s.values()[2], s.max());
+    }
+
+    @Override
+    public void reset() {
+        if (!ENABLED) return;
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            histograms[i].reset();
+            untimedCalls.set(i, 0);
+        }
+        cacheHits.reset();
+        cacheMisses.reset();
+    }
+}
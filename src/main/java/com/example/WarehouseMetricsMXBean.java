@@ -0,0 +1,38 @@
+package com.example;
+
+import java.util.Map;
+
+/**
+ * What a Warehouse publishes on the platform MBean server, as com.example:type=Warehouse,name="name":
+ * catalog size gauges and, per timed call, how often it ran and its latency percentiles. Not
+ * registered when metrics are switched off, see WarehouseMetrics.
+ */
+public interface WarehouseMetricsMXBean {
+
+    String getStorage();
+
+    int getProductCount();
+
+    int getCategoryCount();
+
+    //records, id table and names of an OFF_HEAP warehouse; 0 for HEAP
+    long getNativeBytes();
+
+    //keyed "Warehouse.addProduct", "WarehouseAnalyzer.findPriceOutliers" and so on, in a fixed order
+    Map<String, OperationStatistics> getOperations();
+
+    //lookups in the result caches of cached WarehouseAnalyzers over this warehouse, all of them together
+    long getAnalyzerCacheHits();
+
+    long getAnalyzerCacheMisses();
+
+    //zeroes every counter, the gauges are live and unaffected
+    void reset();
+
+    /*
+     * Calls since start or the last reset, and latencies in nanoseconds. Percentiles and max are
+     * the upper edges of their histogram buckets, at most 12.5% above the latencies they stand for.
+     */
+    record OperationStatistics(long count, long p50Nanos, long p99Nanos, long p999Nanos, long maxNanos) {
+    }
+}
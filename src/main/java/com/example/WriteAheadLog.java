@@ -0,0 +1,416 @@
+package com.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Durable storage for one Warehouse directory: a snapshot plus numbered log segments holding every
+ * mutation since it. Appends only copy a framed record into an in-memory buffer; sync then makes
+ * it durable with group commit, where one caller writes and fsyncs everything appended so far while
+ * the others wait on the flush lock and usually find their record already covered.
+ *
+ * <p>A bulk load is bracketed by begin and commit records, and replay applies its adds only once it
+ * reaches the commit. A load that was partly written out before a crash or a failed write is
+ * dropped whole, as the Warehouse never applied it.
+ *
+ * <p>The snapshot names the first segment to replay. A checkpoint rotates to a new segment under
+ * the Warehouse's stripe locks, writes the snapshot outside them, and then drops older segments.
+ *
+ * <p>The log is fail-stop: once writing or forcing a segment fails, nothing of the buffers is known
+ * to be on disk any more, so every later append and sync throws and the Warehouse refuses further
+ * changes. The change whose sync failed has already been applied in memory, which is then ahead of
+ * the log until persistence is disabled and re-enabled.
+ */
+final class WriteAheadLog implements Closeable {
+    static final long DEFAULT_CHECKPOINT_BYTES = 64L << 20;
+    //a bulk append writes out whenever this much is pending
+    private static final long BULK_FLUSH_BYTES = 8L << 20;
+
+    private static final String SNAPSHOT = "snapshot.bin";
+    private static final String SNAPSHOT_TEMP = "snapshot.tmp";
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int SNAPSHOT_MAGIC = 0x57485331;
+
+    private static final byte ADD = 1;
+    private static final byte REPRICE = 2;
+    private static final byte REMOVE = 3;
+    private static final byte CLEAR = 4;
+    private static final byte BULK_BEGIN = 5;
+    private static final byte BULK_COMMIT = 6;
+
+    //receives recovered state, in log order
+    interface Replay {
+        void add(Product product);
+
+        void reprice(UUID id, BigDecimal price);
+
+        void remove(UUID id);
+
+        void clear();
+    }
+
+    @FunctionalInterface
+    private interface Body {
+        void write(ByteBuffer out);
+    }
+
+    private final Path directory;
+    private final long checkpointBytes;
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    //guarded by this; interns categories per segment
+    private final ProductCodec.Encoder encoder = new ProductCodec.Encoder();
+    private ByteBuffer pending = ByteBuffer.allocate(1 << 16);
+    private long appended;
+    private long checkpointedAt;
+
+    //guarded by flushLock
+    private ByteBuffer flushing = ByteBuffer.allocate(1 << 16);
+    private FileChannel segment;
+    private long generation;
+
+    private volatile long durable;
+    //the first write or force that failed, after which the log is closed to changes
+    private volatile IOException failure;
+
+    private WriteAheadLog(Path directory, long checkpointBytes) {
+        this.directory = directory;
+        this.checkpointBytes = checkpointBytes;
+    }
+
+    //true if the directory holds a snapshot or a non-empty log segment
+    static boolean hasState(Path directory) throws IOException {
+        if (Files.exists(directory.resolve(SNAPSHOT))) return true;
+        if (!Files.isDirectory(directory)) return false;
+        for (long g : segmentGenerations(directory)) {
+            if (Files.size(segmentPath(directory, g)) > 0) return true;
+        }
+        return false;
+    }
+
+    /*
+     * Loads the snapshot, replays the segments after it and starts a new segment for appends, since
+     * every segment interns its categories from scratch. A torn record at the end of the last
+     * segment is the remains of an append that never returned, so it is cut off; damage anywhere
+     * else is reported.
+     */
+    static WriteAheadLog open(Path directory, long checkpointBytes, Replay replay) throws IOException {
+        Files.createDirectories(directory);
+        Files.deleteIfExists(directory.resolve(SNAPSHOT_TEMP));
+        WriteAheadLog log = new WriteAheadLog(directory, checkpointBytes);
+        Path snapshot = directory.resolve(SNAPSHOT);
+        long first = Files.exists(snapshot) ? readSnapshot(snapshot, replay) : 1;
+        List<Long> generations = segmentGenerations(directory);
+        long next = first;
+        for (int i = 0; i < generations.size(); i++) {
+            long g = generations.get(i);
+            if (g < first) {
+                Files.delete(segmentPath(directory, g));
+                continue;
+            }
+            replaySegment(segmentPath(directory, g), replay, i == generations.size() - 1);
+            next = g + 1;
+        }
+        log.generation = next;
+        log.segment = openSegment(directory, next);
+        return log;
+    }
+
+    synchronized long add(Product product) {
+        ProductCodec.checkSupported(product);
+        return append(ADD, out -> encoder.encode(product, out));
+    }
+
+    /*
+     * Checks every product before appending any, then writes out as it goes so a large load stays
+     * bounded in memory. The adds sit between a begin and a commit record, so the parts written out
+     * early count only once the commit is synced too.
+     */
+    long addAll(List<Product> products) {
+        for (Product p : products) ProductCodec.checkSupported(p);
+        long position = mark(BULK_BEGIN);
+        for (Product p : products) {
+            position = add(p);
+            if (position - durable >= BULK_FLUSH_BYTES) sync(position);
+        }
+        return mark(BULK_COMMIT);
+    }
+
+    synchronized long reprice(UUID id, BigDecimal price) {
+        return append(REPRICE, out -> {
+            ProductCodec.writeUuid(out, id);
+            ProductCodec.writeDecimal(out, price);
+        });
+    }
+
+    synchronized long remove(UUID id) {
+        return append(REMOVE, out -> ProductCodec.writeUuid(out, id));
+    }
+
+    synchronized long clear() {
+        return mark(CLEAR);
+    }
+
+    //a record that is its op alone
+    private synchronized long mark(byte op) {
+        return append(op, out -> { });
+    }
+
+    //returns the log position just past the new record
+    private long append(byte op, Body body) {
+        checkWritable();
+        int start = pending.position();
+        if (pending.capacity() - start < 64) pending = RecordFormat.grow(pending, 64);
+        while (true) {
+            try {
+                pending.position(start + RecordFormat.FRAME_HEADER);
+                pending.put(op);
+                body.write(pending);
+                RecordFormat.seal(pending, start);
+                appended += pending.position() - start;
+                return appended;
+            } catch (BufferOverflowException e) {
+                pending.position(start);
+                pending = RecordFormat.grow(pending, 0);
+            }
+        }
+    }
+
+    //returns once everything up to position is on disk
+    void sync(long position) {
+        if (durable >= position) return;
+        flushLock.lock();
+        try {
+            if (durable >= position) return;
+            checkWritable();
+            flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    //caller holds flushLock; appends continue into the other buffer meanwhile
+    private void flush() throws IOException {
+        long end;
+        synchronized (this) {
+            ByteBuffer full = pending;
+            pending = flushing;
+            flushing = full;
+            end = appended;
+        }
+        if (failure != null) throw new IOException("Write-ahead log failed earlier.", failure);
+        try {
+            flushing.flip();
+            while (flushing.hasRemaining()) segment.write(flushing);
+            flushing.clear();
+            segment.force(false);
+        } catch (IOException e) {
+            failure = e;
+            throw e;
+        }
+        durable = end;
+    }
+
+    //for failures outside the log's own writes, a background checkpoint's in particular; the first one sticks
+    synchronized void fail(IOException e) {
+        if (failure == null) failure = e;
+    }
+
+    //for changes applied in memory before they are appended, so a failed log refuses them up front
+    void checkWritable() {
+        IOException failure = this.failure;
+        if (failure != null) {
+            throw new UncheckedIOException("Write-ahead log failed, it accepts no more changes.", failure);
+        }
+    }
+
+    synchronized boolean checkpointDue() {
+        return appended - checkpointedAt >= checkpointBytes;
+    }
+
+    //caller must keep appends out, the Warehouse holds every stripe; returns the new segment's generation
+    long rotate() throws IOException {
+        flushLock.lock();
+        try {
+            flush();
+            segment.close();
+            generation++;
+            segment = openSegment(directory, generation);
+            synchronized (this) {
+                checkpointedAt = appended;
+                encoder.reset();
+            }
+            return generation;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /*
+     * Writes products as the snapshot replayed before segment generation, then deletes the segments
+     * it covers. The products may carry prices newer than the rotation; replaying the log sets
+     * absolute prices, so recovery still converges on the latest state.
+     */
+    void writeSnapshot(long generation, Product[] products) throws IOException {
+        Path temp = directory.resolve(SNAPSHOT_TEMP);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            RecordFile.Writer writer = new RecordFile.Writer(channel);
+            ProductCodec.Encoder encoder = new ProductCodec.Encoder();
+            ByteBuffer record = ByteBuffer.allocate(1 << 12);
+            record.position(RecordFormat.FRAME_HEADER);
+            record.putInt(SNAPSHOT_MAGIC).putLong(generation).putLong(products.length);
+            RecordFormat.seal(record, 0);
+            writer.write(record.flip());
+            for (Product p : products) {
+                while (true) {
+                    try {
+                        record.clear().position(RecordFormat.FRAME_HEADER);
+                        encoder.encode(p, record);
+                        break;
+                    } catch (BufferOverflowException e) {
+                        record = ByteBuffer.allocate(record.capacity() * 2);
+                    }
+                }
+                RecordFormat.seal(record, 0);
+                writer.write(record.flip());
+            }
+            writer.finish();
+        }
+        Files.move(temp, directory.resolve(SNAPSHOT), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory(directory);
+        for (long g : segmentGenerations(directory)) {
+            if (g < generation) Files.delete(segmentPath(directory, g));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flushLock.lock();
+        try {
+            if (!segment.isOpen()) return;
+            //a failed log has nothing it could still make durable, the failure was reported when it happened
+            if (failure == null) flush();
+            segment.close();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    //makes a rename or a new file's entry durable; not every platform can open a directory, and there it is skipped
+    private static void syncDirectory(Path directory) {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static long readSnapshot(Path snapshot, Replay replay) throws IOException {
+        long[] header = new long[3];
+        ProductCodec.Decoder decoder = new ProductCodec.Decoder();
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            long end = RecordFile.read(channel, 0, payload -> {
+                if (header[2]++ == 0) {
+                    if (payload.getInt() != SNAPSHOT_MAGIC) throw new IllegalStateException("Not a warehouse snapshot: " + snapshot);
+                    header[0] = payload.getLong();
+                    header[1] = payload.getLong();
+                } else {
+                    replay.add(decoder.decode(payload));
+                }
+            });
+            if (header[2] == 0 || end != channel.size() || header[2] - 1 != header[1]) {
+                throw new IOException("Corrupt warehouse snapshot " + snapshot);
+            }
+        }
+        return header[0];
+    }
+
+    private static void replaySegment(Path path, Replay replay, boolean last) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long end = RecordFile.read(channel, 0, new SegmentReplay(replay));
+            if (end == channel.size()) return;
+            if (!last) throw new IOException("Corrupt write-ahead log segment " + path);
+            channel.truncate(end);
+            channel.force(true);
+        }
+    }
+
+    /*
+     * Applies one segment's records in order, holding back the adds of a bulk load until its commit.
+     * A load still open when the segment ends, or when any other record follows, never committed.
+     */
+    private static final class SegmentReplay implements Consumer<ByteBuffer> {
+        private final ProductCodec.Decoder decoder = new ProductCodec.Decoder();
+        private final Replay replay;
+        //null outside a bulk load
+        private List<Product> bulk;
+
+        SegmentReplay(Replay replay) {
+            this.replay = replay;
+        }
+
+        @Override
+        public void accept(ByteBuffer payload) {
+            byte op = payload.get();
+            if (bulk != null && op != ADD && op != BULK_COMMIT) bulk = null;
+            switch (op) {
+                case ADD -> {
+                    Product product = decoder.decode(payload);
+                    if (bulk != null) bulk.add(product);
+                    else replay.add(product);
+                }
+                case REPRICE -> replay.reprice(ProductCodec.readUuid(payload), ProductCodec.readDecimal(payload));
+                case REMOVE -> replay.remove(ProductCodec.readUuid(payload));
+                case CLEAR -> replay.clear();
+                case BULK_BEGIN -> bulk = new ArrayList<>();
+                case BULK_COMMIT -> {
+                    if (bulk == null) throw new IllegalStateException("Bulk load commit without its begin record.");
+                    for (Product p : bulk) replay.add(p);
+                    bulk = null;
+                }
+                default -> throw new IllegalStateException("Unknown log record type " + op + ".");
+            }
+        }
+    }
+
+    //records forced into the segment are only recoverable once its directory entry is durable too
+    private static FileChannel openSegment(Path directory, long generation) throws IOException {
+        FileChannel channel = FileChannel.open(segmentPath(directory, generation), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        syncDirectory(directory);
+        return channel;
+    }
+
+    private static Path segmentPath(Path directory, long generation) {
+        return directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, generation, SEGMENT_SUFFIX));
+    }
+
+    private static List<Long> segmentGenerations(Path directory) throws IOException {
+        List<Long> generations = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(f -> f.getFileName().toString())
+                    .filter(n -> n.startsWith(SEGMENT_PREFIX) && n.endsWith(SEGMENT_SUFFIX))
+                    .forEach(n -> generations.add(Long.parseLong(n, SEGMENT_PREFIX.length(), n.length() - SEGMENT_SUFFIX.length(), 10)));
+        }
+        generations.sort(null);
+        return generations;
+    }
+}
@@ -331,6 +331,24 @@ class BasicTest {
                         .isInstanceOf(NoSuchElementException.class)
                         .hasMessageContaining("Product not found with id:");
             }
+
+            @Test
+            @DisplayName("❓ should treat a null ID as a product that does not exist")
+            void should_treatNullIdAsNonExistent() {
+                // Arrange
+                Product milk = new FoodProduct(UUID.randomUUID(), "Milk", Category.of("Dairy"), new BigDecimal("15.50"), LocalDate.of(2025, 12, 24), new BigDecimal("1.0"));
+                warehouse.addProduct(milk);
+
+                // Act
+                warehouse.remove(null);
+
+                // Assert
+                assertThat(warehouse.getProductById(null)).isEmpty();
+                assertThat(warehouse.getProducts()).containsExactly(milk);
+                assertThatThrownBy(() -> warehouse.updateProductPrice(null, new BigDecimal("99.99")))
+                        .isInstanceOf(NoSuchElementException.class)
+                        .hasMessageContaining("Product not found with id:");
+            }
         }
 
         @Nested
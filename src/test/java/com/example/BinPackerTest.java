@@ -0,0 +1,154 @@
+package com.example;
+
+import org.junit.jupiter.api.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the shipping bin packer behind {@link WarehouseAnalyzer#optimizeShippingGroups}.
+ */
+@DisplayName("Shipping bin packer")
+class BinPackerTest {
+
+    private record Parcel(double weight) implements Shippable {
+        @Override
+        public BigDecimal calculateShippingCost() {
+            return BigDecimal.ONE;
+        }
+    }
+
+    private static List<Shippable> parcels(double... weights) {
+        List<Shippable> items = new ArrayList<>();
+        for (double w : weights) items.add(new Parcel(w));
+        return items;
+    }
+
+    private static List<List<Double>> weights(List<List<Shippable>> bins) {
+        return bins.stream().map(bin -> bin.stream().map(Shippable::weight).toList()).toList();
+    }
+
+    //the original quadratic-per-item first-fit decreasing, kept as the reference
+    private static List<List<Shippable>> naiveFirstFit(List<Shippable> input, double maxW) {
+        List<Shippable> items = new ArrayList<>(input);
+        items.sort((a, b) -> Double.compare(b.weight(), a.weight()));
+        List<List<Shippable>> bins = new ArrayList<>();
+        for (Shippable item : items) {
+            boolean placed = false;
+            for (List<Shippable> bin : bins) {
+                double binWeight = bin.stream().map(Shippable::weight).reduce(0.0, Double::sum);
+                if (binWeight + item.weight() <= maxW) {
+                    bin.add(item);
+                    placed = true;
+                    break;
+                }
+            }
+            if (!placed) bins.add(new ArrayList<>(List.of(item)));
+        }
+        return bins;
+    }
+
+    @Nested
+    @DisplayName("First fit decreasing")
+    class FirstFitTests {
+
+        @Test
+        @DisplayName("✅ should place every item exactly where the original algorithm did")
+        void should_matchOriginalAlgorithm() {
+            Random random = new Random(9);
+            for (int n : new int[]{0, 1, 2, 17, 500, 3000}) {
+                // Arrange - fractional weights so floating point rounding is exercised too
+                List<Shippable> items = new ArrayList<>();
+                for (int i = 0; i < n; i++) items.add(new Parcel(random.nextInt(1000) / 100.0));
+
+                // Act
+                List<List<Shippable>> packed = BinPacker.pack(items, 10.0, PackingStrategy.FIRST_FIT_DECREASING);
+
+                // Assert
+                assertThat(packed).isEqualTo(naiveFirstFit(items, 10.0));
+            }
+        }
+
+        @Test
+        @DisplayName("📦 should give items heavier than the limit a group of their own")
+        void should_isolateOversizedItems() {
+            // Act
+            List<List<Shippable>> packed = BinPacker.pack(parcels(12, 3, 11, 4), 10.0, PackingStrategy.FIRST_FIT_DECREASING);
+
+            // Assert
+            assertThat(weights(packed)).containsExactly(List.of(12.0), List.of(11.0), List.of(4.0, 3.0));
+        }
+    }
+
+    @Nested
+    @DisplayName("Best fit decreasing")
+    class BestFitTests {
+
+        @Test
+        @DisplayName("📦 should put an item in the fullest group it still fits in")
+        void should_pickFullestGroup() {
+            // Arrange - first fit puts the 1 next to the first 7, best fit tops up the 4 + 4 group
+            List<Shippable> items = parcels(7, 7, 4, 4, 1);
+
+            // Act
+            List<List<Shippable>> firstFit = BinPacker.pack(items, 10.0, PackingStrategy.FIRST_FIT_DECREASING);
+            List<List<Shippable>> bestFit = BinPacker.pack(items, 10.0, PackingStrategy.BEST_FIT_DECREASING);
+
+            // Assert
+            assertThat(weights(firstFit)).containsExactly(List.of(7.0, 1.0), List.of(7.0), List.of(4.0, 4.0));
+            assertThat(weights(bestFit)).containsExactly(List.of(7.0), List.of(7.0), List.of(4.0, 4.0, 1.0));
+        }
+
+        @Test
+        @DisplayName("✅ should respect the limit and keep every item")
+        void should_respectLimit() {
+            // Arrange
+            Random random = new Random(11);
+            List<Shippable> items = new ArrayList<>();
+            for (int i = 0; i < 5000; i++) items.add(new Parcel(random.nextInt(1000) / 100.0));
+
+            // Act
+            List<List<Shippable>> packed = BinPacker.pack(items, 10.0, PackingStrategy.BEST_FIT_DECREASING);
+
+            // Assert
+            assertThat(packed).allSatisfy(bin ->
+                    assertThat(bin.stream().mapToDouble(Shippable::weight).sum()).isLessThanOrEqualTo(10.0 + 1e-9));
+            assertThat(packed.stream().mapToInt(List::size).sum()).isEqualTo(items.size());
+            assertThat(packed.size()).isLessThanOrEqualTo(naiveFirstFit(items, 10.0).size());
+        }
+    }
+
+    @Nested
+    @DisplayName("Packing result")
+    class ResultTests {
+
+        @Test
+        @DisplayName("📊 should report group count, lower bound and fill ratio")
+        void should_reportEfficiency() {
+            // Arrange
+            Warehouse warehouse = Warehouse.getInstance("BinPackerTestWarehouse");
+            warehouse.clearProducts();
+            for (String weight : new String[]{"6", "5", "4", "3"}) {
+                warehouse.addProduct(new ElectronicsProduct(UUID.randomUUID(), "Box" + weight,
+                        Category.of("Electronics"), BigDecimal.TEN, 12, new BigDecimal(weight)));
+            }
+
+            // Act
+            PackingResult result = new WarehouseAnalyzer(warehouse)
+                    .packShippingGroups(new BigDecimal("10"), PackingStrategy.BEST_FIT_DECREASING);
+
+            // Assert
+            assertThat(result.getGroupCount()).isEqualTo(2);
+            assertThat(result.getLowerBound()).isEqualTo(2);
+            assertThat(result.getTotalWeight()).isEqualTo(18.0);
+            assertThat(result.getFillRatio()).isEqualTo(0.9);
+            assertThat(result.getUnusedCapacity()).isEqualTo(2.0);
+            warehouse.clearProducts();
+        }
+    }
+}
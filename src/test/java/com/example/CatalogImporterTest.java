@@ -0,0 +1,176 @@
+package com.example;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifies that {@link CatalogImporter} turns CSV rows into the same products the constructors
+ * would build, and names the line of a row it cannot parse.
+ */
+@DisplayName("Catalog importer")
+class CatalogImporterTest {
+
+    @TempDir
+    Path directory;
+
+    private Warehouse warehouse;
+
+    @BeforeEach
+    void setUp() {
+        warehouse = Warehouse.getInstance("ImporterTestWarehouse");
+        warehouse.clearProducts();
+    }
+
+    private Path csv(String... rows) throws IOException {
+        Path file = directory.resolve("catalog.csv");
+        Files.writeString(file, CatalogImporter.HEADER + "\n" + String.join("\n", rows) + "\n", StandardCharsets.UTF_8);
+        return file;
+    }
+
+    @Nested
+    @DisplayName("Parsing")
+    class ParsingTests {
+
+        @Test
+        @DisplayName("✅ should import food and electronics rows with every field")
+        void should_importBothTypes() throws IOException {
+            // Arrange
+            UUID milkId = UUID.randomUUID();
+            UUID laptopId = UUID.randomUUID();
+            Path file = csv(
+                    "FOOD," + milkId + ",Milk,Dairy,12.50,1.2345,2030-01-15,",
+                    "ELECTRONICS," + laptopId + ",Laptop,Electronics,999.99,2.5,,24",
+                    "food," + UUID.randomUUID() + ",Salt,Pantry,1,0.5,,");
+
+            // Act
+            long imported = CatalogImporter.importCsv(file, warehouse);
+
+            // Assert
+            assertThat(imported).isEqualTo(3);
+            FoodProduct milk = (FoodProduct) warehouse.getProductById(milkId).orElseThrow();
+            assertThat(milk.name()).isEqualTo("Milk");
+            assertThat(milk.category()).isSameAs(Category.of("Dairy"));
+            assertThat(milk.price()).isEqualTo(new BigDecimal("12.50"));
+            assertThat(milk.weightValue()).isEqualTo(new BigDecimal("1.2345"));
+            assertThat(milk.expirationDate()).isEqualTo(LocalDate.of(2030, 1, 15));
+            ElectronicsProduct laptop = (ElectronicsProduct) warehouse.getProductById(laptopId).orElseThrow();
+            assertThat(laptop.warrantyMonths()).isEqualTo(24);
+            assertThat(laptop.weightValue()).isEqualTo(new BigDecimal("2.5"));
+            assertThat(warehouse.searchByName("Salt")).hasSize(1);
+        }
+
+        @Test
+        @DisplayName("✅ should unquote fields holding commas, quotes, newlines and non-ASCII text")
+        void should_handleQuotedFields() throws IOException {
+            // Arrange
+            UUID id = UUID.randomUUID();
+            Path file = csv("FOOD," + id + ",\"Crème \"\"fraîche\"\", 30%,\nlight\",\"Dairy, chilled\",3.20,0.2,,\r");
+
+            // Act
+            CatalogImporter.importCsv(file, warehouse);
+
+            // Assert
+            Product product = warehouse.getProductById(id).orElseThrow();
+            assertThat(product.name()).isEqualTo("Crème \"fraîche\", 30%,\nlight");
+            assertThat(product.category()).isSameAs(Category.of("Dairy, chilled"));
+        }
+
+        @Test
+        @DisplayName("✅ should load files spanning many reads and batches")
+        void should_importAcrossBuffersAndBatches() throws IOException {
+            // Arrange - 1 MB read buffer, names long enough to make rows straddle it
+            String padding = "x".repeat(500);
+            String[] rows = new String[5_000];
+            for (int i = 0; i < rows.length; i++) {
+                rows[i] = "FOOD," + UUID.randomUUID() + ",Item" + i + padding + ",Bulk," + i + ".01,1,,";
+            }
+            Path file = csv(rows);
+
+            // Act
+            long imported = CatalogImporter.importCsv(file, warehouse, 1_000);
+
+            // Assert
+            assertThat(imported).isEqualTo(5_000);
+            assertThat(warehouse.size()).isEqualTo(5_000);
+            assertThat(warehouse.countByCategory()).containsEntry(Category.of("Bulk"), 5_000);
+        }
+    }
+
+    @Nested
+    @DisplayName("Malformed input")
+    class MalformedInputTests {
+
+        @Test
+        @DisplayName("❌ should reject a file without the expected header")
+        void should_rejectMissingHeader() throws IOException {
+            Path file = directory.resolve("catalog.csv");
+            Files.writeString(file, "FOOD," + UUID.randomUUID() + ",Milk,Dairy,1,1,,\n");
+
+            assertThatThrownBy(() -> CatalogImporter.importCsv(file, warehouse))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageStartingWith("Line 1:");
+        }
+
+        @Test
+        @DisplayName("❌ should name the line of a bad row and keep earlier batches")
+        void should_reportBadRow() throws IOException {
+            Path file = csv(
+                    "FOOD," + UUID.randomUUID() + ",Milk,Dairy,1.00,1,,",
+                    "FOOD," + UUID.randomUUID() + ",Cheese,Dairy,1.00,1,2030-02-30,");
+
+            assertThatThrownBy(() -> CatalogImporter.importCsv(file, warehouse, 1))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageStartingWith("Line 3:");
+            assertThat(warehouse.size()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("❌ should pass on the constructors' validation")
+        void should_rejectInvalidValues() throws IOException {
+            Path file = csv("ELECTRONICS," + UUID.randomUUID() + ",Phone,Electronics,5.00,1,,-12");
+
+            assertThatThrownBy(() -> CatalogImporter.importCsv(file, warehouse))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageStartingWith("Line 2:");
+            assertThat(warehouse.isEmpty()).isTrue();
+        }
+
+        @Test
+        @DisplayName("❌ should reject a warranty that is a lone sign or outside the int range")
+        void should_rejectMalformedWarranty() throws IOException {
+            Path sign = csv("ELECTRONICS," + UUID.randomUUID() + ",Phone,Electronics,5.00,1,,-");
+            assertThatThrownBy(() -> CatalogImporter.importCsv(sign, warehouse))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Line 2: malformed integer -.");
+
+            Path overflow = csv("ELECTRONICS," + UUID.randomUUID() + ",Phone,Electronics,5.00,1,,4294967308");
+            assertThatThrownBy(() -> CatalogImporter.importCsv(overflow, warehouse))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Line 2: integer out of range 4294967308.");
+            assertThat(warehouse.isEmpty()).isTrue();
+        }
+
+        @Test
+        @DisplayName("❌ should count the line breaks inside quoted fields when naming a bad row")
+        void should_countQuotedLineBreaks() throws IOException {
+            Path file = csv(
+                    "FOOD," + UUID.randomUUID() + ",\"Milk\nfrom the\nfarm\",Dairy,1.00,1,,",
+                    "FOOD," + UUID.randomUUID() + ",Cheese,Dairy,1.00,1,2030-02-30,");
+
+            assertThatThrownBy(() -> CatalogImporter.importCsv(file, warehouse))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageStartingWith("Line 5:");
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.example;
+
+import org.junit.jupiter.api.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for the change journal behind {@link Warehouse#changesSince(long)}.
+ */
+@DisplayName("Change journal")
+class ChangeJournalTest {
+
+    private Product food(String name, String price) {
+        return new FoodProduct(UUID.randomUUID(), name, Category.of("Dairy"), new BigDecimal(price),
+                LocalDate.now().plusDays(5), BigDecimal.ONE);
+    }
+
+    @Nested
+    @DisplayName("Ring")
+    class RingTests {
+
+        @Test
+        @DisplayName("✅ should hand out events in sequence order with old and new prices")
+        void should_recordEventsInOrder() {
+            // Arrange
+            ChangeJournal journal = new ChangeJournal(8);
+            Product milk = food("Milk", "10.00");
+
+            // Act
+            journal.added(milk);
+            milk.price(new BigDecimal("12.00"));
+            journal.priceChanged(milk, new BigDecimal("10.00"));
+            journal.removed(milk);
+            ChangeBatch batch = journal.since(0);
+
+            // Assert
+            assertThat(batch.complete()).isTrue();
+            assertThat(batch.lastSequence()).isEqualTo(3);
+            assertThat(batch.events()).extracting(ChangeEvent::type)
+                    .containsExactly(ChangeEvent.Type.ADDED, ChangeEvent.Type.REPRICED, ChangeEvent.Type.REMOVED);
+            ChangeEvent repriced = batch.events().get(1);
+            assertThat(repriced.productId()).isEqualTo(milk.uuid());
+            assertThat(repriced.oldPrice()).isEqualByComparingTo("10.00");
+            assertThat(repriced.newPrice()).isEqualByComparingTo("12.00");
+            assertThat(journal.since(2).events()).extracting(ChangeEvent::sequence).containsExactly(3L);
+            assertThat(journal.since(3).events()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("✅ should mark the batch incomplete once the reader falls a full ring behind")
+        void should_reportOverflow() {
+            // Arrange
+            ChangeJournal journal = new ChangeJournal(4);
+            for (int i = 0; i < 10; i++) journal.added(food("P" + i, "1.00"));
+
+            // Act
+            ChangeBatch behind = journal.since(2);
+            ChangeBatch inRange = journal.since(6);
+
+            // Assert
+            assertThat(behind.complete()).isFalse();
+            assertThat(behind.events()).extracting(ChangeEvent::sequence).containsExactly(7L, 8L, 9L, 10L);
+            assertThat(inRange.complete()).isTrue();
+            assertThat(inRange.lastSequence()).isEqualTo(10);
+        }
+
+        @Test
+        @DisplayName("❌ should reject sequences outside the journal and non power-of-two capacities")
+        void should_rejectBadArguments() {
+            ChangeJournal journal = new ChangeJournal(4);
+            assertThatThrownBy(() -> journal.since(-1)).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> journal.since(1)).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> new ChangeJournal(6)).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Warehouse")
+    class WarehouseTests {
+
+        @Test
+        @DisplayName("✅ should journal adds, reprices, removals and clears")
+        void should_journalWarehouseChanges() {
+            // Arrange
+            Warehouse warehouse = Warehouse.getInstance("ChangeJournalWarehouse");
+            warehouse.clearProducts();
+            long start = warehouse.lastChangeSequence();
+            Product milk = food("Milk", "10.00");
+            Product cheese = food("Cheese", "20.00");
+
+            // Act
+            warehouse.addProduct(milk);
+            warehouse.addProduct(cheese);
+            warehouse.updateProductPrice(milk.uuid(), new BigDecimal("11.00"));
+            warehouse.remove(cheese.uuid());
+            warehouse.clearProducts();
+            ChangeBatch batch = warehouse.changesSince(start);
+
+            // Assert
+            assertThat(batch.complete()).isTrue();
+            assertThat(batch.lastSequence()).isEqualTo(warehouse.lastChangeSequence());
+            assertThat(batch.events()).extracting(ChangeEvent::type).containsExactly(
+                    ChangeEvent.Type.ADDED, ChangeEvent.Type.ADDED, ChangeEvent.Type.REPRICED,
+                    ChangeEvent.Type.REMOVED, ChangeEvent.Type.CLEARED);
+            assertThat(batch.events().get(3).oldPrice()).isEqualByComparingTo("20.00");
+        }
+
+        @Test
+        @DisplayName("✅ should journal a bulk load as one event")
+        void should_journalBulkLoadOnce() {
+            // Arrange
+            Warehouse warehouse = Warehouse.getInstance("ChangeJournalWarehouse");
+            warehouse.clearProducts();
+            long start = warehouse.lastChangeSequence();
+            List<Product> products = List.of(food("Milk", "10.00"), food("Cheese", "20.00"), food("Butter", "5.00"));
+
+            // Act
+            warehouse.addAll(products);
+            ChangeBatch batch = warehouse.changesSince(start);
+
+            // Assert
+            assertThat(batch.events()).singleElement().satisfies(event -> {
+                assertThat(event.type()).isEqualTo(ChangeEvent.Type.ADDED_ALL);
+                assertThat(event.products()).containsExactlyElementsOf(products);
+            });
+        }
+    }
+}
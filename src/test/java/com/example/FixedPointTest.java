@@ -0,0 +1,131 @@
+package com.example;
+
+import org.junit.jupiter.api.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the fixed-point helpers and that the analyzer's primitive paths agree with
+ * plain BigDecimal HALF_UP arithmetic to the cent.
+ */
+@DisplayName("Fixed-point price engine")
+class FixedPointTest {
+
+    @Nested
+    @DisplayName("Conversions and rounding")
+    class ConversionTests {
+
+        @Test
+        @DisplayName("✅ should convert whole-cent prices and reject finer ones")
+        void should_convertOnlyExactValues() {
+            assertThat(FixedPoint.toScaled(new BigDecimal("15.5"), FixedPoint.CENTS)).isEqualTo(1550);
+            assertThat(FixedPoint.toScaled(new BigDecimal("1E+3"), FixedPoint.CENTS)).isEqualTo(100_000);
+            assertThat(FixedPoint.toScaled(new BigDecimal("10.000"), FixedPoint.CENTS)).isEqualTo(1000);
+            assertThat(FixedPoint.toScaled(new BigDecimal("0.005"), FixedPoint.CENTS)).isEqualTo(FixedPoint.INEXACT);
+            assertThat(FixedPoint.toScaled(new BigDecimal("1E+30"), FixedPoint.CENTS)).isEqualTo(FixedPoint.INEXACT);
+        }
+
+        @Test
+        @DisplayName("✅ should divide like RoundingMode.HALF_UP, including negative ties")
+        void should_divideHalfUp() {
+            for (long num = -250; num <= 250; num++) {
+                for (long den : new long[]{1, 2, 3, 4, 7, 100}) {
+                    long expected = BigDecimal.valueOf(num).divide(BigDecimal.valueOf(den), 0, RoundingMode.HALF_UP).longValueExact();
+                    assertThat(FixedPoint.divideHalfUp(num, den)).as("%d / %d", num, den).isEqualTo(expected);
+                }
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Analyzer parity with BigDecimal")
+    class ParityTests {
+
+        private Warehouse warehouse;
+        private WarehouseAnalyzer analyzer;
+
+        @BeforeEach
+        void setUp() {
+            warehouse = Warehouse.getInstance("FixedPointTestWarehouse");
+            warehouse.clearProducts();
+            analyzer = new WarehouseAnalyzer(warehouse);
+            Random random = new Random(7);
+            Category[] categories = {Category.of("Dairy"), Category.of("Fruit"), Category.of("Electronics")};
+            for (int i = 0; i < 500; i++) {
+                //a few prices carry sub-cent digits to exercise the BigDecimal fallback
+                BigDecimal price = BigDecimal.valueOf(random.nextInt(500_000), i % 50 == 0 ? 3 : 2);
+                BigDecimal weight = BigDecimal.valueOf(random.nextInt(20_000), 3);
+                Category category = categories[random.nextInt(categories.length)];
+                warehouse.addProduct(new FoodProduct(UUID.randomUUID(), "Item" + i, category, price,
+                        LocalDate.now().plusDays(random.nextInt(6)), weight));
+            }
+        }
+
+        @Test
+        @DisplayName("📊 should compute the same weighted averages as the BigDecimal formula")
+        void should_matchWeightedAverages() {
+            // Arrange - the formula written out in BigDecimal, over the exact weight total
+            Map<Category, BigDecimal> weighted = new HashMap<>();
+            Map<Category, BigDecimal> weights = new HashMap<>();
+            for (Product p : warehouse.getProducts()) {
+                BigDecimal w = BigDecimal.valueOf(((Shippable) p).weight());
+                weighted.merge(p.category(), p.price().multiply(w), BigDecimal::add);
+                weights.merge(p.category(), w, BigDecimal::add);
+            }
+
+            // Act
+            Map<Category, BigDecimal> averages = analyzer.calculateWeightedAveragePriceByCategory();
+
+            // Assert
+            assertThat(averages).hasSameSizeAs(weighted);
+            weighted.forEach((category, sum) -> assertThat(averages.get(category))
+                    .isEqualTo(sum.divide(weights.get(category), 2, RoundingMode.HALF_UP)));
+        }
+
+        @Test
+        @DisplayName("📊 should divide by the exact weight total, not a sum of doubles")
+        void should_divideByExactWeightTotal() {
+            // Arrange - 0.1 + 1.1 is 1.2000000000000002 as doubles, which rounded the 1.055 tie down to 1.05
+            warehouse.clearProducts();
+            Category category = Category.of("Bakery");
+            warehouse.addProduct(new FoodProduct(UUID.randomUUID(), "Bun", category, new BigDecimal("1.00"),
+                    LocalDate.now().plusDays(5), new BigDecimal("0.1")));
+            warehouse.addProduct(new FoodProduct(UUID.randomUUID(), "Loaf", category, new BigDecimal("1.06"),
+                    LocalDate.now().plusDays(5), new BigDecimal("1.1")));
+
+            // Act
+            Map<Category, BigDecimal> averages = analyzer.calculateWeightedAveragePriceByCategory();
+
+            // Assert
+            assertThat(averages).containsExactly(Map.entry(category, new BigDecimal("1.06")));
+        }
+
+        @Test
+        @DisplayName("💰 should compute the same discounted prices as the BigDecimal formula")
+        void should_matchDiscounts() {
+            // Act
+            Map<Product, BigDecimal> discounts = analyzer.calculateExpirationBasedDiscounts();
+
+            // Assert
+            LocalDate today = LocalDate.now();
+            for (Product p : warehouse.getProducts()) {
+                long days = ((Perishable) p).expirationDate().toEpochDay() - today.toEpochDay();
+                String factor = days == 0 ? "0.50" : days == 1 ? "0.70" : days >= 2 && days <= 3 ? "0.85" : "1";
+                assertThat(discounts.get(p))
+                        .isEqualTo(p.price().multiply(new BigDecimal(factor)).setScale(2, RoundingMode.HALF_UP));
+            }
+        }
+
+        @Test
+        @DisplayName("📊 should sum the total value exactly, including sub-cent prices")
+        void should_matchTotalValue() {
+            BigDecimal expected = warehouse.getProducts().stream().map(Product::price).reduce(BigDecimal.ZERO, BigDecimal::add);
+            assertThat(analyzer.getInventoryStatistics().getTotalValue()).isEqualByComparingTo(expected);
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.example;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifies that a {@link Storage#OFF_HEAP} warehouse answers every query like a heap warehouse
+ * holding the same products, and that the records survive slot reuse, name compaction and recovery.
+ */
+@DisplayName("Off-heap warehouse")
+class OffHeapWarehouseTest {
+
+    @TempDir
+    Path directory;
+
+    private Warehouse warehouse;
+    private Warehouse reference;
+
+    @BeforeEach
+    void setUp() {
+        warehouse = Warehouse.getInstance("OffHeapTestWarehouse", Storage.OFF_HEAP);
+        warehouse.disablePersistence();
+        warehouse.clearProducts();
+        reference = Warehouse.getInstance("OffHeapReferenceWarehouse");
+        reference.clearProducts();
+        reference.usePriceQuantiles(QuantileMode.APPROXIMATE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        warehouse.disablePersistence();
+        warehouse.clearProducts();
+    }
+
+    //every field a record keeps, so a materialized copy can be compared with the original
+    private static String signature(Product p) {
+        String details = p instanceof FoodProduct food
+                ? food.expirationDate() + " " + food.weightValue()
+                : ((ElectronicsProduct) p).warrantyMonths() + " " + ((ElectronicsProduct) p).weightValue();
+        return p.getClass().getSimpleName() + " " + p.uuid() + " " + p.name() + " " + p.category().getName() + " " + p.price() + " " + details;
+    }
+
+    private static List<String> signatures(List<? extends Object> products) {
+        List<String> result = new ArrayList<>();
+        for (Object p : products) result.add(signature((Product) p));
+        return result;
+    }
+
+    private static Product randomProduct(Random random, int i) {
+        String[] names = {"Milk", "Cheese", "Crème brûlée", "İstanbul kebab", "Phone", "TV"};
+        String[] categories = {"Dairy", "Dessert", "Electronics"};
+        String name = names[random.nextInt(names.length)] + " " + i;
+        Category category = Category.of(categories[random.nextInt(categories.length)]);
+        //one price in ten has sub-cent digits, so scans take the BigDecimal path too
+        BigDecimal price = random.nextInt(10) == 0 ? BigDecimal.valueOf(random.nextInt(100_000), 3) : BigDecimal.valueOf(random.nextInt(10_000), 2);
+        if (random.nextBoolean()) {
+            LocalDate expires = random.nextInt(8) == 0 ? null : LocalDate.of(2030, 1, 1).plusDays(random.nextInt(30));
+            return new FoodProduct(UUID.randomUUID(), name, category, price, expires, BigDecimal.valueOf(random.nextInt(5_000), 3));
+        }
+        return new ElectronicsProduct(UUID.randomUUID(), name, category, price, random.nextInt(36), BigDecimal.valueOf(random.nextInt(20_000), 3));
+    }
+
+    @Nested
+    @DisplayName("Queries")
+    class QueryTests {
+
+        @Test
+        @DisplayName("✅ should answer like a heap warehouse through adds, repricing and removals")
+        void should_matchHeapWarehouse() {
+            // Arrange
+            Random random = new Random(20);
+            List<Product> live = new ArrayList<>();
+            List<Product> batch = new ArrayList<>();
+            for (int i = 0; i < 1_500; i++) batch.add(randomProduct(random, i));
+            warehouse.addAll(batch);
+            reference.addAll(batch);
+            live.addAll(batch);
+
+            // Act
+            for (int i = 0; i < 3_000; i++) {
+                int op = random.nextInt(3);
+                if (op == 0) {
+                    Product p = randomProduct(random, 1_500 + i);
+                    warehouse.addProduct(p);
+                    reference.addProduct(p);
+                    live.add(p);
+                } else if (op == 1) {
+                    UUID id = live.get(random.nextInt(live.size())).uuid();
+                    BigDecimal price = BigDecimal.valueOf(random.nextInt(10_000), 2);
+                    warehouse.updateProductPrice(id, price);
+                    reference.updateProductPrice(id, price);
+                } else {
+                    UUID id = live.remove(random.nextInt(live.size())).uuid();
+                    warehouse.remove(id);
+                    reference.remove(id);
+                }
+            }
+
+            // Assert
+            BigDecimal low = new BigDecimal("20.005");
+            BigDecimal high = new BigDecimal("40");
+            LocalDate from = LocalDate.of(2030, 1, 10);
+            LocalDate to = LocalDate.of(2030, 1, 20);
+            assertThat(warehouse.size()).isEqualTo(reference.size());
+            assertThat(signatures(warehouse.getProducts())).containsExactlyInAnyOrderElementsOf(signatures(reference.getProducts()));
+            assertThat(signatures(warehouse.productsInPriceRange(low, high))).containsExactlyElementsOf(signatures(reference.productsInPriceRange(low, high)));
+            assertThat(signatures(warehouse.productsAbovePrice(high))).containsExactlyElementsOf(signatures(reference.productsAbovePrice(high)));
+            assertThat(signatures(warehouse.productsBelowPrice(low))).containsExactlyElementsOf(signatures(reference.productsBelowPrice(low)));
+            assertThat(signature(warehouse.cheapestProduct().orElseThrow())).isEqualTo(signature(reference.cheapestProduct().orElseThrow()));
+            assertThat(signature(warehouse.mostExpensiveProduct().orElseThrow())).isEqualTo(signature(reference.mostExpensiveProduct().orElseThrow()));
+            for (String term : new String[]{"chees", "BRÛL", "i̇stanbul", "tv 1", "", "x"}) {
+                assertThat(signatures(warehouse.searchByName(term))).as(term).containsExactlyInAnyOrderElementsOf(signatures(reference.searchByName(term)));
+            }
+            assertThat(signatures(warehouse.productsExpiringBetween(from, to))).containsExactlyInAnyOrderElementsOf(signatures(reference.productsExpiringBetween(from, to)));
+            assertThat(signatures(warehouse.expiredProducts(from))).containsExactlyInAnyOrderElementsOf(signatures(reference.expiredProducts(from)));
+            assertThat(signatures(warehouse.productsExpiringOn(from))).containsExactlyInAnyOrderElementsOf(signatures(reference.productsExpiringOn(from)));
+            assertThat(warehouse.countExpiredProducts(to)).isEqualTo(reference.countExpiredProducts(to));
+            assertThat(warehouse.categoryCount()).isEqualTo(reference.categoryCount());
+            assertThat(warehouse.countByCategory()).isEqualTo(reference.countByCategory());
+            assertThat(warehouse.weightedAveragePriceByCategory()).isEqualTo(reference.weightedAveragePriceByCategory());
+            assertThat(signatures(warehouse.productsInCategory(Category.of("Dessert"))))
+                    .containsExactlyInAnyOrderElementsOf(signatures(reference.productsInCategory(Category.of("Dessert"))));
+            Map<String, Integer> groupSizes = new TreeMap<>();
+            warehouse.getProductsGroupedByCategories().forEach((c, members) -> groupSizes.put(c.getName(), members.size()));
+            Map<String, Integer> referenceGroupSizes = new TreeMap<>();
+            reference.getProductsGroupedByCategories().forEach((c, members) -> referenceGroupSizes.put(c.getName(), members.size()));
+            assertThat(groupSizes).isEqualTo(referenceGroupSizes);
+            assertThat(warehouse.totalValue()).isEqualByComparingTo(reference.totalValue());
+            assertThat(warehouse.priceQuantiles(0.25, 0.5, 0.75)).isEqualTo(reference.priceQuantiles(0.25, 0.5, 0.75));
+            assertThat(new WarehouseAnalyzer(warehouse).validateInventoryConstraints().getHighValuePercentage())
+                    .isEqualTo(new WarehouseAnalyzer(reference).validateInventoryConstraints().getHighValuePercentage());
+            assertThat(warehouse.stream().parallel().count()).isEqualTo(reference.size());
+        }
+
+        @Test
+        @DisplayName("✅ should price expiration discounts like a heap warehouse, one entry per product")
+        void should_matchHeapDiscounts() {
+            // Arrange
+            Random random = new Random(21);
+            List<Product> batch = new ArrayList<>();
+            for (int i = 0; i < 1_000; i++) batch.add(randomProduct(random, i));
+            warehouse.addAll(batch);
+            reference.addAll(batch);
+            LocalDate today = LocalDate.of(2030, 1, 12);
+
+            // Act
+            Map<Product, BigDecimal> discounts = new WarehouseAnalyzer(warehouse).calculateExpirationBasedDiscounts(today);
+            Map<Product, BigDecimal> expected = new WarehouseAnalyzer(reference).calculateExpirationBasedDiscounts(today);
+
+            // Assert
+            Map<String, BigDecimal> byProduct = new TreeMap<>();
+            discounts.forEach((p, price) -> byProduct.put(signature(p), price));
+            Map<String, BigDecimal> expectedByProduct = new TreeMap<>();
+            expected.forEach((p, price) -> expectedByProduct.put(signature(p), price));
+            assertThat(discounts).hasSize(batch.size());
+            assertThat(byProduct).isEqualTo(expectedByProduct);
+        }
+
+        @Test
+        @DisplayName("✅ should hand out detached copies whose price changes only through updateProductPrice")
+        void should_returnDetachedCopies() {
+            // Arrange
+            Product milk = new FoodProduct(UUID.randomUUID(), "Milk", Category.of("Dairy"), new BigDecimal("15.00"),
+                    LocalDate.of(2030, 1, 1), new BigDecimal("1.5"));
+            warehouse.addProduct(milk);
+            Product copy = warehouse.getProductById(milk.uuid()).orElseThrow();
+            String copied = signature(copy);
+
+            // Act
+            copy.price(new BigDecimal("99.00"));
+            BigDecimal afterCopyChange = warehouse.getProductById(milk.uuid()).orElseThrow().price();
+            warehouse.updateProductPrice(milk.uuid(), new BigDecimal("12.50"));
+
+            // Assert
+            assertThat(copy).isNotSameAs(milk);
+            assertThat(copied).isEqualTo(signature(milk));
+            assertThat(afterCopyChange).isEqualTo(new BigDecimal("15.00"));
+            assertThat(warehouse.getProductById(milk.uuid()).orElseThrow().price()).isEqualTo(new BigDecimal("12.50"));
+            assertThat(warehouse.totalValue()).isEqualByComparingTo("12.50");
+        }
+    }
+
+    @Nested
+    @DisplayName("Storage")
+    class StorageTests {
+
+        @Test
+        @DisplayName("✅ should reuse freed records and keep names readable after compacting the name area")
+        void should_reuseSlotsAndCompactNames() {
+            // Arrange - 2 KB names, so removing most of 6_000 leaves over 4 MB of dead name bytes
+            Random random = new Random(7);
+            String padding = "n".repeat(2_000);
+            List<Product> products = new ArrayList<>();
+            for (int i = 0; i < 6_000; i++) {
+                products.add(new ElectronicsProduct(UUID.randomUUID(), padding + i, Category.of("Electronics"),
+                        BigDecimal.valueOf(random.nextInt(10_000), 2), 12, BigDecimal.ONE));
+            }
+            warehouse.addAll(products);
+            long before = warehouse.offHeapStore().nativeBytes();
+
+            // Act
+            for (int i = 0; i < 5_000; i++) warehouse.remove(products.get(i).uuid());
+            for (int i = 0; i < 5_000; i++) {
+                warehouse.addProduct(new ElectronicsProduct(UUID.randomUUID(), "Short " + i, Category.of("Electronics"),
+                        BigDecimal.ONE, 12, BigDecimal.ONE));
+            }
+
+            // Assert
+            assertThat(warehouse.size()).isEqualTo(6_000);
+            assertThat(warehouse.offHeapStore().nativeBytes()).isLessThan(before);
+            for (int i = 5_000; i < 6_000; i++) {
+                assertThat(warehouse.getProductById(products.get(i).uuid()).orElseThrow().name()).isEqualTo(padding + i);
+            }
+            assertThat(warehouse.searchByName("short 4999")).hasSize(1);
+            assertThat(warehouse.searchByName(padding + "5999")).hasSize(1);
+        }
+
+        @Test
+        @DisplayName("✅ should recover its records from a snapshot and log")
+        void should_recoverFromLog() {
+            // Arrange
+            Random random = new Random(3);
+            List<Product> products = new ArrayList<>();
+            for (int i = 0; i < 200; i++) products.add(randomProduct(random, i));
+            warehouse.addAll(products);
+            warehouse.enablePersistence(directory);
+            warehouse.updateProductPrice(products.get(0).uuid(), new BigDecimal("1.23"));
+            warehouse.remove(products.get(1).uuid());
+            List<String> expected = signatures(warehouse.getProducts());
+            warehouse.disablePersistence();
+            warehouse.clearProducts();
+
+            // Act
+            warehouse.enablePersistence(directory);
+
+            // Assert
+            assertThat(signatures(warehouse.getProducts())).containsExactlyInAnyOrderElementsOf(expected);
+            assertThat(warehouse.getProductById(products.get(0).uuid()).orElseThrow().price()).isEqualTo(new BigDecimal("1.23"));
+        }
+
+        @Test
+        @DisplayName("❌ should reject products and prices that records cannot hold, leaving the warehouse unchanged")
+        void should_rejectUnstorableProducts() {
+            // Arrange
+            Product custom = new Product(UUID.randomUUID(), "Custom", Category.of("Dairy"), BigDecimal.ONE) {
+                @Override
+                public String productDetails() {
+                    return "";
+                }
+            };
+            Product tiny = new ElectronicsProduct(UUID.randomUUID(), "Tiny", Category.of("Electronics"), new BigDecimal("1E-200"), 12, BigDecimal.ONE);
+            Product milk = new FoodProduct(UUID.randomUUID(), "Milk", Category.of("Dairy"), new BigDecimal("15.00"),
+                    LocalDate.of(2030, 1, 1), BigDecimal.ONE);
+            warehouse.addProduct(milk);
+
+            // Act & Assert
+            assertThatThrownBy(() -> warehouse.addProduct(custom)).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> warehouse.addAll(List.of(randomProduct(new Random(1), 0), tiny))).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> warehouse.updateProductPrice(milk.uuid(), new BigDecimal("12345678901234567890.12"))).isInstanceOf(IllegalArgumentException.class);
+            assertThat(warehouse.size()).isEqualTo(1);
+            assertThat(warehouse.totalValue()).isEqualByComparingTo("15.00");
+            assertThat(warehouse.getProductById(milk.uuid()).orElseThrow().price()).isEqualTo(new BigDecimal("15.00"));
+        }
+
+        @Test
+        @DisplayName("❌ should refuse a second storage for the same name and exact quantiles")
+        void should_rejectStorageMismatch() {
+            // Act & Assert
+            assertThat(Warehouse.getInstance("OffHeapTestWarehouse")).isSameAs(warehouse);
+            assertThat(warehouse.storage()).isEqualTo(Storage.OFF_HEAP);
+            assertThatThrownBy(() -> Warehouse.getInstance("OffHeapTestWarehouse", Storage.HEAP)).isInstanceOf(IllegalStateException.class);
+            assertThatThrownBy(() -> warehouse.usePriceQuantiles(QuantileMode.EXACT)).isInstanceOf(IllegalStateException.class);
+        }
+    }
+}
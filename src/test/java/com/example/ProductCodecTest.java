@@ -0,0 +1,140 @@
+package com.example;
+
+import org.junit.jupiter.api.*;
+
+import java.math.BigDecimal;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Round trips through the compact binary {@link ProductCodec}.
+ */
+@DisplayName("Product codec")
+class ProductCodecTest {
+
+    private final ProductCodec.Encoder encoder = new ProductCodec.Encoder();
+    private final ProductCodec.Decoder decoder = new ProductCodec.Decoder();
+
+    private static void assertSameProduct(Product actual, Product expected) {
+        assertThat(actual).isInstanceOf(expected.getClass());
+        assertThat(actual.uuid()).isEqualTo(expected.uuid());
+        assertThat(actual.name()).isEqualTo(expected.name());
+        assertThat(actual.category()).isSameAs(expected.category());
+        assertThat(actual.price()).isEqualTo(expected.price());
+        if (expected instanceof FoodProduct food) {
+            assertThat(((FoodProduct) actual).expirationDate()).isEqualTo(food.expirationDate());
+            assertThat(((FoodProduct) actual).weightValue()).isEqualTo(food.weightValue());
+        } else {
+            ElectronicsProduct electronics = (ElectronicsProduct) expected;
+            assertThat(((ElectronicsProduct) actual).warrantyMonths()).isEqualTo(electronics.warrantyMonths());
+            assertThat(((ElectronicsProduct) actual).weightValue()).isEqualTo(electronics.weightValue());
+        }
+    }
+
+    @Nested
+    @DisplayName("Round trip")
+    class RoundTripTests {
+
+        @Test
+        @DisplayName("✅ should round-trip every product subtype field for field")
+        void should_roundTripEverySubtype() {
+            // Arrange
+            List<Product> products = List.of(
+                    new FoodProduct(UUID.randomUUID(), "Milk", Category.of("Dairy"), new BigDecimal("12.50"),
+                            LocalDate.of(2026, 3, 1), new BigDecimal("1.030")),
+                    new FoodProduct(UUID.randomUUID(), "Ancient grain", Category.of("Dairy"), new BigDecimal("1E+3"),
+                            LocalDate.of(1900, 1, 1), BigDecimal.ZERO),
+                    new FoodProduct(UUID.randomUUID(), "No date", Category.of("Bakery"), BigDecimal.ZERO, null,
+                            new BigDecimal("0.001")),
+                    new ElectronicsProduct(UUID.randomUUID(), "Laptop", Category.of("Electronics"), new BigDecimal("999.99"),
+                            24, new BigDecimal("2.2")),
+                    new ElectronicsProduct(UUID.randomUUID(), "Crème brûlée torch 🔥", Category.of("Électronique"),
+                            new BigDecimal("123456789012345678901234567890.123"), 0, new BigDecimal("-0.0").abs()));
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 10);
+
+            // Act
+            for (Product p : products) encoder.encode(p, buffer);
+            buffer.flip();
+
+            // Assert
+            for (Product expected : products) assertSameProduct(decoder.decode(buffer), expected);
+            assertThat(buffer.hasRemaining()).isFalse();
+        }
+
+        @Test
+        @DisplayName("✅ should spell out a category once per stream and refer to it by id afterwards")
+        void should_internCategories() {
+            // Arrange
+            Category dairy = Category.of("Dairy");
+            ByteBuffer first = ByteBuffer.allocate(256);
+            ByteBuffer second = ByteBuffer.allocate(256);
+            Product milk = new FoodProduct(new UUID(1, 1), "Milk", dairy, new BigDecimal("12.50"), LocalDate.of(2026, 3, 1), BigDecimal.ONE);
+            Product cream = new FoodProduct(new UUID(1, 2), "Milk", dairy, new BigDecimal("12.50"), LocalDate.of(2026, 3, 1), BigDecimal.ONE);
+
+            // Act
+            encoder.encode(milk, first);
+            encoder.encode(cream, second);
+
+            // Assert
+            assertThat(first.position() - second.position()).isEqualTo(1 + "Dairy".length());
+            //type 1, uuid 16, category id 1, name 1 + 4, price 3, expiration 3, weight 2
+            assertThat(second.position()).isEqualTo(31);
+        }
+
+        @Test
+        @DisplayName("✅ should leave the buffer and the category table untouched when the buffer is too small")
+        void should_rollBackOnOverflow() {
+            // Arrange
+            Product milk = new FoodProduct(UUID.randomUUID(), "Milk", Category.of("Dairy"), BigDecimal.TEN,
+                    LocalDate.of(2026, 3, 1), BigDecimal.ONE);
+            ByteBuffer small = ByteBuffer.allocate(20);
+            small.put((byte) 7);
+
+            // Act
+            assertThatThrownBy(() -> encoder.encode(milk, small)).isInstanceOf(BufferOverflowException.class);
+            ByteBuffer large = ByteBuffer.allocate(256);
+            encoder.encode(milk, large);
+
+            // Assert
+            assertThat(small.position()).isEqualTo(1);
+            assertSameProduct(decoder.decode(large.flip()), milk);
+        }
+    }
+
+    @Nested
+    @DisplayName("Malformed input")
+    class MalformedTests {
+
+        @Test
+        @DisplayName("❌ should reject unknown types and category ids that were never introduced")
+        void should_rejectMalformedInput() {
+            ByteBuffer unknownType = ByteBuffer.wrap(new byte[]{9});
+            ByteBuffer unknownCategory = ByteBuffer.allocate(32).put((byte) 1).putLong(1).putLong(2).put((byte) 5).flip();
+
+            assertThatThrownBy(() -> decoder.decode(unknownType)).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> decoder.decode(unknownCategory))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Unknown category id 5.");
+        }
+
+        @Test
+        @DisplayName("❌ should refuse product types outside the format")
+        void should_rejectUnsupportedTypes() {
+            Product custom = new Product(UUID.randomUUID(), "Custom", Category.of("Misc"), BigDecimal.ONE) {
+                @Override
+                public String productDetails() {
+                    return "custom";
+                }
+            };
+
+            assertThat(ProductCodec.supports(custom)).isFalse();
+            assertThatThrownBy(() -> encoder.encode(custom, ByteBuffer.allocate(64))).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+}
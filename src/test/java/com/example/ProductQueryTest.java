@@ -0,0 +1,237 @@
+package com.example;
+
+import org.junit.jupiter.api.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifies that {@link Warehouse#query} returns exactly the products a plain filter would, on heap
+ * and off-heap warehouses, and that the planner picks the most selective access path.
+ */
+@DisplayName("Product queries")
+class ProductQueryTest {
+
+    private static final LocalDate BASE = LocalDate.of(2030, 1, 1);
+
+    private Warehouse heap;
+    private Warehouse offHeap;
+    private final List<Product> catalog = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        heap = Warehouse.getInstance("ProductQueryHeapWarehouse");
+        heap.clearProducts();
+        offHeap = Warehouse.getInstance("ProductQueryOffHeapWarehouse", Storage.OFF_HEAP);
+        offHeap.clearProducts();
+        catalog.clear();
+        Random random = new Random(23);
+        String[] names = {"Milk", "Cheese", "Yoghurt", "Phone", "Television", "Laptop"};
+        String[] categories = {"Dairy", "Snacks", "Electronics", "Garden"};
+        for (int i = 0; i < 2_000; i++) {
+            String name = names[random.nextInt(names.length)] + " " + i;
+            Category category = Category.of(categories[random.nextInt(categories.length)]);
+            BigDecimal price = BigDecimal.valueOf(random.nextInt(10_000), 2);
+            if (random.nextBoolean()) {
+                LocalDate expires = random.nextInt(8) == 0 ? null : BASE.plusDays(random.nextInt(60));
+                catalog.add(new FoodProduct(UUID.randomUUID(), name, category, price, expires, BigDecimal.ONE));
+            } else {
+                catalog.add(new ElectronicsProduct(UUID.randomUUID(), name, category, price, 12, BigDecimal.ONE));
+            }
+        }
+        heap.addAll(catalog);
+        offHeap.addAll(catalog);
+    }
+
+    @AfterEach
+    void tearDown() {
+        heap.clearProducts();
+        offHeap.clearProducts();
+    }
+
+    private List<UUID> expected(Predicate<Product> filter) {
+        return catalog.stream().filter(filter).map(Product::uuid).sorted().toList();
+    }
+
+    private static List<UUID> ids(Warehouse warehouse, ProductQuery query) {
+        return warehouse.query(query, Product::uuid).stream().sorted(Comparator.naturalOrder()).toList();
+    }
+
+    private static boolean expiresBetween(Product p, LocalDate from, LocalDate to) {
+        return p instanceof FoodProduct food && food.expirationDate() != null
+                && !food.expirationDate().isBefore(from) && !food.expirationDate().isAfter(to);
+    }
+
+    @Nested
+    @DisplayName("Results")
+    class ResultTests {
+
+        @Test
+        @DisplayName("✅ Combined conditions return the same products as a plain filter")
+        void combinedConditionsMatchFilter() {
+            // Arrange
+            Category dairy = Category.of("Dairy");
+            BigDecimal min = new BigDecimal("10.00");
+            BigDecimal max = new BigDecimal("60.00");
+            LocalDate from = BASE.plusDays(5);
+            LocalDate to = BASE.plusDays(40);
+            ProductQuery query = ProductQuery.all().inCategory(dairy).priceBetween(min, max)
+                    .expiringBetween(from, to).nameContains("MIL");
+
+            // Act
+            List<UUID> expected = expected(p -> p.category() == dairy
+                    && p.price().compareTo(min) >= 0 && p.price().compareTo(max) <= 0
+                    && expiresBetween(p, from, to) && p.name().toLowerCase().contains("mil"));
+
+            // Assert
+            assertThat(expected).isNotEmpty();
+            assertThat(ids(heap, query)).isEqualTo(expected);
+            assertThat(ids(offHeap, query)).isEqualTo(expected);
+        }
+
+        @Test
+        @DisplayName("✅ Each condition alone matches a plain filter on both storages")
+        void singleConditionsMatchFilter() {
+            // Arrange
+            Category garden = Category.of("Garden");
+            BigDecimal min = new BigDecimal("99.00");
+            BigDecimal max = new BigDecimal("99.99");
+            LocalDate day = BASE.plusDays(7);
+
+            // Act & Assert
+            for (Warehouse warehouse : List.of(heap, offHeap)) {
+                assertThat(ids(warehouse, ProductQuery.all().inCategory(garden)))
+                        .isEqualTo(expected(p -> p.category() == garden));
+                assertThat(ids(warehouse, ProductQuery.all().priceBetween(min, max)))
+                        .isEqualTo(expected(p -> p.price().compareTo(min) >= 0 && p.price().compareTo(max) <= 0));
+                assertThat(ids(warehouse, ProductQuery.all().expiringBetween(day, day)))
+                        .isEqualTo(expected(p -> expiresBetween(p, day, day)));
+                assertThat(ids(warehouse, ProductQuery.all().nameContains("vision 1")))
+                        .isEqualTo(expected(p -> p.name().toLowerCase().contains("vision 1")));
+                assertThat(ids(warehouse, ProductQuery.all())).hasSize(catalog.size());
+            }
+        }
+
+        @Test
+        @DisplayName("✅ Repeated conditions narrow each other")
+        void repeatedConditionsNarrow() {
+            // Arrange
+            ProductQuery twoRanges = ProductQuery.all()
+                    .priceBetween(new BigDecimal("10.00"), new BigDecimal("50.00"))
+                    .priceBetween(new BigDecimal("40.00"), new BigDecimal("90.00"));
+            ProductQuery twoCategories = ProductQuery.all().inCategory(Category.of("Dairy")).inCategory(Category.of("Garden"));
+
+            // Act
+            List<UUID> overlap = ids(heap, twoRanges);
+
+            // Assert
+            assertThat(overlap).isEqualTo(expected(p -> p.price().compareTo(new BigDecimal("40.00")) >= 0
+                    && p.price().compareTo(new BigDecimal("50.00")) <= 0));
+            assertThat(heap.query(twoCategories)).isEmpty();
+            assertThat(offHeap.query(twoCategories)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("✅ Custom predicates are applied after the built-in conditions")
+        void customPredicate() {
+            // Arrange
+            ProductQuery query = ProductQuery.all().inCategory(Category.of("Electronics"))
+                    .where(p -> p instanceof ElectronicsProduct);
+
+            // Act
+            List<UUID> result = ids(heap, query);
+
+            // Assert
+            assertThat(result).isEqualTo(expected(p -> p.category() == Category.of("Electronics") && p instanceof ElectronicsProduct));
+        }
+
+        @Test
+        @DisplayName("✅ Limit caps the results and a projection maps them")
+        void limitAndProjection() {
+            // Arrange
+            ProductQuery query = ProductQuery.all().inCategory(Category.of("Dairy")).limit(5);
+
+            // Act
+            List<String> names = heap.query(query, Product::name);
+
+            // Assert
+            assertThat(names).hasSize(5);
+            assertThat(offHeap.query(query)).hasSize(5).allMatch(p -> p.category() == Category.of("Dairy"));
+            assertThat(heap.query(query.limit(0))).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("Planning")
+    class PlanningTests {
+
+        @Test
+        @DisplayName("✅ The most selective index is chosen")
+        void mostSelectiveIndex() {
+            // Arrange
+            ProductQuery narrowPrice = ProductQuery.all().inCategory(Category.of("Dairy"))
+                    .priceBetween(new BigDecimal("1.00"), new BigDecimal("1.50"));
+            ProductQuery narrowExpiry = ProductQuery.all().priceBetween(BigDecimal.ZERO, new BigDecimal("90.00"))
+                    .expiringBetween(BASE.plusDays(3), BASE.plusDays(3));
+            ProductQuery narrowName = ProductQuery.all().inCategory(Category.of("Dairy")).nameContains("Television 19");
+
+            // Act & Assert
+            assertThat(heap.explain(ProductQuery.all())).isEqualTo(AccessPath.SCAN);
+            assertThat(heap.explain(ProductQuery.all().inCategory(Category.of("Dairy")))).isEqualTo(AccessPath.CATEGORY_INDEX);
+            assertThat(heap.explain(narrowPrice)).isEqualTo(AccessPath.PRICE_INDEX);
+            assertThat(heap.explain(narrowExpiry)).isEqualTo(AccessPath.EXPIRATION_INDEX);
+            assertThat(heap.explain(narrowName)).isEqualTo(AccessPath.NAME_INDEX);
+        }
+
+        @Test
+        @DisplayName("✅ Short name terms and off-heap warehouses fall back to a scan")
+        void scanFallbacks() {
+            // Arrange
+            ProductQuery shortTerm = ProductQuery.all().nameContains("k");
+            ProductQuery category = ProductQuery.all().inCategory(Category.of("Dairy"));
+
+            // Act & Assert
+            assertThat(heap.explain(shortTerm)).isEqualTo(AccessPath.SCAN);
+            assertThat(offHeap.explain(category)).isEqualTo(AccessPath.SCAN);
+        }
+    }
+
+    @Nested
+    @DisplayName("Validation")
+    class ValidationTests {
+
+        @Test
+        @DisplayName("❌ Null or negative arguments are rejected")
+        void invalidArguments() {
+            // Arrange
+            ProductQuery query = ProductQuery.all();
+
+            // Act & Assert
+            assertThatThrownBy(() -> query.inCategory(null))
+                    .isInstanceOf(IllegalArgumentException.class).hasMessage("Category cannot be null.");
+            assertThatThrownBy(() -> query.priceBetween(null, BigDecimal.ONE))
+                    .isInstanceOf(IllegalArgumentException.class).hasMessage("Price bounds cannot be null.");
+            assertThatThrownBy(() -> query.expiringBetween(BASE, null))
+                    .isInstanceOf(IllegalArgumentException.class).hasMessage("Expiration dates cannot be null.");
+            assertThatThrownBy(() -> query.nameContains(null))
+                    .isInstanceOf(IllegalArgumentException.class).hasMessage("Search term cannot be null.");
+            assertThatThrownBy(() -> query.where(null))
+                    .isInstanceOf(IllegalArgumentException.class).hasMessage("Predicate cannot be null.");
+            assertThatThrownBy(() -> query.limit(-1))
+                    .isInstanceOf(IllegalArgumentException.class).hasMessage("Limit cannot be negative.");
+            assertThatThrownBy(() -> heap.query(null))
+                    .isInstanceOf(IllegalArgumentException.class).hasMessage("Query cannot be null.");
+            assertThatThrownBy(() -> heap.query(query, null))
+                    .isInstanceOf(IllegalArgumentException.class).hasMessage("Projection cannot be null.");
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.example;
+
+import org.junit.jupiter.api.*;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+/**
+ * A cached analyzer must hand back the previous result while the warehouse version stands still,
+ * and a fresh one as soon as anything changes, expires or is evicted.
+ */
+@DisplayName("WarehouseAnalyzer result cache")
+class WarehouseAnalyzerCacheTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2030, 6, 1);
+
+    private Warehouse warehouse;
+    private final AtomicLong ticker = new AtomicLong();
+    private WarehouseAnalyzer analyzer;
+
+    @BeforeEach
+    void setUp() {
+        warehouse = Warehouse.getInstance("AnalyzerCacheTestWarehouse");
+        warehouse.clearProducts();
+        analyzer = new WarehouseAnalyzer(warehouse).cached(2, Duration.ofSeconds(10), ticker::get);
+        warehouse.addProduct(food("Milk", "12.50", TODAY.minusDays(1)));
+        warehouse.addProduct(food("Cheese", "1500.00", TODAY.plusDays(3)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        warehouse.clearProducts();
+    }
+
+    private static FoodProduct food(String name, String price, LocalDate expires) {
+        return new FoodProduct(UUID.randomUUID(), name, Category.of("Dairy"), new BigDecimal(price), expires, BigDecimal.ONE);
+    }
+
+    @Nested
+    @DisplayName("Version")
+    class VersionTests {
+
+        @Test
+        @DisplayName("✅ Every kind of write moves the version on, reads and no-op removals do not")
+        void writesMoveVersion() {
+            // Arrange
+            FoodProduct bread = food("Bread", "3.00", TODAY);
+            long initial = warehouse.version();
+
+            // Act & Assert
+            warehouse.addProduct(bread);
+            assertThat(warehouse.version()).isGreaterThan(initial);
+            long afterAdd = warehouse.version();
+            warehouse.addAll(List.of(food("Butter", "4.00", TODAY), food("Cream", "5.00", TODAY)));
+            assertThat(warehouse.version()).isGreaterThan(afterAdd);
+            long afterAddAll = warehouse.version();
+            warehouse.updateProductPrice(bread.uuid(), new BigDecimal("3.50"));
+            assertThat(warehouse.version()).isGreaterThan(afterAddAll);
+            long afterReprice = warehouse.version();
+            warehouse.getProducts();
+            warehouse.remove(UUID.randomUUID());
+            assertThat(warehouse.version()).isEqualTo(afterReprice);
+            warehouse.remove(bread.uuid());
+            assertThat(warehouse.version()).isGreaterThan(afterReprice);
+            long afterRemove = warehouse.version();
+            warehouse.clearProducts();
+            assertThat(warehouse.version()).isGreaterThan(afterRemove);
+        }
+    }
+
+    @Nested
+    @DisplayName("Hits and misses")
+    class HitTests {
+
+        @Test
+        @DisplayName("✅ Repeated calls on an unchanged warehouse return the cached result")
+        void repeatedCallsHit() {
+            // Arrange
+            InventoryStatistics first = analyzer.getInventoryStatistics(TODAY);
+
+            // Act
+            InventoryStatistics second = analyzer.getInventoryStatistics(TODAY);
+
+            // Assert
+            assertThat(second).isSameAs(first);
+            assertThat(first.getExpiredCount()).isEqualTo(1);
+            assertThat(analyzer.cacheStatistics()).isEqualTo(new ResultCache.Statistics(1, 1, 0, 1));
+        }
+
+        @Test
+        @DisplayName("✅ A write makes the next call recompute")
+        void writeInvalidates() {
+            // Arrange
+            InventoryValidation before = analyzer.validateInventoryConstraints();
+            Map<Category, BigDecimal> averagesBefore = analyzer.calculateWeightedAveragePriceByCategory();
+
+            // Act
+            warehouse.addProduct(food("Brie", "2000.00", TODAY.plusDays(9)));
+            InventoryValidation after = analyzer.validateInventoryConstraints();
+            Map<Category, BigDecimal> averagesAfter = analyzer.calculateWeightedAveragePriceByCategory();
+
+            // Assert
+            assertThat(before.getHighValuePercentage()).isEqualTo(50.0);
+            assertThat(after.getHighValuePercentage()).isCloseTo(66.67, offset(0.01));
+            assertThat(averagesAfter).isNotEqualTo(averagesBefore)
+                    .isEqualTo(new WarehouseAnalyzer(warehouse).calculateWeightedAveragePriceByCategory());
+            assertThat(analyzer.cacheStatistics().hits()).isZero();
+        }
+
+        @Test
+        @DisplayName("✅ Results for different days are cached separately")
+        void argumentsAreKeys() {
+            // Arrange
+            InventoryStatistics today = analyzer.getInventoryStatistics(TODAY);
+
+            // Act
+            InventoryStatistics later = analyzer.getInventoryStatistics(TODAY.plusDays(5));
+
+            // Assert
+            assertThat(today.getExpiredCount()).isEqualTo(1);
+            assertThat(later.getExpiredCount()).isEqualTo(2);
+            assertThat(analyzer.getInventoryStatistics(TODAY)).isSameAs(today);
+        }
+
+        @Test
+        @DisplayName("✅ Parallel and sequential views share the cache")
+        void viewsShareCache() {
+            // Arrange
+            InventoryStatistics first = analyzer.getInventoryStatistics(TODAY);
+
+            // Act
+            InventoryStatistics fromParallel = analyzer.parallel().getInventoryStatistics(TODAY);
+
+            // Assert
+            assertThat(fromParallel).isSameAs(first);
+            assertThat(analyzer.parallel().isCached()).isTrue();
+            assertThat(analyzer.uncached().isCached()).isFalse();
+            assertThat(analyzer.uncached().getInventoryStatistics(TODAY)).isNotSameAs(first);
+        }
+
+        @Test
+        @DisplayName("✅ Hits and misses are published on the warehouse's MXBean")
+        void publishedOverJmx() {
+            // Arrange
+            WarehouseMetrics metrics = warehouse.metrics();
+            metrics.reset();
+
+            // Act
+            analyzer.getInventoryStatistics(TODAY);
+            analyzer.getInventoryStatistics(TODAY);
+            analyzer.getInventoryStatistics(TODAY);
+
+            // Assert
+            assertThat(metrics.getAnalyzerCacheHits()).isEqualTo(WarehouseMetrics.ENABLED ? 2 : 0);
+            assertThat(metrics.getAnalyzerCacheMisses()).isEqualTo(WarehouseMetrics.ENABLED ? 1 : 0);
+        }
+
+        @Test
+        @DisplayName("❌ Cached averages cannot be modified by one caller for the next")
+        void sharedResultsAreUnmodifiable() {
+            // Arrange
+            Map<Category, BigDecimal> averages = analyzer.calculateWeightedAveragePriceByCategory();
+
+            // Act & Assert
+            assertThatThrownBy(() -> averages.put(Category.of("Fruit"), BigDecimal.ONE))
+                    .isInstanceOf(UnsupportedOperationException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Eviction")
+    class EvictionTests {
+
+        @Test
+        @DisplayName("✅ Entries past their time to live are recomputed")
+        void timeToLive() {
+            // Arrange
+            InventoryStatistics first = analyzer.getInventoryStatistics(TODAY);
+
+            // Act
+            ticker.addAndGet(Duration.ofSeconds(9).toNanos());
+            InventoryStatistics beforeExpiry = analyzer.getInventoryStatistics(TODAY);
+            ticker.addAndGet(Duration.ofSeconds(2).toNanos());
+            InventoryStatistics afterExpiry = analyzer.getInventoryStatistics(TODAY);
+
+            // Assert
+            assertThat(beforeExpiry).isSameAs(first);
+            assertThat(afterExpiry).isNotSameAs(first);
+            assertThat(analyzer.cacheStatistics().evictions()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("✅ The least recently used entry goes first")
+        void leastRecentlyUsed() {
+            // Arrange
+            InventoryStatistics first = analyzer.getInventoryStatistics(TODAY);
+            InventoryStatistics second = analyzer.getInventoryStatistics(TODAY.plusDays(1));
+            analyzer.getInventoryStatistics(TODAY);
+
+            // Act
+            analyzer.getInventoryStatistics(TODAY.plusDays(2));
+
+            // Assert
+            assertThat(analyzer.getInventoryStatistics(TODAY)).isSameAs(first);
+            assertThat(analyzer.getInventoryStatistics(TODAY.plusDays(1))).isNotSameAs(second);
+            assertThat(analyzer.cacheStatistics().size()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("❌ Invalid cache settings are rejected")
+        void invalidSettings() {
+            // Arrange
+            WarehouseAnalyzer plain = new WarehouseAnalyzer(warehouse);
+
+            // Act & Assert
+            assertThatThrownBy(() -> plain.cached(0, Duration.ofSeconds(1)))
+                    .isInstanceOf(IllegalArgumentException.class).hasMessage("Cache size must be positive.");
+            assertThatThrownBy(() -> plain.cached(8, Duration.ZERO))
+                    .isInstanceOf(IllegalArgumentException.class).hasMessage("Time to live must be positive.");
+            assertThatThrownBy(() -> plain.cached(8, null))
+                    .isInstanceOf(IllegalArgumentException.class).hasMessage("Time to live must be positive.");
+            assertThatThrownBy(plain::cacheStatistics)
+                    .isInstanceOf(IllegalStateException.class).hasMessage("Analyzer is not cached.");
+        }
+    }
+}
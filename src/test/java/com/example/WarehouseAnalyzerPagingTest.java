@@ -0,0 +1,224 @@
+package com.example;
+
+import org.junit.jupiter.api.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.BiFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Walking every page, or consuming the stream, must yield exactly what the list methods return,
+ * on heap and off-heap warehouses, and a page token must keep its place across writes.
+ */
+@DisplayName("WarehouseAnalyzer streams and pages")
+class WarehouseAnalyzerPagingTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2030, 3, 1);
+
+    private Warehouse heap;
+    private Warehouse offHeap;
+
+    @BeforeEach
+    void setUp() {
+        heap = Warehouse.getInstance("PagingHeapWarehouse");
+        heap.clearProducts();
+        offHeap = Warehouse.getInstance("PagingOffHeapWarehouse", Storage.OFF_HEAP);
+        offHeap.clearProducts();
+        Random random = new Random(25);
+        String[] names = {"Milk", "Cheese", "Phone", "Tablet"};
+        List<Product> catalog = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            String name = names[random.nextInt(names.length)] + " " + i;
+            //few distinct prices and days, so pages often split a run of equal keys
+            BigDecimal price = BigDecimal.valueOf(100 * random.nextInt(40), 2);
+            if (random.nextBoolean()) {
+                LocalDate expires = random.nextInt(10) == 0 ? null : TODAY.plusDays(random.nextInt(12));
+                catalog.add(new FoodProduct(UUID.randomUUID(), name, Category.of("Dairy"), price, expires, BigDecimal.ONE));
+            } else {
+                catalog.add(new ElectronicsProduct(UUID.randomUUID(), name, Category.of("Electronics"), price, 12, BigDecimal.ONE));
+            }
+        }
+        heap.addAll(catalog);
+        offHeap.addAll(catalog);
+    }
+
+    @AfterEach
+    void tearDown() {
+        heap.clearProducts();
+        offHeap.clearProducts();
+    }
+
+    //every item of every page, checking each page's size on the way
+    private static <T> List<T> walk(BiFunction<Integer, String, Page<T>> pages, int pageSize) {
+        List<T> all = new ArrayList<>();
+        Page<T> page = pages.apply(pageSize, null);
+        while (true) {
+            assertThat(page.items()).hasSizeLessThanOrEqualTo(pageSize);
+            all.addAll(page.items());
+            if (!page.hasNext()) return all;
+            assertThat(page.items()).hasSize(pageSize);
+            page = pages.apply(pageSize, page.nextToken());
+        }
+    }
+
+    private static List<UUID> ids(List<?> products) {
+        return products.stream().map(p -> ((Product) p).uuid()).toList();
+    }
+
+    private static List<UUID> sortedIds(List<?> products) {
+        return products.stream().map(p -> ((Product) p).uuid()).sorted(Comparator.naturalOrder()).toList();
+    }
+
+    private static final Comparator<Product> BY_PRICE = Comparator.<Product, BigDecimal>comparing(Product::price)
+            .thenComparingLong(p -> p.uuid().getMostSignificantBits())
+            .thenComparingLong(p -> p.uuid().getLeastSignificantBits());
+
+    //ids as two signed halves, the order name pages use
+    private static final Comparator<Product> BY_ID = Comparator.<Product>comparingLong(p -> p.uuid().getMostSignificantBits())
+            .thenComparingLong(p -> p.uuid().getLeastSignificantBits());
+
+    @Nested
+    @DisplayName("Pages")
+    class PageTests {
+
+        @Test
+        @DisplayName("✅ Price pages cover the list result in price order on both storages")
+        void pricePages() {
+            // Arrange
+            BigDecimal min = new BigDecimal("5.00");
+            BigDecimal max = new BigDecimal("30.00");
+            BigDecimal above = new BigDecimal("20.00");
+
+            for (Warehouse warehouse : List.of(heap, offHeap)) {
+                WarehouseAnalyzer analyzer = new WarehouseAnalyzer(warehouse);
+                List<Product> expectedRange = analyzer.findProductsInPriceRange(min, max).stream().sorted(BY_PRICE).toList();
+                List<Product> expectedAbove = analyzer.findProductsAbovePrice(above).stream().sorted(BY_PRICE).toList();
+
+                // Act
+                List<Product> range = walk((size, token) -> analyzer.findProductsInPriceRange(min, max, size, token), 17);
+                List<Product> abovePages = walk((size, token) -> analyzer.findProductsAbovePrice(above, size, token), 23);
+
+                // Assert
+                assertThat(ids(range)).isEqualTo(ids(expectedRange));
+                assertThat(ids(abovePages)).isEqualTo(ids(expectedAbove));
+            }
+        }
+
+        @Test
+        @DisplayName("✅ Expiry and name pages cover the list result on both storages")
+        void expiryAndNamePages() {
+            for (Warehouse warehouse : List.of(heap, offHeap)) {
+                // Arrange
+                WarehouseAnalyzer analyzer = new WarehouseAnalyzer(warehouse);
+
+                // Act
+                List<Perishable> expiring = walk((size, token) -> analyzer.findProductsExpiringWithinDays(4, TODAY, size, token), 9);
+                List<Product> named = walk((size, token) -> analyzer.searchProductsByName("MILK", size, token), 13);
+                List<Product> shortTerm = walk((size, token) -> analyzer.searchProductsByName("k 1", size, token), 7);
+
+                // Assert
+                assertThat(ids(expiring)).doesNotHaveDuplicates()
+                        .containsExactlyInAnyOrderElementsOf(ids(analyzer.findProductsExpiringWithinDays(4, TODAY)));
+                assertThat(expiring).isSortedAccordingTo(Comparator.comparing(Perishable::expirationDate));
+                assertThat(ids(named)).isEqualTo(ids(analyzer.searchProductsByName("milk").stream().sorted(BY_ID).toList()));
+                assertThat(ids(shortTerm)).isEqualTo(sortedIds(analyzer.searchProductsByName("k 1")));
+            }
+        }
+
+        @Test
+        @DisplayName("✅ A token continues after its product even when products are removed")
+        void tokenSurvivesWrites() {
+            // Arrange
+            WarehouseAnalyzer analyzer = new WarehouseAnalyzer(heap);
+            BigDecimal min = BigDecimal.ZERO;
+            BigDecimal max = new BigDecimal("100.00");
+            List<Product> expected = analyzer.findProductsInPriceRange(min, max).stream().sorted(BY_PRICE).toList();
+            Page<Product> first = analyzer.findProductsInPriceRange(min, max, 10, null);
+
+            // Act
+            for (Product p : first.items()) heap.remove(p.uuid());
+            Page<Product> second = analyzer.findProductsInPriceRange(min, max, 10, first.nextToken());
+
+            // Assert
+            assertThat(ids(first.items())).isEqualTo(ids(expected.subList(0, 10)));
+            assertThat(ids(second.items())).isEqualTo(ids(expected.subList(10, 20)));
+        }
+
+        @Test
+        @DisplayName("✅ An empty result is one page without a token")
+        void emptyResult() {
+            // Arrange
+            WarehouseAnalyzer analyzer = new WarehouseAnalyzer(heap);
+
+            // Act
+            Page<Product> page = analyzer.findProductsAbovePrice(new BigDecimal("1000.00"), 10, null);
+
+            // Assert
+            assertThat(page.items()).isEmpty();
+            assertThat(page.hasNext()).isFalse();
+        }
+
+        @Test
+        @DisplayName("❌ Bad page sizes and foreign or corrupt tokens are rejected")
+        void invalidArguments() {
+            // Arrange
+            WarehouseAnalyzer analyzer = new WarehouseAnalyzer(heap);
+            String priceToken = analyzer.findProductsAbovePrice(BigDecimal.ZERO, 1, null).nextToken();
+
+            // Act & Assert
+            assertThatThrownBy(() -> analyzer.findProductsAbovePrice(BigDecimal.ZERO, 0, null))
+                    .isInstanceOf(IllegalArgumentException.class).hasMessage("Page size must be positive.");
+            assertThatThrownBy(() -> analyzer.searchProductsByName("milk", 5, priceToken))
+                    .isInstanceOf(IllegalArgumentException.class).hasMessage("Invalid page token.");
+            assertThatThrownBy(() -> analyzer.findProductsAbovePrice(BigDecimal.ZERO, 5, "not a token"))
+                    .isInstanceOf(IllegalArgumentException.class).hasMessage("Invalid page token.");
+        }
+    }
+
+    @Nested
+    @DisplayName("Streams")
+    class StreamTests {
+
+        @Test
+        @DisplayName("✅ Streams yield the list results on both storages")
+        void streamsMatchLists() {
+            for (Warehouse warehouse : List.of(heap, offHeap)) {
+                // Arrange
+                WarehouseAnalyzer analyzer = new WarehouseAnalyzer(warehouse);
+                BigDecimal min = new BigDecimal("3.00");
+                BigDecimal max = new BigDecimal("9.00");
+
+                // Act & Assert
+                assertThat(sortedIds(analyzer.streamProductsInPriceRange(min, max).toList()))
+                        .isEqualTo(sortedIds(analyzer.findProductsInPriceRange(min, max)));
+                assertThat(sortedIds(analyzer.streamProductsAbovePrice(max).toList()))
+                        .isEqualTo(sortedIds(analyzer.findProductsAbovePrice(max)));
+                assertThat(sortedIds(analyzer.streamProductsExpiringWithinDays(2, TODAY).toList()))
+                        .isEqualTo(sortedIds(analyzer.findProductsExpiringWithinDays(2, TODAY)));
+                assertThat(sortedIds(analyzer.streamProductsByName("tablet").toList()))
+                        .isEqualTo(sortedIds(analyzer.searchProductsByName("tablet")));
+            }
+        }
+
+        @Test
+        @DisplayName("✅ A limited stream returns only what was asked for")
+        void limitedStream() {
+            // Arrange
+            WarehouseAnalyzer analyzer = new WarehouseAnalyzer(heap);
+
+            // Act
+            List<Product> firstFive = analyzer.streamProductsAbovePrice(BigDecimal.ZERO).limit(5).toList();
+
+            // Assert
+            assertThat(firstFive).hasSize(5).allMatch(p -> p.price().signum() > 0);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example;
+
+import org.junit.jupiter.api.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The parallel analyzer must give the same answers as the sequential one, whatever the split.
+ */
+@DisplayName("WarehouseAnalyzer parallel mode")
+class WarehouseAnalyzerParallelTest {
+
+    private static ForkJoinPool pool;
+
+    private Warehouse warehouse;
+    private WarehouseAnalyzer sequential;
+    private WarehouseAnalyzer parallel;
+
+    @BeforeAll
+    static void startPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.shutdown();
+    }
+
+    @BeforeEach
+    void setUp() {
+        warehouse = Warehouse.getInstance("ParallelAnalyzerTestWarehouse");
+        warehouse.clearProducts();
+        sequential = new WarehouseAnalyzer(warehouse);
+        //threshold 1 so even this small inventory is split
+        parallel = sequential.parallel(pool, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        warehouse.clearProducts();
+    }
+
+    //gram-precision weights with no special structure, so any difference in how the modes sum or divide them shows
+    private void fill(int count, long seed) {
+        Random random = new Random(seed);
+        Category[] categories = {Category.of("Dairy"), Category.of("Fruit"), Category.of("Electronics")};
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < count; i++) {
+            BigDecimal price = BigDecimal.valueOf(random.nextInt(300_000), 2);
+            BigDecimal weight = BigDecimal.valueOf(1 + random.nextInt(25_000), 3);
+            Category category = categories[random.nextInt(categories.length)];
+            if (category == categories[2]) {
+                warehouse.addProduct(new ElectronicsProduct(UUID.randomUUID(), "Gadget" + i, category, price, 12, weight));
+            } else {
+                warehouse.addProduct(new FoodProduct(UUID.randomUUID(), "Food" + i, category, price,
+                        today.plusDays(random.nextInt(10) - 3), weight));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("📊 should match the sequential weighted averages, validation and discounts")
+    void should_matchSequentialResults() {
+        // Arrange
+        fill(5_000, 1);
+
+        Map<Category, BigDecimal[]> sums = new HashMap<>();
+        for (Product p : warehouse.getProducts()) {
+            BigDecimal weight = BigDecimal.valueOf(((Shippable) p).weight());
+            BigDecimal[] sum = sums.computeIfAbsent(p.category(), c -> new BigDecimal[]{BigDecimal.ZERO, BigDecimal.ZERO});
+            sum[0] = sum[0].add(p.price().multiply(weight));
+            sum[1] = sum[1].add(weight);
+        }
+        Map<Category, BigDecimal> exact = new HashMap<>();
+        sums.forEach((c, sum) -> exact.put(c, sum[0].divide(sum[1], 2, RoundingMode.HALF_UP)));
+
+        // Act & Assert
+        assertThat(sequential.calculateWeightedAveragePriceByCategory()).isEqualTo(exact);
+        assertThat(parallel.calculateWeightedAveragePriceByCategory()).isEqualTo(exact);
+        InventoryValidation expected = sequential.validateInventoryConstraints();
+        InventoryValidation actual = parallel.validateInventoryConstraints();
+        assertThat(actual.getHighValuePercentage()).isEqualTo(expected.getHighValuePercentage());
+        assertThat(actual.getCategoryDiversity()).isEqualTo(expected.getCategoryDiversity());
+        assertThat(parallel.calculateExpirationBasedDiscounts())
+                .isEqualTo(sequential.calculateExpirationBasedDiscounts());
+    }
+
+    @Test
+    @DisplayName("📊 should find the same outliers in the same price order")
+    void should_matchSequentialOutliers() {
+        // Arrange
+        fill(5_000, 2);
+        warehouse.addProduct(new ElectronicsProduct(UUID.randomUUID(), "Gold", Category.of("Electronics"),
+                new BigDecimal("99999.99"), 12, BigDecimal.ONE));
+
+        // Act
+        var expected = sequential.findPriceOutliers(0.5);
+        var actual = parallel.findPriceOutliers(0.5);
+
+        // Assert
+        assertThat(actual).containsExactlyInAnyOrderElementsOf(expected);
+        assertThat(actual).extracting(Product::price).isSortedAccordingTo(BigDecimal::compareTo);
+    }
+
+    @Test
+    @DisplayName("✅ should handle an empty warehouse")
+    void should_handleEmptyWarehouse() {
+        // Act & Assert
+        assertThat(parallel.calculateWeightedAveragePriceByCategory()).isEmpty();
+        assertThat(parallel.findPriceOutliers(2.0)).isEmpty();
+        assertThat(parallel.calculateExpirationBasedDiscounts()).isEmpty();
+        assertThat(parallel.validateInventoryConstraints().getHighValuePercentage()).isZero();
+    }
+
+    @Test
+    @DisplayName("❌ should reject a missing pool or a non-positive threshold")
+    void should_rejectInvalidSettings() {
+        // Act & Assert
+        assertThatThrownBy(() -> sequential.parallel(null, 10))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Pool cannot be null.");
+        assertThatThrownBy(() -> sequential.parallel(pool, 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Parallel threshold must be positive.");
+        assertThat(parallel.sequential().isParallel()).isFalse();
+    }
+}
@@ -0,0 +1,133 @@
+package com.example;
+
+import org.junit.jupiter.api.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Hammers a shared {@link Warehouse} from several threads and checks that the product map,
+ * its indexes and the flyweight registries end up consistent.
+ */
+@DisplayName("Concurrent Warehouse access")
+class WarehouseConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int PER_THREAD = 2_000;
+
+    private Warehouse warehouse;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        warehouse = Warehouse.getInstance("ConcurrencyTestWarehouse");
+        warehouse.clearProducts();
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private void runOnAllThreads(IntConsumerTask task) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                task.run(thread);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) f.get(30, TimeUnit.SECONDS);
+    }
+
+    @FunctionalInterface
+    private interface IntConsumerTask {
+        void run(int thread) throws Exception;
+    }
+
+    @Test
+    @DisplayName("🧵 should keep indexes in step with concurrent adds, repricing and removals")
+    void should_keepIndexesConsistent_underConcurrentWriters() throws Exception {
+        // Arrange
+        LocalDate expired = LocalDate.now().minusDays(1);
+
+        // Act - every thread adds its own products, reprices them to 50 and removes every other one
+        runOnAllThreads(thread -> {
+            for (int i = 0; i < PER_THREAD; i++) {
+                Product p = new FoodProduct(UUID.randomUUID(), "Milk " + thread + "-" + i, Category.of("Dairy"),
+                        BigDecimal.TEN, expired, BigDecimal.ONE);
+                warehouse.addProduct(p);
+                warehouse.updateProductPrice(p.uuid(), new BigDecimal("50"));
+                if (i % 2 == 0) warehouse.remove(p.uuid());
+            }
+        });
+
+        // Assert
+        int expected = THREADS * PER_THREAD / 2;
+        assertThat(warehouse.getProducts()).hasSize(expected);
+        assertThat(warehouse.productsInPriceRange(new BigDecimal("50"), new BigDecimal("50"))).hasSize(expected);
+        assertThat(warehouse.productsAbovePrice(BigDecimal.TEN)).hasSize(expected);
+        assertThat(warehouse.productsInPriceRange(BigDecimal.ZERO, new BigDecimal("49.99"))).isEmpty();
+        assertThat(warehouse.countExpiredProducts(LocalDate.now())).isEqualTo(expected);
+        assertThat(warehouse.searchByName("milk")).hasSize(expected);
+        assertThat(warehouse.totalValue()).isEqualByComparingTo(BigDecimal.valueOf(50L * expected));
+    }
+
+    @Test
+    @DisplayName("🧵 should hand out a single flyweight per name under contention")
+    void should_returnSingleInstance_underContention() throws Exception {
+        // Arrange
+        Set<Category> categories = ConcurrentHashMap.newKeySet();
+        Set<Warehouse> warehouses = ConcurrentHashMap.newKeySet();
+
+        // Act
+        runOnAllThreads(thread -> {
+            categories.add(Category.of("Contended"));
+            warehouses.add(Warehouse.getInstance("ContendedWarehouse"));
+        });
+
+        // Assert
+        assertThat(categories).hasSize(1);
+        assertThat(warehouses).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("🧵 should let readers walk the live view while writers add products")
+    void should_iterateLiveView_whileWritersRun() throws Exception {
+        // Arrange
+        for (int i = 0; i < PER_THREAD; i++) {
+            warehouse.addProduct(new FoodProduct(UUID.randomUUID(), "Seed" + i, Category.of("Dairy"),
+                    BigDecimal.ONE, LocalDate.now(), BigDecimal.ONE));
+        }
+
+        // Act - half the threads write, the other half iterate without copying
+        runOnAllThreads(thread -> {
+            for (int i = 0; i < PER_THREAD; i++) {
+                if (thread % 2 == 0) {
+                    warehouse.addProduct(new FoodProduct(UUID.randomUUID(), "Added", Category.of("Dairy"),
+                            BigDecimal.ONE, LocalDate.now(), BigDecimal.ONE));
+                } else if (i % 100 == 0) {
+                    long seen = warehouse.stream().count();
+                    assertThat(seen).isGreaterThanOrEqualTo(PER_THREAD);
+                }
+            }
+        });
+
+        // Assert
+        assertThat(warehouse.productsView())
+                .hasSize(PER_THREAD + THREADS / 2 * PER_THREAD)
+                .isUnmodifiable();
+    }
+}
@@ -0,0 +1,153 @@
+package com.example;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the Flight Recorder events of Warehouse bulk mutations and WarehouseAnalyzer queries,
+ * read back from a dumped recording.
+ */
+@DisplayName("Warehouse JFR events")
+class WarehouseEventsTest {
+
+    @TempDir
+    Path directory;
+
+    private Warehouse warehouse;
+
+    @BeforeEach
+    void setUp() {
+        warehouse = Warehouse.getInstance("EventsTestWarehouse");
+        warehouse.clearProducts();
+    }
+
+    @AfterEach
+    void tearDown() {
+        warehouse.clearProducts();
+    }
+
+    private static List<Product> boxes(int count) {
+        List<Product> boxes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            boxes.add(new ElectronicsProduct(UUID.randomUUID(), "Box" + i, Category.of("Electronics"),
+                    BigDecimal.valueOf(10 + i), 12, BigDecimal.valueOf(2)));
+        }
+        return boxes;
+    }
+
+    private List<RecordedEvent> read(Recording recording, String eventName) throws IOException {
+        Path file = directory.resolve("warehouse.jfr");
+        recording.dump(file);
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(e -> e.getEventType().getName().equals(eventName))
+                .toList();
+    }
+
+    @Nested
+    @DisplayName("Recorded events")
+    class RecordedTests {
+
+        @Test
+        @DisplayName("✅ should record analyzer queries with method, input size, result size and duration")
+        void should_recordAnalyzerQueries() throws IOException {
+            // Arrange
+            warehouse.addAll(boxes(50));
+            WarehouseAnalyzer analyzer = new WarehouseAnalyzer(warehouse);
+
+            // Act
+            List<RecordedEvent> events;
+            try (Recording recording = new Recording()) {
+                recording.enable(AnalyzerQueryEvent.class).withThreshold(Duration.ZERO);
+                recording.start();
+                analyzer.findProductsAbovePrice(new BigDecimal("49"));
+                analyzer.getInventoryStatistics();
+                recording.stop();
+                events = read(recording, "com.example.AnalyzerQuery");
+            }
+
+            // Assert
+            assertThat(events).extracting(e -> e.getString("method"))
+                    .containsExactly("WarehouseAnalyzer.findProductsAbovePrice", "WarehouseAnalyzer.getInventoryStatistics");
+            RecordedEvent above = events.get(0);
+            assertThat(above.getInt("inputSize")).isEqualTo(50);
+            assertThat(above.getInt("resultSize")).isEqualTo(10);
+            assertThat(above.getDuration()).isPositive();
+            assertThat(events.get(1).getInt("resultSize")).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("✅ should record bulk adds, clears and shipping optimization runs")
+        void should_recordBulkMutationsAndShipping() throws IOException {
+            // Arrange
+            WarehouseAnalyzer analyzer = new WarehouseAnalyzer(warehouse);
+
+            // Act
+            List<RecordedEvent> bulk;
+            List<RecordedEvent> shipping;
+            try (Recording recording = new Recording()) {
+                recording.enable(BulkMutationEvent.class).withThreshold(Duration.ZERO);
+                recording.enable(ShippingOptimizationEvent.class).withThreshold(Duration.ZERO);
+                recording.start();
+                warehouse.addAll(boxes(30));
+                analyzer.optimizeShippingGroups(new BigDecimal("10"));
+                warehouse.clearProducts();
+                recording.stop();
+                bulk = read(recording, "com.example.BulkMutation");
+                shipping = read(recording, "com.example.ShippingOptimization");
+            }
+
+            // Assert
+            assertThat(bulk).extracting(e -> e.getString("method"))
+                    .containsExactly("Warehouse.addAll", "Warehouse.clearProducts");
+            assertThat(bulk).extracting(e -> e.getInt("products")).containsExactly(30, 30);
+            assertThat(bulk).extracting(e -> e.getInt("catalogSize")).containsExactly(30, 0);
+            assertThat(shipping).hasSize(1);
+            RecordedEvent run = shipping.get(0);
+            assertThat(run.getString("strategy")).isEqualTo("FIRST_FIT_DECREASING");
+            assertThat(run.getDouble("maxWeightPerGroup")).isEqualTo(10.0);
+            assertThat(run.getInt("products")).isEqualTo(30);
+            //five 2 kg boxes fill each 10 kg group
+            assertThat(run.getInt("groups")).isEqualTo(6);
+            assertThat(run.getDouble("fillRatio")).isEqualTo(1.0);
+        }
+    }
+
+    @Nested
+    @DisplayName("Thresholds")
+    class ThresholdTests {
+
+        @Test
+        @DisplayName("✅ should leave fast calls out under the default thresholds")
+        void should_skipFastCalls() throws IOException {
+            // Arrange
+            warehouse.addAll(boxes(5));
+            WarehouseAnalyzer analyzer = new WarehouseAnalyzer(warehouse);
+
+            // Act
+            List<RecordedEvent> events;
+            try (Recording recording = new Recording()) {
+                recording.enable(AnalyzerQueryEvent.class);
+                recording.start();
+                analyzer.findProductsAbovePrice(BigDecimal.ONE);
+                recording.stop();
+                events = read(recording, "com.example.AnalyzerQuery");
+            }
+
+            // Assert
+            assertThat(events).isEmpty();
+        }
+    }
+}
@@ -0,0 +1,616 @@
+package com.example;
+
+import org.junit.jupiter.api.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Verifies that the secondary indexes inside {@link Warehouse} stay consistent with its products
+ * across adds, price updates, removals and clears.
+ */
+@DisplayName("Warehouse secondary indexes")
+class WarehouseIndexTest {
+
+    private Warehouse warehouse;
+
+    @BeforeEach
+    void setUp() {
+        warehouse = Warehouse.getInstance("IndexTestWarehouse");
+        warehouse.clearProducts();
+        warehouse.usePriceQuantiles(QuantileMode.EXACT);
+        warehouse.useClock(Clock.systemDefaultZone());
+    }
+
+    private Product food(String name, String price) {
+        return new FoodProduct(UUID.randomUUID(), name, Category.of("Dairy"), new BigDecimal(price),
+                LocalDate.now().plusDays(5), BigDecimal.ONE);
+    }
+
+    @Nested
+    @DisplayName("Price index")
+    class PriceIndexTests {
+
+        @Test
+        @DisplayName("✅ should move a product to its new price after updateProductPrice")
+        void should_followPriceUpdates() {
+            // Arrange
+            Product milk = food("Milk", "15.00");
+            warehouse.addProduct(milk);
+
+            // Act
+            warehouse.updateProductPrice(milk.uuid(), new BigDecimal("45.00"));
+
+            // Assert
+            assertThat(warehouse.productsInPriceRange(new BigDecimal("10"), new BigDecimal("20"))).isEmpty();
+            assertThat(warehouse.productsInPriceRange(new BigDecimal("40"), new BigDecimal("50"))).containsExactly(milk);
+        }
+
+        @Test
+        @DisplayName("✅ should keep products with equal prices apart and drop removed ones")
+        void should_handleEqualPricesAndRemoval() {
+            // Arrange
+            Product milk = food("Milk", "10.00");
+            Product cream = food("Cream", "10.0");
+            warehouse.addProduct(milk);
+            warehouse.addProduct(cream);
+
+            // Act
+            warehouse.remove(milk.uuid());
+
+            // Assert
+            assertThat(warehouse.productsInPriceRange(new BigDecimal("10"), new BigDecimal("10"))).containsExactly(cream);
+        }
+
+        @Test
+        @DisplayName("✅ should treat the above-price threshold as exclusive")
+        void should_excludeThresholdPrice() {
+            // Arrange
+            Product atThreshold = food("Milk", "20.00");
+            Product above = food("Cheese", "20.01");
+            warehouse.addProduct(atThreshold);
+            warehouse.addProduct(above);
+
+            // Act & Assert
+            assertThat(warehouse.productsAbovePrice(new BigDecimal("20"))).containsExactly(above);
+        }
+
+        @Test
+        @DisplayName("✅ should return nothing for an inverted range or after clearProducts")
+        void should_returnEmpty_when_rangeInvertedOrCleared() {
+            // Arrange
+            warehouse.addProduct(food("Milk", "15.00"));
+
+            // Act & Assert
+            assertThat(warehouse.productsInPriceRange(new BigDecimal("20"), new BigDecimal("10"))).isEmpty();
+            warehouse.clearProducts();
+            assertThat(warehouse.productsAbovePrice(BigDecimal.ZERO)).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("Expiration index")
+    class ExpirationIndexTests {
+
+        private final LocalDate today = LocalDate.of(2030, 6, 15);
+
+        private Product expiringOn(String name, LocalDate date) {
+            return new FoodProduct(UUID.randomUUID(), name, Category.of("Dairy"), BigDecimal.TEN, date, BigDecimal.ONE);
+        }
+
+        @Test
+        @DisplayName("✅ should report products expired as of a given day, excluding that day")
+        void should_findExpiredAsOfDay() {
+            // Arrange
+            Product old = expiringOn("Old", today.minusDays(3));
+            Product yesterday = expiringOn("Yesterday", today.minusDays(1));
+            Product fresh = expiringOn("Fresh", today);
+            warehouse.addProduct(old);
+            warehouse.addProduct(yesterday);
+            warehouse.addProduct(fresh);
+
+            // Act
+            List<Perishable> expired = warehouse.expiredProducts(today);
+
+            // Assert
+            assertThat(expired).containsExactlyInAnyOrder((Perishable) old, (Perishable) yesterday);
+            assertThat(warehouse.countExpiredProducts(today)).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("✅ should only return products inside the inclusive day window")
+        void should_findProductsExpiringBetween() {
+            // Arrange
+            Product first = expiringOn("First", today);
+            Product last = expiringOn("Last", today.plusDays(3));
+            warehouse.addProduct(first);
+            warehouse.addProduct(last);
+            warehouse.addProduct(expiringOn("Later", today.plusDays(4)));
+            warehouse.addProduct(new ElectronicsProduct(UUID.randomUUID(), "Laptop", Category.of("Electronics"),
+                    BigDecimal.TEN, 12, BigDecimal.ONE));
+
+            // Act & Assert
+            assertThat(warehouse.productsExpiringBetween(today, today.plusDays(3)))
+                    .containsExactlyInAnyOrder((Perishable) first, (Perishable) last);
+        }
+
+        @Test
+        @DisplayName("✅ should forget removed products")
+        void should_dropRemovedProducts() {
+            // Arrange
+            Product old = expiringOn("Old", today.minusDays(3));
+            warehouse.addProduct(old);
+
+            // Act
+            warehouse.remove(old.uuid());
+
+            // Assert
+            assertThat(warehouse.expiredProducts(today)).isEmpty();
+            assertThat(warehouse.countExpiredProducts(today)).isZero();
+        }
+
+        @Test
+        @DisplayName("✅ should drop a day's bucket once its last product is removed")
+        void should_dropEmptiedBuckets() {
+            // Arrange
+            ExpirationIndex index = new ExpirationIndex();
+            Product milk = expiringOn("Milk", today);
+            Product cheese = expiringOn("Cheese", today);
+            index.addedAll(List.of(milk, cheese));
+            long day = today.toEpochDay();
+
+            // Act
+            index.removed(milk);
+            int afterFirst = index.bucketsBetween(day, day).size();
+            index.removed(cheese);
+
+            // Assert
+            assertThat(afterFirst).isEqualTo(1);
+            assertThat(index.bucketsBetween(day, day)).isEmpty();
+            index.added(milk);
+            assertThat(index.expiringOn(day)).containsExactly(milk);
+        }
+
+        @Test
+        @DisplayName("✅ should keep concurrent adds to a day whose bucket is being emptied")
+        void should_keepAdds_when_bucketEmptiesConcurrently() throws InterruptedException {
+            // Arrange
+            ExpirationIndex index = new ExpirationIndex();
+            long day = today.toEpochDay();
+            List<Product> kept = new ArrayList<>();
+            List<Thread> threads = new ArrayList<>();
+
+            // Act
+            for (int t = 0; t < 4; t++) {
+                Product churned = expiringOn("Churned" + t, today);
+                Product stays = expiringOn("Stays" + t, today);
+                kept.add(stays);
+                threads.add(Thread.ofPlatform().start(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        index.added(churned);
+                        index.removed(churned);
+                    }
+                    index.added(stays);
+                }));
+            }
+            for (Thread thread : threads) thread.join();
+
+            // Assert
+            assertThat(index.expiringOn(day)).containsExactlyInAnyOrderElementsOf(kept);
+        }
+
+        @Test
+        @DisplayName("✅ should take today from the warehouse clock")
+        void should_followInjectedClock() {
+            // Arrange
+            Product yesterday = expiringOn("Yesterday", today.minusDays(1));
+            Product fresh = expiringOn("Fresh", today);
+            warehouse.addProduct(yesterday);
+            warehouse.addProduct(fresh);
+            Product undated = new FoodProduct(UUID.randomUUID(), "Salt", Category.of("Pantry"), BigDecimal.ONE, null, BigDecimal.ONE);
+            warehouse.addProduct(undated);
+
+            // Act
+            warehouse.useClock(Clock.fixed(today.atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC));
+
+            // Assert
+            assertThat(warehouse.today()).isEqualTo(today);
+            assertThat(warehouse.expiredProducts()).containsExactly((Perishable) yesterday);
+            assertThat(new WarehouseAnalyzer(warehouse).getInventoryStatistics().getExpiredCount()).isEqualTo(1);
+            assertThat(((Perishable) fresh).isExpired(today)).isFalse();
+            assertThat(((Perishable) fresh).isExpired(today.plusDays(1))).isTrue();
+            assertThat(((Perishable) undated).isExpired(LocalDate.MAX)).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("Name index")
+    class NameIndexTests {
+
+        @Test
+        @DisplayName("🔍 should not match names that contain every trigram but not the whole term")
+        void should_verifyCandidates_when_trigramsMatch() {
+            // Arrange - "abcxbcd" holds both "abc" and "bcd" but not "abcd"
+            warehouse.addProduct(food("abcxbcd", "1.00"));
+            Product match = food("ABCD box", "1.00");
+            warehouse.addProduct(match);
+
+            // Act & Assert
+            assertThat(warehouse.searchByName("abcd")).containsExactly(match);
+        }
+
+        @Test
+        @DisplayName("🔍 should handle search terms shorter than a trigram")
+        void should_searchShortTerms() {
+            // Arrange
+            Product milk = food("Milk", "1.00");
+            warehouse.addProduct(milk);
+            warehouse.addProduct(food("Cheese", "1.00"));
+
+            // Act & Assert
+            assertThat(warehouse.searchByName("mI")).containsExactly(milk);
+            assertThat(warehouse.searchByName("")).hasSize(2);
+        }
+
+        @Test
+        @DisplayName("✅ should forget removed products")
+        void should_dropRemovedProducts() {
+            // Arrange
+            Product milk = food("Milk", "1.00");
+            warehouse.addProduct(milk);
+
+            // Act
+            warehouse.remove(milk.uuid());
+
+            // Assert
+            assertThat(warehouse.searchByName("milk")).isEmpty();
+        }
+
+        @Test
+        @DisplayName("🔍 should page matches in id order, resuming after the last id and stopping at the limit")
+        void should_pageMatchesInIdOrder() {
+            // Arrange
+            NameIndex index = new NameIndex();
+            List<Product> milks = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                Product milk = food("Milk " + i, "1.00");
+                milks.add(milk);
+                index.added(milk);
+                index.added(food("Cheese " + i, "1.00"));
+            }
+            milks.sort(Comparator.comparing(Product::uuid));
+            index.removed(milks.remove(7));
+
+            // Act
+            List<Product> first = index.containingAfter("milk", null, 6);
+            List<Product> second = index.containingAfter("milk", first.getLast().uuid(), 6);
+            List<Product> shortTerm = index.containingAfter("k", milks.get(5).uuid(), 3);
+
+            // Assert
+            assertThat(first).containsExactlyElementsOf(milks.subList(0, 6));
+            assertThat(second).containsExactlyElementsOf(milks.subList(6, 12));
+            assertThat(shortTerm).containsExactlyElementsOf(milks.subList(6, 9));
+            assertThat(index.narrowest("milk")).hasSize(19);
+        }
+    }
+
+    @Nested
+    @DisplayName("Running aggregates")
+    class AggregateTests {
+
+        @Test
+        @DisplayName("📊 should track total value and extremes through repricing and removal")
+        void should_trackTotalsAndExtremes() {
+            // Arrange
+            Product milk = food("Milk", "10.00");
+            Product cheese = food("Cheese", "30.00");
+            Product butter = food("Butter", "20.00");
+            warehouse.addProduct(milk);
+            warehouse.addProduct(cheese);
+            warehouse.addProduct(butter);
+
+            // Act
+            warehouse.updateProductPrice(milk.uuid(), new BigDecimal("40.00"));
+            warehouse.remove(cheese.uuid());
+
+            // Assert
+            assertThat(warehouse.totalValue()).isEqualByComparingTo("60.00");
+            assertThat(warehouse.mostExpensiveProduct()).contains(milk);
+            assertThat(warehouse.cheapestProduct()).contains(butter);
+        }
+
+        @Test
+        @DisplayName("📊 should count categories and forget one once its last product is gone")
+        void should_countCategories() {
+            // Arrange
+            Product milk = food("Milk", "10.00");
+            Product laptop = new ElectronicsProduct(UUID.randomUUID(), "Laptop", Category.of("Electronics"),
+                    BigDecimal.TEN, 12, BigDecimal.ONE);
+            warehouse.addProduct(milk);
+            warehouse.addProduct(food("Cheese", "30.00"));
+            warehouse.addProduct(laptop);
+
+            // Act
+            warehouse.remove(laptop.uuid());
+
+            // Assert
+            assertThat(warehouse.categoryCount()).isEqualTo(1);
+            assertThat(warehouse.countByCategory()).containsExactly(Map.entry(Category.of("Dairy"), 2));
+        }
+
+        @Test
+        @DisplayName("📊 should reset to empty statistics after clearProducts")
+        void should_resetOnClear() {
+            // Arrange
+            warehouse.addProduct(food("Milk", "10.00"));
+
+            // Act
+            warehouse.clearProducts();
+            InventoryStatistics stats = new WarehouseAnalyzer(warehouse).getInventoryStatistics();
+
+            // Assert
+            assertThat(stats.getTotalProducts()).isZero();
+            assertThat(stats.getTotalValue()).isEqualByComparingTo("0");
+            assertThat(stats.getCategoryCount()).isZero();
+            assertThat(stats.getMostExpensiveProduct()).isNull();
+        }
+    }
+
+    @Nested
+    @DisplayName("Price quantiles")
+    class QuantileTests {
+
+        //adds, reprices and removes products at random and returns the prices still in the warehouse, sorted
+        private List<BigDecimal> churn(int count, long seed) {
+            Random random = new Random(seed);
+            List<Product> live = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                Product p = food("Item" + i, BigDecimal.valueOf(1 + random.nextInt(500_000), 2).toPlainString());
+                warehouse.addProduct(p);
+                live.add(p);
+            }
+            for (int i = 0; i < count / 4; i++) {
+                Product p = live.get(random.nextInt(live.size()));
+                warehouse.updateProductPrice(p.uuid(), BigDecimal.valueOf(1 + random.nextInt(500_000), 2));
+                Product gone = live.remove(random.nextInt(live.size()));
+                warehouse.remove(gone.uuid());
+            }
+            return live.stream().map(Product::price).sorted().toList();
+        }
+
+        @Test
+        @DisplayName("📊 should give the exact price at rank floor(q * n) through adds, repricing and removals")
+        void should_matchSortedPrices_when_exact() {
+            // Arrange
+            List<BigDecimal> sorted = churn(2_000, 5);
+            int n = sorted.size();
+
+            // Act
+            List<BigDecimal> quartiles = warehouse.priceQuantiles(0.0, 0.25, 0.5, 0.75, 1.0);
+
+            // Assert
+            assertThat(quartiles).containsExactly(sorted.get(0), sorted.get(n / 4), sorted.get(n / 2),
+                    sorted.get((3 * n) / 4), sorted.get(n - 1));
+        }
+
+        @Test
+        @DisplayName("📊 should stay within the documented relative error in approximate mode")
+        void should_stayWithinErrorBound_when_approximate() {
+            // Arrange
+            List<BigDecimal> sorted = churn(2_000, 6);
+            int n = sorted.size();
+
+            // Act
+            warehouse.usePriceQuantiles(QuantileMode.APPROXIMATE);
+            List<BigDecimal> quartiles = warehouse.priceQuantiles(0.25, 0.75);
+
+            // Assert
+            assertThat(warehouse.priceQuantileMode()).isEqualTo(QuantileMode.APPROXIMATE);
+            BigDecimal q1 = sorted.get(n / 4);
+            BigDecimal q3 = sorted.get((3 * n) / 4);
+            assertThat(quartiles.get(0).doubleValue()).isCloseTo(q1.doubleValue(), within(q1.doubleValue() * PriceSketch.RELATIVE_ERROR));
+            assertThat(quartiles.get(1).doubleValue()).isCloseTo(q3.doubleValue(), within(q3.doubleValue() * PriceSketch.RELATIVE_ERROR));
+        }
+
+        @Test
+        @DisplayName("📊 should find the same outliers as sorting every price, in price order")
+        void should_matchSortingOutliers() {
+            // Arrange
+            List<BigDecimal> sorted = churn(1_000, 7);
+            Product cheap = food("Cheap", "0.01");
+            Product gold = food("Gold", "99999.00");
+            warehouse.addProduct(cheap);
+            warehouse.addProduct(gold);
+            List<Product> all = warehouse.getProducts().stream().sorted(Comparator.comparing(Product::price)).toList();
+            int n = all.size();
+            BigDecimal q1 = all.get(n / 4).price();
+            BigDecimal q3 = all.get((3 * n) / 4).price();
+            BigDecimal spread = q3.subtract(q1).multiply(BigDecimal.valueOf(0.2));
+            List<Product> expected = all.stream()
+                    .filter(p -> p.price().compareTo(q1.subtract(spread)) < 0 || p.price().compareTo(q3.add(spread)) > 0)
+                    .toList();
+
+            // Act
+            WarehouseAnalyzer analyzer = new WarehouseAnalyzer(warehouse);
+            List<Product> outliers = analyzer.findPriceOutliers(0.2);
+
+            // Assert
+            assertThat(outliers).containsExactlyInAnyOrderElementsOf(expected).contains(cheap, gold);
+            assertThat(outliers).extracting(Product::price).isSortedAccordingTo(BigDecimal::compareTo);
+            assertThat(analyzer.isPriceOutlier(gold, 0.2)).isTrue();
+            assertThat(analyzer.isPriceOutlier(all.get(n / 2), 0.2)).isFalse();
+        }
+
+        @Test
+        @DisplayName("✅ should return nothing when the warehouse has no prices")
+        void should_returnEmpty_when_noPrices() {
+            // Act & Assert
+            assertThat(warehouse.priceQuantiles(0.5)).isEmpty();
+            warehouse.usePriceQuantiles(QuantileMode.APPROXIMATE);
+            assertThat(warehouse.priceQuantiles(0.5)).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("Category index")
+    class CategoryIndexTests {
+
+        private Product weighed(String name, String category, String price, String weight) {
+            return new FoodProduct(UUID.randomUUID(), name, Category.of(category), new BigDecimal(price),
+                    LocalDate.now().plusDays(5), new BigDecimal(weight));
+        }
+
+        //sum(price * weight) / sum(weight) over the live products, straight from BigDecimal
+        private BigDecimal recomputed(Category category) {
+            BigDecimal weighted = BigDecimal.ZERO;
+            BigDecimal weight = BigDecimal.ZERO;
+            for (Product p : warehouse.productsInCategory(category)) {
+                BigDecimal w = BigDecimal.valueOf(((Shippable) p).weight());
+                weighted = weighted.add(p.price().multiply(w));
+                weight = weight.add(w);
+            }
+            return weighted.divide(weight, 2, RoundingMode.HALF_UP);
+        }
+
+        @Test
+        @DisplayName("📊 should keep weighted averages exact through repricing and removal")
+        void should_keepWeightedAveragesExact() {
+            // Arrange - sub-cent prices and sub-gram weights exercise the BigDecimal side of the sums
+            Random random = new Random(8);
+            List<Product> added = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                String price = random.nextInt(4) == 0
+                        ? BigDecimal.valueOf(random.nextInt(1_000_000), 3).toPlainString()
+                        : BigDecimal.valueOf(random.nextInt(100_000), 2).toPlainString();
+                String weight = BigDecimal.valueOf(1 + random.nextInt(5_000_000), 4 + random.nextInt(2)).toPlainString();
+                Product p = weighed("Item" + i, i % 2 == 0 ? "Dairy" : "Fruit", price, weight);
+                warehouse.addProduct(p);
+                added.add(p);
+            }
+
+            // Act
+            for (int i = 0; i < added.size(); i += 3) warehouse.remove(added.get(i).uuid());
+            for (int i = 1; i < added.size(); i += 3) {
+                warehouse.updateProductPrice(added.get(i).uuid(), BigDecimal.valueOf(random.nextInt(100_000), 3));
+            }
+
+            // Assert
+            assertThat(warehouse.weightedAveragePriceByCategory())
+                    .containsEntry(Category.of("Dairy"), recomputed(Category.of("Dairy")))
+                    .containsEntry(Category.of("Fruit"), recomputed(Category.of("Fruit")));
+            assertThat(warehouse.countByCategory()).containsEntry(Category.of("Dairy"), 100).containsEntry(Category.of("Fruit"), 100);
+        }
+
+        @Test
+        @DisplayName("📊 should fall back to the plain average for weightless categories")
+        void should_usePlainAverage_when_noWeights() {
+            // Arrange
+            warehouse.addProduct(weighed("Ice", "Frozen", "10.00", "0"));
+            warehouse.addProduct(weighed("Snow", "Frozen", "15.01", "0"));
+
+            // Act & Assert
+            assertThat(warehouse.weightedAveragePriceByCategory()).containsExactly(Map.entry(Category.of("Frozen"), new BigDecimal("12.51")));
+        }
+
+        @Test
+        @DisplayName("✅ should drop a category from grouping and averages once its last product is removed")
+        void should_dropEmptyCategories() {
+            // Arrange
+            Product milk = weighed("Milk", "Dairy", "10.00", "1");
+            Product apple = weighed("Apple", "Fruit", "3.00", "0.2");
+            warehouse.addProduct(milk);
+            warehouse.addProduct(apple);
+
+            // Act
+            warehouse.remove(apple.uuid());
+
+            // Assert
+            assertThat(warehouse.getProductsGroupedByCategories()).containsExactly(Map.entry(Category.of("Dairy"), List.of(milk)));
+            assertThat(warehouse.productsInCategory(Category.of("Fruit"))).isEmpty();
+            assertThat(warehouse.weightedAveragePriceByCategory()).containsOnlyKeys(Category.of("Dairy"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Bulk load")
+    class BulkLoadTests {
+
+        private List<Product> catalog(int count, long seed) {
+            Random random = new Random(seed);
+            String[] names = {"Milk", "Cheese", "Butter", "Yogurt", "Cream"};
+            String[] categories = {"Dairy", "Fruit", "Frozen"};
+            List<Product> products = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                products.add(new FoodProduct(UUID.randomUUID(), names[random.nextInt(names.length)] + " " + i,
+                        Category.of(categories[random.nextInt(categories.length)]),
+                        BigDecimal.valueOf(random.nextInt(10_000), 2), LocalDate.of(2030, 1, 1).plusDays(random.nextInt(60)),
+                        BigDecimal.valueOf(1 + random.nextInt(5_000), 3)));
+            }
+            return products;
+        }
+
+        @Test
+        @DisplayName("✅ should answer every index query as if the products were added one by one")
+        void should_matchSingleAdds() {
+            // Arrange - the second batch lands on non-empty indexes, the first on empty ones
+            List<Product> first = catalog(2_000, 1);
+            List<Product> second = catalog(1_000, 2);
+            Warehouse single = Warehouse.getInstance("BulkLoadReferenceWarehouse");
+            single.clearProducts();
+            single.usePriceQuantiles(QuantileMode.EXACT);
+            first.forEach(single::addProduct);
+            second.forEach(single::addProduct);
+
+            // Act
+            warehouse.addAll(first);
+            warehouse.addAll(second);
+
+            // Assert
+            BigDecimal low = new BigDecimal("20.00");
+            BigDecimal high = new BigDecimal("40.00");
+            Comparator<Product> byId = Comparator.comparing(Product::uuid);
+            assertThat(warehouse.size()).isEqualTo(3_000);
+            assertThat(warehouse.productsInPriceRange(low, high)).containsExactlyElementsOf(single.productsInPriceRange(low, high));
+            assertThat(warehouse.searchByName("chees")).usingElementComparator(byId).containsExactlyInAnyOrderElementsOf(single.searchByName("chees"));
+            assertThat(warehouse.productsExpiringBetween(LocalDate.of(2030, 1, 10), LocalDate.of(2030, 1, 20)))
+                    .containsExactlyInAnyOrderElementsOf(single.productsExpiringBetween(LocalDate.of(2030, 1, 10), LocalDate.of(2030, 1, 20)));
+            assertThat(warehouse.countByCategory()).isEqualTo(single.countByCategory());
+            assertThat(warehouse.weightedAveragePriceByCategory()).isEqualTo(single.weightedAveragePriceByCategory());
+            assertThat(warehouse.totalValue()).isEqualByComparingTo(single.totalValue());
+            assertThat(warehouse.priceQuantiles(0.1, 0.5, 0.9)).isEqualTo(single.priceQuantiles(0.1, 0.5, 0.9));
+            assertThat(warehouse.cheapestProduct()).isEqualTo(single.cheapestProduct());
+        }
+
+        @Test
+        @DisplayName("❌ should reject the whole batch when an id repeats or already exists")
+        void should_rejectDuplicatesAtomically() {
+            // Arrange
+            Product milk = food("Milk", "10.00");
+            warehouse.addProduct(milk);
+            Product cheese = food("Cheese", "5.00");
+
+            // Act & Assert
+            assertThatThrownBy(() -> warehouse.addAll(List.of(cheese, milk)))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> warehouse.addAll(List.of(cheese, cheese)))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Duplicate product id in batch: " + cheese.uuid());
+            assertThat(warehouse.size()).isEqualTo(1);
+            assertThat(warehouse.searchByName("Cheese")).isEmpty();
+            assertThat(warehouse.totalValue()).isEqualByComparingTo("10.00");
+        }
+    }
+}
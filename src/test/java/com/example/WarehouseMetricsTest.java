@@ -0,0 +1,189 @@
+package com.example;
+
+import org.junit.jupiter.api.*;
+
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for the latency histograms behind {@link WarehouseMetrics} and the bean each Warehouse
+ * publishes on the platform MBean server.
+ */
+@DisplayName("Warehouse metrics")
+class WarehouseMetricsTest {
+
+    private static Product food(String name, String price) {
+        return new FoodProduct(UUID.randomUUID(), name, Category.of("Dairy"), new BigDecimal(price),
+                LocalDate.now().plusDays(5), BigDecimal.ONE);
+    }
+
+    @Nested
+    @DisplayName("Histogram")
+    class HistogramTests {
+
+        @Test
+        @DisplayName("✅ should map every value into a bucket whose upper edge is within 12.5% above it")
+        void should_boundBucketError() {
+            // Arrange
+            Random random = new Random(21);
+
+            // Act & Assert
+            for (long v = 0; v < 4_096; v++) {
+                assertThat(LatencyHistogram.highestValue(LatencyHistogram.index(v))).isBetween(v, v + v / 8);
+            }
+            for (int i = 0; i < 100_000; i++) {
+                long v = random.nextLong(LatencyHistogram.MAX_NANOS + 1);
+                int index = LatencyHistogram.index(v);
+                assertThat(LatencyHistogram.highestValue(index)).isBetween(v, v + v / 8);
+                assertThat(LatencyHistogram.index(LatencyHistogram.highestValue(index))).isEqualTo(index);
+            }
+        }
+
+        @Test
+        @DisplayName("✅ should report percentiles within the bucket error of the exact ones")
+        void should_matchExactPercentiles() {
+            // Arrange
+            Random random = new Random(22);
+            LatencyHistogram histogram = new LatencyHistogram();
+            long[] values = new long[100_000];
+            for (int i = 0; i < values.length; i++) {
+                //log-uniform between 100 ns and 10 ms, like real call latencies
+                values[i] = (long) Math.exp(Math.log(100) + random.nextDouble() * Math.log(100_000));
+                histogram.record(values[i]);
+            }
+            Arrays.sort(values);
+
+            // Act
+            LatencyHistogram.Snapshot snapshot = histogram.snapshot(0.5, 0.99, 0.999);
+
+            // Assert
+            assertThat(snapshot.count()).isEqualTo(values.length);
+            double[] quantiles = {0.5, 0.99, 0.999};
+            for (int q = 0; q < quantiles.length; q++) {
+                long exact = values[(int) Math.ceil(quantiles[q] * values.length) - 1];
+                assertThat(snapshot.values()[q]).isBetween(exact, exact + exact / 8);
+            }
+            assertThat(snapshot.max()).isBetween(values[values.length - 1], values[values.length - 1] * 9 / 8);
+        }
+
+        @Test
+        @DisplayName("✅ should clamp negative and huge latencies and report zeros when empty")
+        void should_clampAndHandleEmpty() {
+            // Arrange
+            LatencyHistogram histogram = new LatencyHistogram();
+
+            // Act
+            LatencyHistogram.Snapshot empty = histogram.snapshot(0.5);
+            histogram.record(-5);
+            histogram.record(Long.MAX_VALUE);
+            LatencyHistogram.Snapshot snapshot = histogram.snapshot(0.5, 1.0);
+
+            // Assert
+            assertThat(empty.count()).isZero();
+            assertThat(empty.values()).containsExactly(0);
+            assertThat(empty.max()).isZero();
+            assertThat(snapshot.values()).containsExactly(0, LatencyHistogram.MAX_NANOS);
+        }
+    }
+
+    @Nested
+    @DisplayName("MBean")
+    class MBeanTests {
+
+        @Test
+        @DisplayName("✅ should publish call counts, percentiles and catalog gauges per warehouse")
+        void should_publishOverJmx() {
+            // Arrange
+            Warehouse warehouse = Warehouse.getInstance("WarehouseMetricsTest-publish");
+            warehouse.clearProducts();
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            WarehouseMetricsMXBean bean = JMX.newMXBeanProxy(server,
+                    WarehouseMetrics.objectName("WarehouseMetricsTest-publish"), WarehouseMetricsMXBean.class);
+            bean.reset();
+            Product milk = food("Milk", "10.00");
+
+            // Act
+            warehouse.addProduct(milk);
+            warehouse.addProduct(food("Cheese", "20.00"));
+            warehouse.getProductById(milk.uuid());
+            warehouse.expiredProducts();
+            new WarehouseAnalyzer(warehouse).findPriceOutliers(1.5);
+            assertThatThrownBy(() -> warehouse.updateProductPrice(UUID.randomUUID(), BigDecimal.ONE))
+                    .isInstanceOf(NoSuchElementException.class);
+
+            // Assert
+            var operations = bean.getOperations();
+            assertThat(operations).hasSize(Operation.values().length);
+            assertThat(operations.get("Warehouse.addProduct").count()).isEqualTo(2);
+            assertThat(operations.get("Warehouse.getProductById").count()).isEqualTo(1);
+            assertThat(operations.get("Warehouse.expiredProducts").count()).isEqualTo(1);
+            assertThat(operations.get("Warehouse.updateProductPrice").count()).isEqualTo(1);
+            assertThat(operations.get("WarehouseAnalyzer.findPriceOutliers").count()).isEqualTo(1);
+            //the analyzer's own calls into the warehouse are counted as well
+            assertThat(operations.get("Warehouse.priceQuantiles").count()).isEqualTo(1);
+            assertThat(operations.get("Warehouse.remove").count()).isZero();
+            var adds = operations.get("Warehouse.addProduct");
+            assertThat(adds.p50Nanos()).isPositive().isLessThanOrEqualTo(adds.p99Nanos());
+            assertThat(adds.p999Nanos()).isLessThanOrEqualTo(adds.maxNanos());
+            assertThat(bean.getProductCount()).isEqualTo(2);
+            assertThat(bean.getCategoryCount()).isEqualTo(1);
+            assertThat(bean.getStorage()).isEqualTo("HEAP");
+            assertThat(bean.getNativeBytes()).isZero();
+            //polling the gauges is not a call
+            assertThat(bean.getOperations().get("Warehouse.categoryCount").count()).isZero();
+        }
+
+        @Test
+        @DisplayName("✅ should count every call of a sampled lookup while timing only some")
+        void should_countSampledCalls() {
+            // Arrange
+            Warehouse warehouse = Warehouse.getInstance("WarehouseMetricsTest-sampled");
+            warehouse.clearProducts();
+            Product milk = food("Milk", "10.00");
+            warehouse.addProduct(milk);
+            WarehouseMetrics metrics = warehouse.metrics();
+            metrics.reset();
+
+            // Act
+            for (int i = 0; i < 10_000; i++) warehouse.getProductById(milk.uuid());
+
+            // Assert
+            assertThat(Operation.GET_PRODUCT_BY_ID.sampled()).isTrue();
+            var lookups = metrics.statistics(Operation.GET_PRODUCT_BY_ID);
+            assertThat(lookups.count()).isEqualTo(10_000);
+            assertThat(lookups.p50Nanos()).isPositive().isLessThanOrEqualTo(lookups.maxNanos());
+        }
+
+        @Test
+        @DisplayName("✅ should zero the counters on reset and report native bytes off heap")
+        void should_resetAndReportNativeBytes() {
+            // Arrange
+            Warehouse warehouse = Warehouse.getInstance("WarehouseMetricsTest-offHeap", Storage.OFF_HEAP);
+            warehouse.clearProducts();
+            warehouse.addProduct(food("Milk", "10.00"));
+            WarehouseMetricsMXBean bean = JMX.newMXBeanProxy(ManagementFactory.getPlatformMBeanServer(),
+                    WarehouseMetrics.objectName("WarehouseMetricsTest-offHeap"), WarehouseMetricsMXBean.class);
+
+            // Act
+            long addsBefore = bean.getOperations().get("Warehouse.addProduct").count();
+            bean.reset();
+
+            // Assert
+            assertThat(addsBefore).isEqualTo(1);
+            assertThat(bean.getOperations().values()).allSatisfy(s -> assertThat(s.count()).isZero());
+            assertThat(bean.getProductCount()).isEqualTo(1);
+            assertThat(bean.getStorage()).isEqualTo("OFF_HEAP");
+            assertThat(bean.getNativeBytes()).isPositive();
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package com.example;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifies that a persistent {@link Warehouse} recovers the same state from its snapshot and
+ * write-ahead log after the in-memory copy is thrown away.
+ */
+@DisplayName("Warehouse persistence")
+class WarehousePersistenceTest {
+
+    @TempDir
+    Path directory;
+
+    private Warehouse warehouse;
+
+    @BeforeEach
+    void setUp() {
+        warehouse = Warehouse.getInstance("PersistenceTestWarehouse");
+        warehouse.disablePersistence();
+        warehouse.clearProducts();
+    }
+
+    @AfterEach
+    void tearDown() {
+        warehouse.disablePersistence();
+        warehouse.clearProducts();
+    }
+
+    private FoodProduct food(String name, String price) {
+        return new FoodProduct(UUID.randomUUID(), name, Category.of("Dairy"), new BigDecimal(price),
+                LocalDate.of(2030, 1, 15), new BigDecimal("1.2345"));
+    }
+
+    private ElectronicsProduct gadget(String name, String price) {
+        return new ElectronicsProduct(UUID.randomUUID(), name, Category.of("Electronics"), new BigDecimal(price),
+                24, new BigDecimal("6.5"));
+    }
+
+    //drops the in-memory state and recovers it from the directory
+    private void restart() {
+        warehouse.disablePersistence();
+        warehouse.clearProducts();
+        warehouse.enablePersistence(directory);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(f -> f.getFileName().toString().endsWith(".log")).sorted().toList();
+        }
+    }
+
+    @Nested
+    @DisplayName("Recovery")
+    class RecoveryTests {
+
+        @Test
+        @DisplayName("✅ should replay adds, reprices, removals and clears from the log")
+        void should_replayLog() {
+            // Arrange
+            warehouse.enablePersistence(directory);
+            FoodProduct milk = food("Milk", "10.00");
+            ElectronicsProduct laptop = gadget("Laptop", "999.99");
+            FoodProduct cheese = food("Cheese", "5.00");
+            warehouse.addProduct(cheese);
+            warehouse.clearProducts();
+            warehouse.addProduct(milk);
+            warehouse.addProduct(laptop);
+            warehouse.addProduct(food("Bread", "3.00"));
+            warehouse.updateProductPrice(milk.uuid(), new BigDecimal("12.50"));
+            warehouse.remove(warehouse.searchByName("Bread").get(0).uuid());
+
+            // Act
+            restart();
+
+            // Assert
+            assertThat(warehouse.size()).isEqualTo(2);
+            FoodProduct recoveredMilk = (FoodProduct) warehouse.getProductById(milk.uuid()).orElseThrow();
+            assertThat(recoveredMilk.name()).isEqualTo("Milk");
+            assertThat(recoveredMilk.price()).isEqualByComparingTo("12.50");
+            assertThat(recoveredMilk.expirationDate()).isEqualTo(LocalDate.of(2030, 1, 15));
+            assertThat(recoveredMilk.weightValue()).isEqualTo(new BigDecimal("1.2345"));
+            ElectronicsProduct recoveredLaptop = (ElectronicsProduct) warehouse.getProductById(laptop.uuid()).orElseThrow();
+            assertThat(recoveredLaptop.warrantyMonths()).isEqualTo(24);
+            assertThat(recoveredLaptop.category()).isSameAs(Category.of("Electronics"));
+            assertThat(warehouse.totalValue()).isEqualByComparingTo("1012.49");
+        }
+
+        @Test
+        @DisplayName("✅ should recover from a checkpoint plus the log written after it")
+        void should_recoverFromSnapshotAndTail() throws IOException {
+            // Arrange
+            warehouse.enablePersistence(directory);
+            FoodProduct milk = food("Milk", "10.00");
+            warehouse.addProduct(milk);
+            warehouse.addProduct(gadget("Phone", "300.00"));
+            warehouse.checkpoint();
+            List<Path> afterCheckpoint = segments();
+            warehouse.updateProductPrice(milk.uuid(), new BigDecimal("11.00"));
+            warehouse.addProduct(food("Butter", "4.00"));
+
+            // Act
+            restart();
+
+            // Assert
+            assertThat(afterCheckpoint).hasSize(1);
+            assertThat(Files.exists(directory.resolve("snapshot.bin"))).isTrue();
+            assertThat(warehouse.size()).isEqualTo(3);
+            assertThat(warehouse.getProductById(milk.uuid()).orElseThrow().price()).isEqualByComparingTo("11.00");
+        }
+
+        @Test
+        @DisplayName("✅ should snapshot a populated warehouse when persistence starts on an empty directory")
+        void should_snapshotExistingProducts() {
+            // Arrange
+            warehouse.addProduct(food("Milk", "10.00"));
+            warehouse.addProduct(gadget("Phone", "300.00"));
+
+            // Act
+            warehouse.enablePersistence(directory);
+            restart();
+
+            // Assert
+            assertThat(warehouse.size()).isEqualTo(2);
+            assertThat(warehouse.totalValue()).isEqualByComparingTo("310.00");
+        }
+
+        @Test
+        @DisplayName("✅ should drop a torn record at the end of the log")
+        void should_truncateTornTail() throws IOException {
+            // Arrange
+            warehouse.enablePersistence(directory);
+            warehouse.addProduct(food("Milk", "10.00"));
+            warehouse.disablePersistence();
+            Path segment = segments().get(segments().size() - 1);
+            long intact = Files.size(segment);
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.APPEND)) {
+                channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 40, 1, 2, 3}));
+            }
+
+            // Act
+            warehouse.clearProducts();
+            warehouse.enablePersistence(directory);
+            warehouse.addProduct(food("Cheese", "5.00"));
+            restart();
+
+            // Assert
+            assertThat(warehouse.size()).isEqualTo(2);
+            assertThat(Files.size(segment)).isEqualTo(intact);
+        }
+
+        @Test
+        @DisplayName("✅ should drop a zero-filled tail the file grew by before a crash")
+        void should_truncateZeroFilledTail() throws IOException {
+            // Arrange
+            warehouse.enablePersistence(directory);
+            warehouse.addProduct(food("Milk", "10.00"));
+            warehouse.disablePersistence();
+            Path segment = segments().get(segments().size() - 1);
+            long intact = Files.size(segment);
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.APPEND)) {
+                channel.write(ByteBuffer.allocate(4096));
+            }
+
+            // Act
+            warehouse.clearProducts();
+            warehouse.enablePersistence(directory);
+            warehouse.addProduct(food("Cheese", "5.00"));
+            restart();
+
+            // Assert
+            assertThat(warehouse.size()).isEqualTo(2);
+            assertThat(Files.size(segment)).isEqualTo(intact);
+        }
+
+        @Test
+        @DisplayName("✅ should drop a bulk load whose commit record never reached the log")
+        void should_dropUncommittedBulkLoad() throws IOException {
+            // Arrange
+            warehouse.enablePersistence(directory);
+            warehouse.addProduct(food("Milk", "10.00"));
+            warehouse.addAll(List.of(food("Cheese", "5.00"), gadget("Phone", "300.00")));
+            warehouse.disablePersistence();
+            Path segment = segments().get(segments().size() - 1);
+            //the commit is the last record: an 8-byte frame header and its op byte
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+                channel.truncate(channel.size() - 9);
+            }
+
+            // Act
+            warehouse.clearProducts();
+            warehouse.enablePersistence(directory);
+
+            // Assert
+            assertThat(warehouse.getProducts()).extracting(Product::name).containsExactly("Milk");
+        }
+
+        @Test
+        @DisplayName("✅ should keep every concurrently committed product")
+        void should_recoverConcurrentWrites() throws Exception {
+            // Arrange
+            warehouse.enablePersistence(directory);
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 200; i++) warehouse.addProduct(food("Item", "1.00"));
+                }));
+            }
+            for (Future<?> f : futures) f.get(60, TimeUnit.SECONDS);
+            executor.shutdown();
+
+            // Act
+            restart();
+
+            // Assert
+            assertThat(warehouse.size()).isEqualTo(1_600);
+        }
+
+        @Test
+        @DisplayName("✅ should checkpoint in the background once the log outgrows the threshold")
+        void should_checkpointAutomatically() throws Exception {
+            // Arrange
+            warehouse.enablePersistence(directory, 1);
+
+            // Act
+            warehouse.addProduct(food("Milk", "10.00"));
+            Path snapshot = directory.resolve("snapshot.bin");
+            for (int i = 0; i < 500 && !Files.exists(snapshot); i++) Thread.sleep(10);
+            warehouse.addProduct(food("Cheese", "5.00"));
+            restart();
+
+            // Assert
+            assertThat(Files.exists(snapshot)).isTrue();
+            assertThat(warehouse.size()).isEqualTo(2);
+        }
+    }
+
+    @Nested
+    @DisplayName("Failures")
+    class FailureTests {
+
+        @Test
+        @DisplayName("❌ should refuse every change after a log write fails")
+        void should_failStop_when_writeFails() {
+            // Arrange
+            warehouse.enablePersistence(directory);
+            FoodProduct milk = food("Milk", "10.00");
+            warehouse.addProduct(milk);
+            //an interrupted thread closes the segment channel in the middle of the group commit write
+            Thread.currentThread().interrupt();
+            try {
+                assertThatThrownBy(() -> warehouse.addProduct(food("Cheese", "5.00"))).isInstanceOf(UncheckedIOException.class);
+            } finally {
+                Thread.interrupted();
+            }
+
+            // Act & Assert
+            assertThatThrownBy(() -> warehouse.addProduct(food("Bread", "2.00")))
+                    .isInstanceOf(UncheckedIOException.class)
+                    .hasMessage("Write-ahead log failed, it accepts no more changes.");
+            assertThatThrownBy(() -> warehouse.updateProductPrice(milk.uuid(), new BigDecimal("12.00")))
+                    .isInstanceOf(UncheckedIOException.class);
+            assertThatThrownBy(() -> warehouse.remove(milk.uuid())).isInstanceOf(UncheckedIOException.class);
+            assertThat(warehouse.size()).isEqualTo(2);
+            assertThat(warehouse.getProductById(milk.uuid()).orElseThrow().price()).isEqualByComparingTo("10.00");
+            restart();
+            assertThat(warehouse.getProductById(milk.uuid())).isPresent();
+        }
+
+        @Test
+        @DisplayName("❌ should refuse the next change after a background checkpoint fails")
+        void should_failStop_when_checkpointFails() throws Exception {
+            // Arrange
+            warehouse.enablePersistence(directory, 1);
+            //a directory where the snapshot's temp file goes makes writing the snapshot fail
+            Files.createDirectories(directory.resolve("snapshot.tmp").resolve("blocker"));
+
+            // Act
+            warehouse.addProduct(food("Milk", "10.00"));
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                if (thread.getName().equals("warehouse-checkpoint")) thread.join();
+            }
+
+            // Assert
+            assertThatThrownBy(() -> warehouse.addProduct(food("Cheese", "5.00")))
+                    .isInstanceOf(UncheckedIOException.class)
+                    .hasMessage("Write-ahead log failed, it accepts no more changes.");
+            assertThat(warehouse.size()).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Misuse")
+    class MisuseTests {
+
+        @Test
+        @DisplayName("❌ should refuse to recover into a warehouse that already has products")
+        void should_rejectRecoveryIntoNonEmptyWarehouse() {
+            warehouse.enablePersistence(directory);
+            warehouse.addProduct(food("Milk", "10.00"));
+            warehouse.disablePersistence();
+
+            assertThatThrownBy(() -> warehouse.enablePersistence(directory))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessage("Cannot recover into a non-empty warehouse.");
+        }
+
+        @Test
+        @DisplayName("❌ should reject product types the log cannot store, without adding them")
+        void should_rejectUnstorableProducts() {
+            warehouse.enablePersistence(directory);
+            Product custom = new Product(UUID.randomUUID(), "Custom", Category.of("Misc"), BigDecimal.ONE) {
+                @Override
+                public String productDetails() {
+                    return "custom";
+                }
+            };
+
+            assertThatThrownBy(() -> warehouse.addProduct(custom)).isInstanceOf(IllegalArgumentException.class);
+            assertThat(warehouse.isEmpty()).isTrue();
+        }
+
+        @Test
+        @DisplayName("❌ should require persistence for checkpoint")
+        void should_requirePersistenceForCheckpoint() {
+            assertThat(warehouse.isPersistent()).isFalse();
+            assertThatThrownBy(() -> warehouse.checkpoint())
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessage("Persistence is not enabled.");
+        }
+    }
+}